@@ -0,0 +1,189 @@
+package main.java.bench;
+
+import main.java.model.Grid;
+import main.java.model.Player;
+import main.java.model.Square;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the game model: square locks, player moves and the grid scans behind
+ * determineWinner() and checkAllSquaresClaimed().
+ *
+ * The concurrent benchmarks run with one thread per player of a default room; use
+ * -t N to run them with more.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ModelBenchmarks {
+    private static final int BOARD_SIZE = 10; // The size the server plays on
+
+    /**
+     * One square that every thread fights over.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedSquare {
+        final Square square = new Square();
+    }
+
+    /**
+     * A square and a player of the thread's own.
+     */
+    @State(Scope.Thread)
+    public static class OwnSquare {
+        Square square;
+        Player player;
+
+        @Setup
+        public void setUp(ThreadParams thread) {
+            square = new Square();
+            player = new Player("B" + thread.getThreadIndex(), 0, 0, "#000000");
+        }
+    }
+
+    /**
+     * Square.tryLock() followed by releaseLock() on a square of the thread's own.
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean squareLockReleaseOwn(OwnSquare own) {
+        boolean locked = own.square.tryLock(own.player);
+        if (locked) own.square.releaseLock();
+        return locked;
+    }
+
+    /**
+     * Square.tryLock() followed by releaseLock() on one square shared by every thread.
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean squareLockReleaseShared(SharedSquare shared, OwnSquare own) {
+        boolean locked = shared.square.tryLock(own.player);
+        if (locked) shared.square.releaseLock();
+        return locked;
+    }
+
+    /**
+     * The board every thread's player moves on.
+     */
+    @State(Scope.Benchmark)
+    public static class Board {
+        Grid grid;
+
+        @Setup
+        public void setUp() {
+            grid = new Grid(BOARD_SIZE);
+        }
+    }
+
+    /**
+     * One thread's player, standing on (and holding the lock of) its own start square.
+     * Square locks belong to the thread that took them, and JMH only keeps a thread on
+     * the same worker for one iteration, so the player is placed around every iteration.
+     */
+    @State(Scope.Thread)
+    public static class Mover {
+        Player player;
+        private Grid grid;
+
+        @Setup(Level.Iteration)
+        public void setUp(Board board, ThreadParams thread) {
+            grid = board.grid;
+            int start = thread.getThreadIndex() % (BOARD_SIZE * BOARD_SIZE);
+            player = new Player("B" + thread.getThreadIndex(), start / BOARD_SIZE, start % BOARD_SIZE, "#000000");
+            grid.getSquare(player.getX(), player.getY()).tryLock(player);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            grid.getSquare(player.getX(), player.getY()).releaseLock();
+        }
+    }
+
+    /**
+     * Player.move() to a random neighbouring square, with every thread's player on the
+     * same board.
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean playerMove(Board board, Mover mover) {
+        int[] target = randomNeighbour(mover.player.getX(), mover.player.getY());
+        return mover.player.move(target[0], target[1], board.grid);
+    }
+
+    /**
+     * A board of a given size whose squares are all claimed, so both scans visit every square.
+     */
+    @State(Scope.Benchmark)
+    public static class ClaimedBoard {
+        @Param({"10", "50", "100", "200"})
+        int size;
+        Grid grid;
+
+        @Setup
+        public void setUp() {
+            grid = new Grid(size);
+            Player[] owners = new Player[4];
+            for (int i = 0; i < owners.length; i++) {
+                owners[i] = new Player("P" + (i + 1), 0, 0, "#000000");
+            }
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    grid.getSquare(x, y).restoreOwner(owners[(x + y) % owners.length]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Grid.countOwnedSquares(), as in determineWinner().
+     */
+    @Benchmark
+    public int gridCountOwnedSquares(ClaimedBoard board) {
+        return board.grid.countOwnedSquares().size();
+    }
+
+    /**
+     * Grid.isFullyClaimed(), as in checkAllSquaresClaimed().
+     */
+    @Benchmark
+    public boolean gridIsFullyClaimed(ClaimedBoard board) {
+        return board.grid.isFullyClaimed();
+    }
+
+    /**
+     * Picks one of the up to four squares next to a position, staying on a BOARD_SIZE board.
+     *
+     * @return the target [x, y]
+     */
+    static int[] randomNeighbour(int x, int y) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int step = random.nextBoolean() ? 1 : -1;
+        if (random.nextBoolean()) {
+            x = x + step >= 0 && x + step < BOARD_SIZE ? x + step : x - step; // Turn back at the edge
+        } else {
+            y = y + step >= 0 && y + step < BOARD_SIZE ? y + step : y - step;
+        }
+        return new int[]{x, y};
+    }
+}
@@ -0,0 +1,272 @@
+package main.java.bench;
+
+import main.java.client.GameClient;
+import main.java.client.GameView;
+import main.java.event.EventBus;
+import main.java.journal.MatchJournal;
+import main.java.metrics.RoomLatencyStats;
+import main.java.metrics.ServerMetrics;
+import main.java.model.Grid;
+import main.java.model.Player;
+import main.java.protocol.MessageWriter;
+import main.java.server.ClientHandler;
+import main.java.server.GameServerInterface;
+import main.java.server.MatchPhase;
+import main.java.timer.TimerWheel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the text protocol: how fast ClientHandler parses client commands and
+ * formats its replies, and how fast GameClient decodes server messages. Scores are per
+ * message.
+ *
+ * Both run the real message loops over a batch of pre-encoded messages. The server side
+ * reads from memory and answers into a stub game server, so only parsing, dispatch and
+ * formatting are measured. The client side has no such seam, so it reads each batch
+ * from a loopback connection.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ProtocolBenchmarks {
+    private static final int BATCH = 4096; // Messages per invocation
+
+    /**
+     * Discards the game code's logging while the benchmarks run, so it does not end up
+     * in the measurements.
+     */
+    @State(Scope.Benchmark)
+    public static class Quiet {
+        private PrintStream out;
+
+        @Setup
+        public void setUp() {
+            out = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown
+        public void tearDown() {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * A batch of MOVE commands, and a stub game server per thread to answer them.
+     */
+    @State(Scope.Thread)
+    public static class MoveCommands {
+        private static final byte[] INPUT;
+
+        static {
+            StringBuilder messages = new StringBuilder();
+            for (int i = 0; i < BATCH; i++) {
+                messages.append("MOVE,").append(i % 10).append(',').append(i / 10 % 10).append('\n');
+            }
+            INPUT = messages.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        final StubServer server = new StubServer();
+
+        @TearDown
+        public void tearDown() {
+            server.timers.stop();
+        }
+    }
+
+    /**
+     * A batch of MOVE commands through ClientHandler.run(), half of them confirmed (one
+     * PLAYER_MOVED broadcast and one MOVE_CONFIRMED reply) and half rejected.
+     */
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH)
+    public long clientHandlerMove(Quiet quiet, MoveCommands commands) {
+        new ClientHandler(commands.server, new MemorySocket(MoveCommands.INPUT)).run();
+        return commands.server.moves;
+    }
+
+    /**
+     * A loopback server that writes a batch of typical in-game server messages to every
+     * client that connects.
+     */
+    @State(Scope.Benchmark)
+    public static class ServerMessages {
+        private static final String[] MESSAGES = {
+                "PLAYER_MOVED,P2,3,4,#a7c1e9",
+                "MOVE_CONFIRMED,P1,5,6",
+                "PLAYER_MOVED,P3,7,1,#feeaa7",
+                "INVALID_MOVE",
+                "LOBBY_STATE,4,P1,READY;P2,NOT READY;P3,READY;",
+                "COUNTDOWN,2",
+        };
+        private static final String END = "COUNTDOWN_ABORTED"; // Marks the end of a batch
+
+        private ServerSocket serverSocket;
+
+        @Setup
+        public void setUp() throws IOException {
+            StringBuilder messages = new StringBuilder();
+            for (int i = 0; i < BATCH - 1; i++) {
+                messages.append(MESSAGES[i % MESSAGES.length]).append('\n');
+            }
+            messages.append(END).append('\n');
+            byte[] output = messages.toString().getBytes(StandardCharsets.UTF_8);
+
+            serverSocket = new ServerSocket(0);
+            Thread.ofVirtual().name("bench-acceptor").start(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        Thread.ofVirtual().start(() -> {
+                            try (socket) {
+                                socket.getOutputStream().write(output);
+                            } catch (IOException e) {
+                                // The client hung up early
+                            }
+                        });
+                    } catch (IOException e) {
+                        return; // Closed by tearDown()
+                    }
+                }
+            });
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            serverSocket.close();
+        }
+    }
+
+    /**
+     * A batch of server messages through GameClient's message loop.
+     */
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH)
+    public long gameClientDecode(Quiet quiet, ServerMessages server) throws Exception {
+        CountingView view = new CountingView();
+        GameClient.open("localhost", server.serverSocket.getLocalPort(), view);
+        view.done.await();
+        return view.events;
+    }
+
+    /**
+     * A socket that reads a fixed batch of bytes from memory and discards what is written.
+     */
+    private static class MemorySocket extends Socket {
+        private final byte[] input;
+
+        MemorySocket(byte[] input) {
+            this.input = input;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(input);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public synchronized void close() {
+        }
+    }
+
+    /**
+     * A game server with no game behind it: every other move succeeds and broadcasts go
+     * nowhere.
+     */
+    private static class StubServer implements GameServerInterface {
+        private final Grid grid = new Grid(10);
+        private final ServerMetrics metrics = new ServerMetrics();
+        private final RoomLatencyStats latency = new RoomLatencyStats();
+        final TimerWheel timers = new TimerWheel("bench-timers", 10, TimeUnit.MILLISECONDS, 64, 1, null);
+        private final EventBus events = new EventBus("bench", Runnable::run);
+        private long moves;
+
+        @Override public void broadcast(String message) {}
+        @Override public void broadcast(MessageWriter message) {}
+        @Override public Player joinPlayer() {return new Player("P1", 0, 0, "#f0adc6");}
+        @Override public void addPlayer(Player player) {}
+        @Override public void removePlayer(String playerId) {}
+        @Override public boolean movePlayer(String playerId, int newX, int newY) {return (moves++ & 1) == 0;}
+        @Override public void addClient(ClientHandler client) {}
+        @Override public void removeClient(ClientHandler client) {}
+        @Override public void determineWinner() {}
+        @Override public void broadcastLobbyState() {}
+        @Override public void sendLobbyState(ClientHandler client) {}
+        @Override public void broadcastAllPlayerPositions() {}
+        @Override public int getPlayerCount() {return 0;}
+        @Override public int getMaxPlayers() {return 4;}
+        @Override public String getName() {return "bench";}
+        @Override public Grid getGrid() {return grid;}
+        @Override public Map<String, Player> getPlayers() {return Map.of();}
+        @Override public void readinessChanged() {}
+        @Override public MatchPhase getPhase() {return MatchPhase.LOBBY;}
+        @Override public void checkAllSquaresClaimed() {}
+        @Override public long getRemainingGameMillis() {return -1;}
+        @Override public MatchJournal getJournal() {return null;}
+        @Override public EventBus getEvents() {return events;}
+        @Override public ServerMetrics getMetrics() {return metrics;}
+        @Override public RoomLatencyStats getLatencyStats() {return latency;}
+        @Override public TimerWheel getConnectionTimers() {return timers;}
+        @Override public boolean hasPendingResumes() {return false;}
+        @Override public Player resumePlayer(String playerId) {return null;}
+    }
+
+    /**
+     * A headless view that counts the events it receives and closes the client at the
+     * end of the batch.
+     */
+    private static class CountingView implements GameView {
+        final CountDownLatch done = new CountDownLatch(1);
+        private GameClient client;
+        long events;
+
+        @Override public void setClient(GameClient client) {this.client = client;}
+        @Override public void onPlayerAssigned(String playerId, int x, int y, String color, int gridSize) {events++;}
+        @Override public void updateLobby(String message) {events++;}
+        @Override public void updateCountdown(int seconds) {events++;}
+        @Override public void onGameStarted() {events++;}
+        @Override public void addPlayer(String playerId, int x, int y, String color) {events++;}
+        @Override public void updateMaze(String playerId, int x, int y, String color) {events++;}
+        @Override public void removePlayer(String playerId) {events++;}
+        @Override public void onMoveConfirmed(String playerId, int newX, int newY) {events++;}
+        @Override public void onMoveRejected() {events++;}
+        @Override public void showGameOver(String winnerId, int winnerScore, String allScores) {events++;}
+        @Override public void onDisconnected(String reason) {done.countDown();}
+
+        @Override
+        public void abortCountdown() {
+            client.close();
+            done.countDown();
+        }
+    }
+}
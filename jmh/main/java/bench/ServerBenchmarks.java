@@ -0,0 +1,96 @@
+package main.java.bench;
+
+import main.java.model.Player;
+import main.java.server.GameServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the game server's move handling.
+ *
+ * These use a real {@link GameServer}, including its journal, which it keeps in the
+ * working directory; run the benchmarks from a scratch directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ServerBenchmarks {
+
+    /**
+     * The room under test. Its logging is discarded while it runs, so it does not end up
+     * in the measurements.
+     */
+    @State(Scope.Benchmark)
+    public static class Room {
+        GameServer server;
+        private PrintStream out;
+
+        @Setup
+        public void setUp() {
+            out = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            server = new GameServer();
+        }
+
+        @TearDown
+        public void tearDown() {
+            server.close();
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * One thread's player in the room. addPlayer() locks the start square from the
+     * benchmark thread, and JMH only keeps a thread on the same worker for one iteration,
+     * so the player is seated and removed again around every iteration.
+     */
+    @State(Scope.Thread)
+    public static class Seat {
+        Player player;
+        private GameServer server;
+
+        @Setup(Level.Iteration)
+        public void setUp(Room room, ThreadParams thread) {
+            server = room.server;
+            int size = server.getGrid().getSize();
+            int start = thread.getThreadIndex() % (size * size);
+            player = new Player("B" + thread.getThreadIndex(), start / size, start % size, "#000000");
+            server.addPlayer(player);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            server.removePlayer(player.getId());
+        }
+    }
+
+    /**
+     * GameServer.movePlayer() to a random neighbouring square, with every thread playing
+     * its own player on the server's board.
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean movePlayer(Room room, Seat seat) {
+        int[] target = ModelBenchmarks.randomNeighbour(seat.player.getX(), seat.player.getY());
+        return room.server.movePlayer(seat.player.getId(), target[0], target[1]);
+    }
+}
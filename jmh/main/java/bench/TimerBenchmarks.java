@@ -0,0 +1,115 @@
+package main.java.bench;
+
+import main.java.timer.Timeout;
+import main.java.timer.TimerWheel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for scheduling and cancelling game timers: the server's {@link TimerWheel}
+ * against the ScheduledThreadPoolExecutor it replaced. Scores are per timeout.
+ *
+ * Each invocation schedules a batch of timeouts of up to a minute and cancels them again,
+ * the way idle timeouts are pushed back on every message. Both timers already hold the
+ * long-running timers of many rooms, which is what makes an executor's heap deep.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TimerBenchmarks {
+    private static final int BATCH = 1024;           // Timeouts scheduled and cancelled per invocation
+    private static final int BACKGROUND_TIMERS = 20_000;
+    private static final Runnable TASK = () -> { };
+
+    private static long delayMillis(int i) {
+        return 1000 + (i * 7919L) % 59_000;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Wheel {
+        TimerWheel wheel;
+
+        @Setup
+        public void setUp() {
+            wheel = new TimerWheel("bench-timers", 10, TimeUnit.MILLISECONDS, 512, 1, null);
+            for (int i = 0; i < BACKGROUND_TIMERS; i++) {
+                wheel.schedule(TASK, 10, TimeUnit.MINUTES);
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            wheel.stop();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Executor {
+        ScheduledThreadPoolExecutor executor;
+
+        @Setup
+        public void setUp() {
+            executor = new ScheduledThreadPoolExecutor(1);
+            executor.setRemoveOnCancelPolicy(true); // Otherwise cancelled tasks pile up in the heap
+            for (int i = 0; i < BACKGROUND_TIMERS; i++) {
+                executor.schedule(TASK, 10, TimeUnit.MINUTES);
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * One thread's batch of pending timeouts.
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+        final Timeout[] timeouts = new Timeout[BATCH];
+        final ScheduledFuture<?>[] futures = new ScheduledFuture<?>[BATCH];
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH)
+    public void wheelScheduleCancel(Wheel wheel, Batch batch) {
+        for (int i = 0; i < BATCH; i++) {
+            batch.timeouts[i] = wheel.wheel.schedule(TASK, delayMillis(i), TimeUnit.MILLISECONDS);
+        }
+        for (Timeout timeout : batch.timeouts) {
+            timeout.cancel();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH)
+    public void executorScheduleCancel(Executor executor, Batch batch) {
+        for (int i = 0; i < BATCH; i++) {
+            batch.futures[i] = executor.executor.schedule(TASK, delayMillis(i), TimeUnit.MILLISECONDS);
+        }
+        for (ScheduledFuture<?> future : batch.futures) {
+            future.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package main.java.bot;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Breadth-first search over the board, used by the strategies to find distances and
+ * shortest paths. Cells are indexed x * size + y.
+ */
+class BoardSearch {
+    final int size;
+    final int[] distance; // Steps from the nearest source, -1 if unreachable
+    private final int[] parent;
+    private final int[] queue;
+
+    BoardSearch(int size) {
+        this.size = size;
+        this.distance = new int[size * size];
+        this.parent = new int[size * size];
+        this.queue = new int[size * size];
+    }
+
+    /**
+     * Runs the search from one or more source cells.
+     *
+     * @param sources the cells to start from
+     * @param passable which cells may be stepped on (sources always may)
+     * @return this search, for chaining
+     */
+    BoardSearch run(int[] sources, IntPredicate passable) {
+        Arrays.fill(distance, -1);
+        int head = 0;
+        int tail = 0;
+        for (int source : sources) {
+            if (distance[source] < 0) {
+                distance[source] = 0;
+                parent[source] = -1;
+                queue[tail++] = source;
+            }
+        }
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell / size;
+            int y = cell % size;
+            for (int[] direction : BotClient.DIRECTIONS) {
+                int nx = x + direction[0];
+                int ny = y + direction[1];
+                if (nx < 0 || nx >= size || ny < 0 || ny >= size) continue;
+                int next = nx * size + ny;
+                if (distance[next] < 0 && passable.test(next)) {
+                    distance[next] = distance[cell] + 1;
+                    parent[next] = cell;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the first step on a shortest path from the source to a reached cell.
+     *
+     * @param target the reached cell
+     * @return the cell to move to as {x, y}, or null if the target is the source or unreachable
+     */
+    int[] firstStep(int target) {
+        if (distance[target] <= 0) return null;
+        int cell = target;
+        while (distance[cell] > 1) {
+            cell = parent[cell];
+        }
+        return new int[]{cell / size, cell % size};
+    }
+}
@@ -0,0 +1,273 @@
+package main.java.bot;
+
+import main.java.client.GameClient;
+import main.java.client.GameView;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A headless player. Speaks the regular client protocol through {@link GameClient},
+ * keeps its own model of the board from the server's messages, readies up as soon as
+ * it joins and, once the game starts, lets its {@link BotStrategy} pick a move at a
+ * fixed interval.
+ *
+ * Bots never block and never exit the process, so hundreds of them can share one JVM
+ * and one move scheduler.
+ */
+public class BotClient implements GameView {
+    static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final long MOVE_TIMEOUT_MS = 2000; // Give up waiting for a move reply after this
+
+    private final BotStrategy strategy;
+    private final ScheduledExecutorService scheduler;
+    private final int moveIntervalMs;
+
+    private GameClient client;
+    private ScheduledFuture<?> moveTask;
+
+    // Model of the board, guarded by this bot's lock
+    private String playerId;
+    private int x, y;
+    private int gridSize;                                    // Sent by the server with our player, 0 until then
+    private String[] owners = new String[0];                 // Owner of each cell, indexed x * gridSize + y
+    private final Map<String, int[]> positions = new HashMap<>(); // Other players' positions
+    private boolean moveInFlight = false;
+    private long moveSentAt;                                 // System.nanoTime() of the move in flight
+
+    private volatile boolean gameOver = false;
+    private volatile boolean disconnected = false;
+    private volatile String winnerId;
+    private final AtomicLong movesSent = new AtomicLong();
+    private final AtomicLong movesConfirmed = new AtomicLong();
+    private final AtomicLong movesRejected = new AtomicLong();
+
+    /**
+     * Creates a bot. It does nothing until {@link #connect} is called.
+     *
+     * @param strategy how the bot picks its moves
+     * @param scheduler the scheduler that runs the bot's moves, usually shared by many bots
+     * @param moveIntervalMs the time between two move attempts
+     */
+    public BotClient(BotStrategy strategy, ScheduledExecutorService scheduler, int moveIntervalMs) {
+        this.strategy = strategy;
+        this.scheduler = scheduler;
+        this.moveIntervalMs = moveIntervalMs;
+    }
+
+    /**
+     * Connects the bot to a server.
+     *
+     * @param host the server host
+     * @param port the server port
+     * @param name the name the server keeps the bot's statistics under, or null
+     * @throws IOException if the server cannot be reached
+     */
+    public void connect(String host, int port, String name) throws IOException {
+        GameClient.open(host, port, this, name);
+    }
+
+    /**
+     * Stops moving and closes the connection.
+     */
+    public void stop() {
+        if (moveTask != null) moveTask.cancel(false);
+        if (client != null) client.close();
+    }
+
+    // ----- State for strategies -----
+
+    public synchronized String getPlayerId() { return playerId; }
+    public synchronized int getX() { return x; }
+    public synchronized int getY() { return y; }
+    public synchronized int getGridSize() { return gridSize; }
+
+    /**
+     * @return the ID of the player owning a cell (indexed x * gridSize + y), or null
+     */
+    public synchronized String getOwner(int cell) {
+        return owners[cell];
+    }
+
+    /**
+     * Whether the server would let this bot step on a cell: inside the grid, not claimed
+     * by someone else and not occupied by another player.
+     */
+    public synchronized boolean canEnter(int x, int y) {
+        return x >= 0 && x < gridSize && y >= 0 && y < gridSize && canEnter(x * gridSize + y);
+    }
+
+    /**
+     * Same as {@link #canEnter(int, int)} for a cell index.
+     */
+    public synchronized boolean canEnter(int cell) {
+        String owner = owners[cell];
+        if (owner != null && !owner.equals(playerId)) return false;
+        for (int[] position : positions.values()) {
+            if (position[0] * gridSize + position[1] == cell) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the cells (x * gridSize + y) the other players stand on
+     */
+    public synchronized int[] getOpponentCells() {
+        return positions.values().stream().mapToInt(p -> p[0] * gridSize + p[1]).toArray();
+    }
+
+    // ----- Results -----
+
+    public boolean isGameOver() { return gameOver; }
+    public boolean isDisconnected() { return disconnected; }
+    public String getWinnerId() { return winnerId; }
+    public long getMovesSent() { return movesSent.get(); }
+    public long getMovesConfirmed() { return movesConfirmed.get(); }
+    public long getMovesRejected() { return movesRejected.get(); }
+
+    // ----- Moving -----
+
+    /**
+     * Runs on the scheduler: sends the strategy's next move unless the previous one is
+     * still waiting for the server's answer.
+     */
+    private synchronized void tick() {
+        if (gameOver || disconnected) {
+            moveTask.cancel(false);
+            return;
+        }
+        if (moveInFlight && System.nanoTime() - moveSentAt < TimeUnit.MILLISECONDS.toNanos(MOVE_TIMEOUT_MS)) {
+            return;
+        }
+
+        int[] target;
+        try {
+            target = strategy.nextMove(this);
+        } catch (RuntimeException e) {
+            System.err.println("Bot " + playerId + " strategy failed:");
+            e.printStackTrace();
+            return;
+        }
+        if (target == null) return;
+
+        moveInFlight = true;
+        moveSentAt = System.nanoTime();
+        movesSent.incrementAndGet();
+        client.sendMove(target[0], target[1]);
+    }
+
+    /**
+     * Called once the server answered the move in flight.
+     *
+     * @param nanos how long the answer took
+     */
+    protected void onMoveAnswered(long nanos) {
+    }
+
+    private void answerMove() {
+        if (moveInFlight) {
+            moveInFlight = false;
+            onMoveAnswered(System.nanoTime() - moveSentAt);
+        }
+    }
+
+    // ----- GameView -----
+
+    @Override
+    public void setClient(GameClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public synchronized void onPlayerAssigned(String playerId, int x, int y, String color, int gridSize) {
+        this.playerId = playerId;
+        this.x = x;
+        this.y = y;
+        if (gridSize != this.gridSize) {
+            this.gridSize = gridSize;
+            this.owners = new String[gridSize * gridSize];
+        }
+        owners[x * gridSize + y] = playerId;
+        client.sendMessage("READY");
+    }
+
+    @Override
+    public void updateLobby(String message) {
+    }
+
+    @Override
+    public void updateCountdown(int seconds) {
+    }
+
+    @Override
+    public void abortCountdown() {
+    }
+
+    @Override
+    public synchronized void onGameStarted() {
+        if (moveTask == null) {
+            moveTask = scheduler.scheduleAtFixedRate(this::tick, moveIntervalMs, moveIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void addPlayer(String playerId, int x, int y, String color) {
+        updateMaze(playerId, x, y, color);
+    }
+
+    @Override
+    public synchronized void updateMaze(String movedId, int newX, int newY, String color) {
+        if (newX < 0 || newX >= gridSize || newY < 0 || newY >= gridSize) return;
+
+        owners[newX * gridSize + newY] = movedId;
+        if (movedId.equals(playerId)) {
+            x = newX;
+            y = newY;
+        } else {
+            int[] position = positions.get(movedId);
+            if (position == null) {
+                positions.put(movedId, new int[]{newX, newY});
+            } else {
+                position[0] = newX;
+                position[1] = newY;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void removePlayer(String playerId) {
+        positions.remove(playerId);
+    }
+
+    @Override
+    public synchronized void onMoveConfirmed(String playerId, int newX, int newY) {
+        if (!playerId.equals(this.playerId)) return;
+        x = newX;
+        y = newY;
+        owners[newX * gridSize + newY] = playerId;
+        movesConfirmed.incrementAndGet();
+        answerMove();
+    }
+
+    @Override
+    public synchronized void onMoveRejected() {
+        movesRejected.incrementAndGet();
+        answerMove();
+    }
+
+    @Override
+    public void showGameOver(String winnerId, int winnerScore, String allScores) {
+        this.winnerId = winnerId;
+        gameOver = true;
+    }
+
+    @Override
+    public void onDisconnected(String reason) {
+        disconnected = true;
+    }
+}
@@ -0,0 +1,61 @@
+package main.java.bot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Runs a group of bots from one process until their games are over.
+ *
+ * Usage: BotRunner [HOST] [PORT] [COUNT] [STRATEGY] [MOVE_INTERVAL_MS]
+ *   defaults: localhost 12345 3 greedy 150; STRATEGY is random, greedy or cutter
+ */
+public class BotRunner {
+    public static void main(String[] args) throws InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 12345;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        String strategy = args.length > 3 ? args[3] : "greedy";
+        int moveIntervalMs = args.length > 4 ? Integer.parseInt(args[4]) : 150;
+
+        // One small scheduler drives the moves of every bot
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+        List<BotClient> bots = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BotClient bot = new BotClient(BotStrategy.byName(strategy), scheduler, moveIntervalMs);
+            try {
+                // Named after the strategy, so the statistics compare strategies across runs
+                bot.connect(host, port, strategy + "-" + (i + 1));
+                bots.add(bot);
+            } catch (IOException e) {
+                System.err.println("ERROR: Bot " + (i + 1) + " could not connect: " + e.getMessage());
+            }
+        }
+        System.out.println("Started " + bots.size() + " " + strategy + " bots against " + host + ":" + port);
+
+        // Wait until every bot's game is over or its connection is gone
+        while (bots.stream().anyMatch(bot -> !bot.isGameOver() && !bot.isDisconnected())) {
+            Thread.sleep(500);
+        }
+
+        Map<String, Integer> wins = new TreeMap<>();
+        long sent = 0, confirmed = 0, rejected = 0;
+        for (BotClient bot : bots) {
+            if (bot.getWinnerId() != null && bot.getWinnerId().equals(bot.getPlayerId())) {
+                wins.merge(bot.getPlayerId(), 1, Integer::sum);
+            }
+            sent += bot.getMovesSent();
+            confirmed += bot.getMovesConfirmed();
+            rejected += bot.getMovesRejected();
+            bot.stop();
+        }
+        System.out.printf("Moves sent %d, confirmed %d, rejected %d; winners %s%n", sent, confirmed, rejected, wins.keySet());
+        scheduler.shutdown();
+    }
+}
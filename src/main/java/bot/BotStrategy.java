@@ -0,0 +1,34 @@
+package main.java.bot;
+
+/**
+ * Decides where a bot moves next.
+ *
+ * Strategies are called from the bot's move scheduler with a consistent view of the
+ * board; they must not block.
+ */
+public interface BotStrategy {
+
+    /**
+     * Picks the next cell to move to.
+     *
+     * @param bot the bot, giving access to its position and its model of the board
+     * @return the target cell as {x, y}, or null to stay in place this turn
+     */
+    int[] nextMove(BotClient bot);
+
+    /**
+     * Creates a strategy by name.
+     *
+     * @param name "random", "greedy" or "cutter"
+     * @return the strategy
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static BotStrategy byName(String name) {
+        return switch (name.toLowerCase()) {
+            case "random" -> new RandomWalkStrategy();
+            case "greedy" -> new GreedyStrategy();
+            case "cutter" -> new TerritoryCuttingStrategy();
+            default -> throw new IllegalArgumentException("Unknown bot strategy: " + name);
+        };
+    }
+}
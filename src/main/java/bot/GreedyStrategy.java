@@ -0,0 +1,26 @@
+package main.java.bot;
+
+/**
+ * Heads for the nearest unclaimed cell along a path the bot can walk, and falls back to
+ * a random walk once nothing unclaimed is reachable.
+ */
+public class GreedyStrategy implements BotStrategy {
+    private final RandomWalkStrategy fallback = new RandomWalkStrategy();
+
+    @Override
+    public int[] nextMove(BotClient bot) {
+        int size = bot.getGridSize();
+        BoardSearch search = new BoardSearch(size)
+                .run(new int[]{bot.getX() * size + bot.getY()}, bot::canEnter);
+
+        int best = -1;
+        for (int cell = 0; cell < size * size; cell++) {
+            int distance = search.distance[cell];
+            if (distance > 0 && bot.getOwner(cell) == null
+                    && (best < 0 || distance < search.distance[best])) {
+                best = cell;
+            }
+        }
+        return best >= 0 ? search.firstStep(best) : fallback.nextMove(bot);
+    }
+}
@@ -0,0 +1,23 @@
+package main.java.bot;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Moves to a random neighbouring cell the bot is allowed to enter.
+ */
+public class RandomWalkStrategy implements BotStrategy {
+
+    @Override
+    public int[] nextMove(BotClient bot) {
+        int[][] options = new int[4][];
+        int count = 0;
+        for (int[] direction : BotClient.DIRECTIONS) {
+            int x = bot.getX() + direction[0];
+            int y = bot.getY() + direction[1];
+            if (bot.canEnter(x, y)) {
+                options[count++] = new int[]{x, y};
+            }
+        }
+        return count == 0 ? null : options[ThreadLocalRandom.current().nextInt(count)];
+    }
+}
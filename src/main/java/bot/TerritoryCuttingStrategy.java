@@ -0,0 +1,44 @@
+package main.java.bot;
+
+/**
+ * Claims the unclaimed cells that opponents are about to reach, cutting them off from
+ * open ground instead of filling the bot's own corner first.
+ *
+ * Among the unclaimed cells the bot can reach strictly before any opponent, it heads for
+ * the one closest to an opponent (ties go to the one closest to the bot). When no cell
+ * is contested it plays like {@link GreedyStrategy}.
+ */
+public class TerritoryCuttingStrategy implements BotStrategy {
+    private final GreedyStrategy fallback = new GreedyStrategy();
+
+    @Override
+    public int[] nextMove(BotClient bot) {
+        int size = bot.getGridSize();
+        int[] opponents = bot.getOpponentCells();
+        if (opponents.length == 0) {
+            return fallback.nextMove(bot);
+        }
+
+        BoardSearch mine = new BoardSearch(size)
+                .run(new int[]{bot.getX() * size + bot.getY()}, bot::canEnter);
+        // Opponents can walk anywhere except the bot's own cells
+        String self = bot.getPlayerId();
+        BoardSearch theirs = new BoardSearch(size)
+                .run(opponents, cell -> !self.equals(bot.getOwner(cell)));
+
+        int best = -1;
+        for (int cell = 0; cell < size * size; cell++) {
+            int myDistance = mine.distance[cell];
+            int theirDistance = theirs.distance[cell];
+            if (myDistance <= 0 || theirDistance < 0 || myDistance >= theirDistance
+                    || bot.getOwner(cell) != null) {
+                continue; // Not reachable first, or not worth taking
+            }
+            if (best < 0 || theirDistance < theirs.distance[best]
+                    || (theirDistance == theirs.distance[best] && myDistance < mine.distance[best])) {
+                best = cell;
+            }
+        }
+        return best >= 0 ? mine.firstStep(best) : fallback.nextMove(bot);
+    }
+}
@@ -0,0 +1,107 @@
+package main.java.client;
+
+import javax.swing.*;
+import java.awt.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Central clock that drives every animation of the client from one render thread.
+ *
+ * While at least one animation is running, the render thread steps all of them once per
+ * frame on the Event Dispatch Thread, flushes the graphics pipeline and waits for the
+ * next frame deadline. Frames are paced against fixed deadlines rather than a fixed
+ * delay, so a slow frame is caught up instead of pushing every later frame back. When
+ * the last animation finishes, the thread parks until a new one is started, so an idle
+ * client does no work at all.
+ */
+public class AnimationClock {
+    private static final int FRAMES_PER_SECOND = 60;
+    private static final long FRAME_NANOS = 1_000_000_000L / FRAMES_PER_SECOND;
+
+    /**
+     * A running animation. Called on the Event Dispatch Thread once per frame.
+     */
+    public interface Animation {
+        /**
+         * Advances the animation to the given time.
+         *
+         * @param nowNanos the frame time, from System.nanoTime()
+         * @return true while the animation is still running, false once it is done
+         */
+        boolean step(long nowNanos);
+    }
+
+    private final List<Animation> animations = new ArrayList<>(); // Only touched on the EDT
+    private final Thread renderThread;
+    private volatile boolean running = false;
+
+    public AnimationClock() {
+        renderThread = new Thread(this::renderLoop, "animation-clock");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    /**
+     * Starts an animation on the next frame, waking the render thread if it is parked.
+     * Must be called on the Event Dispatch Thread.
+     *
+     * @param animation the animation to run until it reports it is done
+     */
+    public void start(Animation animation) {
+        animations.add(animation);
+        if (!running) {
+            running = true;
+            LockSupport.unpark(renderThread);
+        }
+    }
+
+    private void renderLoop() {
+        long nextFrame = System.nanoTime();
+        while (true) {
+            while (!running) {
+                LockSupport.park(this); // Idle: nothing to animate
+                nextFrame = System.nanoTime();
+            }
+
+            try {
+                SwingUtilities.invokeAndWait(this::stepAll);
+            } catch (InterruptedException e) {
+                return;
+            } catch (InvocationTargetException e) {
+                System.err.println("Error in animation:");
+                e.getCause().printStackTrace();
+            }
+            Toolkit.getDefaultToolkit().sync(); // Push the frame out to the display
+
+            // Wait for the next frame deadline; skip frames that were already missed
+            nextFrame += FRAME_NANOS;
+            long now = System.nanoTime();
+            if (nextFrame < now) {
+                nextFrame = now;
+            }
+            while (now < nextFrame) {
+                LockSupport.parkNanos(this, nextFrame - now);
+                now = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Steps every running animation once, dropping the finished ones. Runs on the EDT.
+     */
+    private void stepAll() {
+        long now = System.nanoTime();
+        // Step a copy, so animations can start other animations
+        for (Animation animation : animations.toArray(new Animation[0])) {
+            if (!animation.step(now)) {
+                animations.remove(animation);
+            }
+        }
+        if (animations.isEmpty()) {
+            running = false;
+        }
+    }
+}
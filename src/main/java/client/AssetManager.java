@@ -0,0 +1,362 @@
+package main.java.client;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Loads and caches every image and font the client uses.
+ *
+ * {@link #preload()} decodes all assets in parallel on background threads, so by the
+ * time a screen needs an image it is already in memory. Screens that must not wait even
+ * for that, like the first frame of the client, fill in their images and fonts with
+ * {@link #withIcon} and {@link #withFont} once they are loaded. Images are converted to the
+ * screen's native pixel format once, and anything drawn at a different size is scaled
+ * once and cached, so painting never decodes, converts or rescales.
+ *
+ * The player sprites are packed into a single atlas image; each player's sprite is a
+ * view of one slot in it. Players beyond the drawn ones get a generated sprite: a drawn
+ * sprite recolored to the player's color.
+ *
+ * Assets are looked up on the classpath first and then in the resources directory
+ * relative to where the client is started from.
+ */
+public class AssetManager {
+    public static final String LOBBY_BACKGROUND = "images/lobby_background.png";
+    public static final String LOGO = "images/onigiri_wars_logo.png";
+    public static final String HOW_TO_PLAY = "images/how_to_play_text.png";
+    public static final String CONTROLS = "images/controls.png";
+    public static final String PLAYERS_CONTAINER = "images/players_container.png";
+    public static final String GAME_OVER = "images/game_over.png";
+    public static final String FONT_INKY_THIN_PIXELS = "fonts/Inky Thin Pixels.ttf";
+
+    private static final String[] IMAGES = {
+            LOBBY_BACKGROUND, LOGO, HOW_TO_PLAY, CONTROLS, PLAYERS_CONTAINER, GAME_OVER,
+            "images/p1_win.png", "images/p2_win.png", "images/p3_win.png", "images/p4_win.png"
+    };
+    private static final String[] SPRITE_PLAYERS = {"P1", "P2", "P3", "P4"}; // Players with drawn sprites
+    private static final float MIN_TINTED_SATURATION = 0.15f; // Grays (outline, rice) keep their color
+    private static final String[] SEARCH_DIRECTORIES = {
+            "../../resources/", "../resources/", "src/main/resources/"}; // Started from client/, src/main/java/ or the project root
+
+    private static final AssetManager instance = new AssetManager();
+
+    private final ExecutorService loader = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "asset-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final Map<String, CompletableFuture<BufferedImage>> images = new ConcurrentHashMap<>();
+    private final Map<String, BufferedImage> scaled = new ConcurrentHashMap<>(); // "path@WxH" -> image
+    private final Map<String, ImageIcon> icons = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Font>> fonts = new ConcurrentHashMap<>();
+    private final Map<Integer, BufferedImage> spriteAtlases = new ConcurrentHashMap<>(); // Sprite size -> atlas
+    private final Map<String, BufferedImage> generatedSprites = new ConcurrentHashMap<>(); // "id@size" -> sprite
+    private volatile Future<BufferedImage> spriteAtlas;
+
+    private AssetManager() {
+    }
+
+    /**
+     * Returns the asset manager shared by the whole client.
+     */
+    public static AssetManager get() {
+        return instance;
+    }
+
+    /**
+     * Starts decoding every image, the sprite atlas and the fonts in the background.
+     * Returns immediately; later lookups wait only for assets that are not ready yet.
+     */
+    public void preload() {
+        for (String path : IMAGES) {
+            imageFuture(path);
+        }
+        atlasFuture();
+        fontFuture(FONT_INKY_THIN_PIXELS);
+    }
+
+    /**
+     * Returns an image at its natural size, decoding it now if it was not preloaded.
+     *
+     * @param path the asset path, e.g. {@link #LOGO}
+     * @return the image, or null if it cannot be loaded
+     */
+    public BufferedImage getImage(String path) {
+        return await(imageFuture(path), path);
+    }
+
+    /**
+     * Returns an image scaled to the given size. The scaled copy is made once and cached.
+     *
+     * @param path the asset path
+     * @param width the width to scale to
+     * @param height the height to scale to
+     * @return the scaled image, or null if it cannot be loaded
+     */
+    public BufferedImage getImage(String path, int width, int height) {
+        BufferedImage image = getImage(path);
+        if (image == null || (image.getWidth() == width && image.getHeight() == height)) {
+            return image;
+        }
+        return scaled.computeIfAbsent(path + "@" + width + "x" + height, key -> scale(image, width, height));
+    }
+
+    /**
+     * Returns a cached icon of an image at its natural size, for use in labels.
+     *
+     * @param path the asset path
+     * @return the icon; an empty icon if the image cannot be loaded
+     */
+    public ImageIcon getIcon(String path) {
+        return icons.computeIfAbsent(path, key -> {
+            BufferedImage image = getImage(key);
+            return image != null ? new ImageIcon(image) : new ImageIcon();
+        });
+    }
+
+    /**
+     * Returns the image shown when a player wins.
+     *
+     * @param playerId the winner's ID
+     * @return the icon; an empty icon if there is no image for the player
+     */
+    public ImageIcon getWinnerIcon(String playerId) {
+        return getIcon("images/" + playerId.toLowerCase() + "_win.png");
+    }
+
+    /**
+     * Returns a player's sprite, scaled so it fits in a square of the given size. Sprites
+     * are never scaled up beyond their natural size. Players without a drawn sprite get
+     * one generated in their color, made once per size and cached.
+     *
+     * @param playerId the player ID, e.g. "P7"
+     * @param color the player's color as "#rrggbb", used for generated sprites
+     * @param maxSize the largest width and height the sprite may have
+     * @return the sprite, or null if the sprites cannot be loaded
+     */
+    public BufferedImage getSprite(String playerId, String color, int maxSize) {
+        BufferedImage atlas = await(atlasFuture(), "sprite atlas");
+        if (atlas == null) {
+            return null;
+        }
+        int size = Math.max(1, Math.min(maxSize, atlas.getHeight()));
+        BufferedImage sized = spriteAtlases.computeIfAbsent(size,
+                key -> scale(atlas, key * SPRITE_PLAYERS.length, key));
+
+        for (int i = 0; i < SPRITE_PLAYERS.length; i++) {
+            if (SPRITE_PLAYERS[i].equals(playerId)) {
+                return sized.getSubimage(i * size, 0, size, size);
+            }
+        }
+        // Base each generated sprite on a different drawn one, so neighbours in the list differ in shape too
+        int base = Math.floorMod(playerId.hashCode(), SPRITE_PLAYERS.length);
+        return generatedSprites.computeIfAbsent(playerId + "@" + size,
+                key -> tint(sized.getSubimage(base * size, 0, size, size), color));
+    }
+
+    /**
+     * Returns a font at the given size.
+     *
+     * @param path the font asset path, e.g. {@link #FONT_INKY_THIN_PIXELS}
+     * @param size the point size
+     * @return the font, or the default dialog font if it cannot be loaded
+     */
+    public Font getFont(String path, float size) {
+        Font font = await(fontFuture(path), path);
+        return font != null ? font.deriveFont(size) : new Font(Font.DIALOG, Font.PLAIN, (int) size);
+    }
+
+    /**
+     * Gives an action on the Event Dispatch Thread the icon of an image once the image is
+     * loaded, without waiting for it. An image that cannot be loaded gives an empty icon.
+     *
+     * @param path the asset path
+     * @param action receives the icon, e.g. a label's setIcon
+     */
+    public void withIcon(String path, Consumer<ImageIcon> action) {
+        imageFuture(path).whenComplete((image, error) -> SwingUtilities.invokeLater(() -> action.accept(getIcon(path))));
+    }
+
+    /**
+     * Gives an action on the Event Dispatch Thread a font once it is loaded, without
+     * waiting for it. A font that cannot be loaded gives the default dialog font.
+     *
+     * @param path the font asset path
+     * @param size the point size
+     * @param action receives the font
+     */
+    public void withFont(String path, float size, Consumer<Font> action) {
+        fontFuture(path).whenComplete((font, error) -> SwingUtilities.invokeLater(() -> action.accept(getFont(path, size))));
+    }
+
+    private CompletableFuture<BufferedImage> imageFuture(String path) {
+        return images.computeIfAbsent(path, key -> CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = open(key)) {
+                return toCompatible(ImageIO.read(in));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, loader));
+    }
+
+    private CompletableFuture<Font> fontFuture(String path) {
+        return fonts.computeIfAbsent(path, key -> CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = open(key)) {
+                Font font = Font.createFont(Font.TRUETYPE_FONT, in);
+                GraphicsEnvironment.getLocalGraphicsEnvironment().registerFont(font);
+                return font;
+            } catch (IOException | FontFormatException e) {
+                throw new UncheckedIOException(e instanceof IOException io ? io : new IOException(e));
+            }
+        }, loader));
+    }
+
+    /**
+     * Decodes the player sprites in parallel and packs them side by side into one image.
+     */
+    private synchronized Future<BufferedImage> atlasFuture() {
+        if (spriteAtlas == null) {
+            List<Future<BufferedImage>> parts = new ArrayList<>(SPRITE_PLAYERS.length);
+            for (String player : SPRITE_PLAYERS) {
+                parts.add(imageFuture("images/sprites/" + player.toLowerCase() + ".png"));
+            }
+            spriteAtlas = loader.submit(() -> {
+                BufferedImage[] sprites = new BufferedImage[parts.size()];
+                int size = 0;
+                for (int i = 0; i < sprites.length; i++) {
+                    sprites[i] = parts.get(i).get();
+                    size = Math.max(size, Math.max(sprites[i].getWidth(), sprites[i].getHeight()));
+                }
+                BufferedImage atlas = createCompatible(size * sprites.length, size);
+                Graphics2D g = atlas.createGraphics();
+                for (int i = 0; i < sprites.length; i++) {
+                    // Center each sprite in its slot
+                    g.drawImage(sprites[i], i * size + (size - sprites[i].getWidth()) / 2,
+                            (size - sprites[i].getHeight()) / 2, null);
+                }
+                g.dispose();
+                return atlas;
+            });
+        }
+        return spriteAtlas;
+    }
+
+    /**
+     * Waits for an asset to finish loading.
+     *
+     * @return the asset, or null if it could not be loaded
+     */
+    private static <T> T await(Future<T> future, String name) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException io ? io.getCause() : e.getCause();
+            System.err.println("Error loading asset " + name + ": " + cause);
+        }
+        return null;
+    }
+
+    /**
+     * Opens an asset from the classpath, or from one of the resource directories.
+     */
+    private static InputStream open(String path) throws IOException {
+        URL url = AssetManager.class.getResource("/" + path);
+        if (url != null) {
+            return url.openStream();
+        }
+        for (String directory : SEARCH_DIRECTORIES) {
+            File file = new File(directory + path);
+            if (file.isFile()) {
+                return Files.newInputStream(file.toPath());
+            }
+        }
+        throw new IOException("Asset not found: " + path);
+    }
+
+    /**
+     * Creates an empty translucent image in the screen's native pixel format.
+     */
+    private static BufferedImage createCompatible(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    /**
+     * Copies an image into the screen's native pixel format, so drawing it needs no
+     * conversion.
+     */
+    private static BufferedImage toCompatible(BufferedImage image) throws IOException {
+        if (image == null) {
+            throw new IOException("Unsupported image format");
+        }
+        BufferedImage compatible = createCompatible(image.getWidth(), image.getHeight());
+        Graphics2D g = compatible.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return compatible;
+    }
+
+    /**
+     * Copies a sprite with every colored pixel turned to the hue and saturation of the
+     * given color. Brightness and transparency are kept, so shading and outlines stay.
+     */
+    private static BufferedImage tint(BufferedImage sprite, String color) {
+        float[] target;
+        try {
+            Color parsed = Color.decode(color);
+            target = Color.RGBtoHSB(parsed.getRed(), parsed.getGreen(), parsed.getBlue(), null);
+        } catch (NumberFormatException e) {
+            target = new float[]{0f, 0f, 0.6f}; // Unknown color: gray
+        }
+        int width = sprite.getWidth();
+        int height = sprite.getHeight();
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        float[] hsb = new float[3];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int argb = sprite.getRGB(x, y);
+                Color.RGBtoHSB((argb >> 16) & 0xff, (argb >> 8) & 0xff, argb & 0xff, hsb);
+                if (hsb[1] >= MIN_TINTED_SATURATION) {
+                    // Keep at least the target's saturation, so pastel colors still show
+                    int rgb = Color.HSBtoRGB(target[0], Math.max(target[1], hsb[1] * 0.8f), hsb[2]);
+                    argb = (argb & 0xff000000) | (rgb & 0xffffff);
+                }
+                result.setRGB(x, y, argb);
+            }
+        }
+        try {
+            return toCompatible(result);
+        } catch (IOException e) {
+            return result; // Cannot happen for an image we just made
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage result = createCompatible(width, height);
+        Graphics2D g = result.createGraphics();
+        // Pixel art: keep hard edges instead of blurring
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return result;
+    }
+}
@@ -1,80 +1,255 @@
 package main.java.client;
 
-import javax.swing.*;
+import main.java.protocol.AsciiInterner;
+import main.java.protocol.ClientCommand;
+import main.java.protocol.MessageReader;
+import main.java.protocol.MessageWriter;
+
+import javax.swing.SwingUtilities;
 import java.io.*;
 import java.net.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The GameClient class handles the network communication between the client and server
  * for the multiplayer maze game. It manages connection establishment, message sending,
- * and server message processing.
+ * and server message processing. Decoded events are passed to a {@link GameView}: the
+ * game window, or a headless client such as a bot.
  */
 public class GameClient {
+    private static final int RECONNECT_ATTEMPTS = 30;
+    private static final int RECONNECT_DELAY_MS = 1000;
+    private static final int BUSY_ATTEMPTS = 5; // Times we come back after the server turned us away
+    private static final int DEFAULT_GRID_SIZE = 10; // Servers that do not send the grid size use this
+    // The server pings every few seconds; after this long without any message it is presumed
+    // gone. Set with -Donigiri.serverTimeoutMs=N, 0 waits forever.
+    private static final int SERVER_TIMEOUT_MS = Integer.getInteger("onigiri.serverTimeoutMs", 20000);
+    // Logs every server message; enable with -Donigiri.debug=true
+    private static final boolean DEBUG = Boolean.getBoolean("onigiri.debug");
+    // Command names, player IDs and colors, shared by every client in this process
+    private static final AsciiInterner interner = new AsciiInterner(1024);
+
     // Network components
+    private final String serverAddress;
+    private final int port;
     private Socket socket;
-    private PrintWriter out;
-    private BufferedReader in;
+    private OutputStream out;
+    private MessageReader in;
+    private final MessageWriter writer = new MessageWriter(); // Encodes outgoing commands; guarded by itself
 
-    // GUI reference and player state
-    private GameGUI gui;
+    // View reference and player state
+    private GameView view;
     private String playerId;
+    private String room; // The server room of our player, or null if the server did not say
+    private final String name; // Who is playing, sent with NAME; null to play unnamed
+    private volatile boolean closed = false;
+    private int busyRetrySeconds; // When the server turned us away, how long it asked us to wait
+    private int busyAttempts;
 
-    /**
-     * Sets the GUI reference and marks it as ready for updates.
-     * @param gui The GameGUI instance to associate with this client
-     */
-    public void setGUI(GameGUI gui) {
-        this.gui = gui;
-        System.out.println("GUI reference set");
-    }
+    // The lobby as the server last described it; only touched by the listener thread
+    private final Map<String, String> lobby = new LinkedHashMap<>(); // Player ID -> READY or NOT READY
+    private long lobbyVersion = -1; // -1 until the server sent the whole lobby
+    private boolean lobbySyncRequested = false;
+
+    // Round trips of our moves, split into server and network time
+    private final LatencyTracker latency = new LatencyTracker();
 
     /**
-     * Main entry point for the client application.
+     * Main entry point for the client application. Nothing waits for anything else at
+     * startup: images and fonts decode in the background, the window shows its first frame
+     * on the Event Dispatch Thread, and this thread connects to the server meanwhile.
      * @param args Command line arguments (not used)
      */
     public static void main(String[] args) {
-        // Initialize GUI first with null client (temporarily)
-        GameGUI gui = new GameGUI(null);
+        AssetManager.get().preload();
+        CompletableFuture<GameGUI> window = new CompletableFuture<>();
+        SwingUtilities.invokeLater(() -> {
+            try {
+                window.complete(new GameGUI(null));
+            } catch (RuntimeException e) {
+                window.completeExceptionally(e);
+            }
+        });
 
-        // Create client instance with GUI reference
-        GameClient client = new GameClient("localhost", 12345, gui);
+        GameClient client = new GameClient("localhost", 12345, null, defaultName());
+        try {
+            client.connect();
+            client.identify();
+        } catch (ConnectException e) {
+            System.err.println("ERROR: Unable to connect to the server at localhost:12345");
+            System.err.println("Please make sure the server is running and try again.");
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("ERROR: I/O exception occurred while connecting to the server.");
+            e.printStackTrace();
+            System.exit(1);
+        }
 
-        // Complete bidirectional connection
+        // Server messages wait in the socket until the window is there to show them
+        GameGUI gui = window.join();
+        client.view = gui;
         gui.setClient(client);
-        client.setGUI(gui);
-
+        client.listen();
         System.out.println("Initialization complete");
     }
 
+    private GameClient(String serverAddress, int port, GameView view, String name) {
+        this.view = view;
+        this.serverAddress = serverAddress;
+        this.port = port;
+        this.name = name;
+    }
+
     /**
-     * Constructs a new GameClient and establishes server connection.
+     * The name the player's statistics are kept under: -Donigiri.name=N, or the login name,
+     * with anything the server does not accept replaced by '_'.
+     * @return the name, or null if there is none
+     */
+    private static String defaultName() {
+        String name = System.getProperty("onigiri.name", System.getProperty("user.name", ""));
+        name = name.replaceAll("[^A-Za-z0-9_-]", "_");
+        name = name.substring(0, Math.min(name.length(), ClientCommand.MAX_NAME_LENGTH));
+        return name.isEmpty() ? null : name;
+    }
+
+    /**
+     * Connects a new GameClient to the server and starts listening for its messages.
      * @param serverAddress The server hostname/IP address
      * @param port The server port number
-     * @param gui The associated GameGUI instance
+     * @param view The view to pass server events to
+     * @return the connected client
+     * @throws IOException if the server cannot be reached
      */
-    public GameClient(String serverAddress, int port, GameGUI gui) {
-        this.gui = gui;
-        if (this.gui != null) {
-        }
+    public static GameClient open(String serverAddress, int port, GameView view) throws IOException {
+        return open(serverAddress, port, view, null);
+    }
+
+    /**
+     * Connects a new GameClient to the server under a name and starts listening for its messages.
+     * @param serverAddress The server hostname/IP address
+     * @param port The server port number
+     * @param view The view to pass server events to
+     * @param name The name to keep the player's statistics under, or null to play unnamed;
+     *             see {@link ClientCommand#isValidName}
+     * @return the connected client
+     * @throws IOException if the server cannot be reached
+     */
+    public static GameClient open(String serverAddress, int port, GameView view, String name) throws IOException {
+        GameClient client = new GameClient(serverAddress, port, view, name);
+        view.setClient(client);
+        client.start();
+        return client;
+    }
+
+    /**
+     * Connects and starts the message listener thread.
+     * @throws IOException if the server cannot be reached
+     */
+    private void start() throws IOException {
+        // Establish network connection
+        connect();
+        identify();
+        listen();
+    }
 
+    /**
+     * Starts the message listener thread. It is virtual, so thousands of headless clients
+     * can run in one process; like all virtual threads it does not keep the JVM alive.
+     */
+    private void listen() {
+        Thread.ofVirtual().name("client-listener").start(this::listenForMessages);
+    }
+
+    /**
+     * Closes the connection for good, without reconnecting or notifying the view.
+     */
+    public void close() {
+        closed = true;
         try {
-            // Establish network connection
-            socket = new Socket(serverAddress, port);
-            out = new PrintWriter(socket.getOutputStream(), true);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
 
-            // Start message listener thread
-            new Thread(this::listenForMessages).start();
+    /**
+     * Opens the socket and its reader and writer.
+     * @throws IOException if the server cannot be reached
+     */
+    private void connect() throws IOException {
+        socket = new Socket(serverAddress, port);
+        // Moves are small and written whole; send each one right away
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(SERVER_TIMEOUT_MS);
+        out = socket.getOutputStream();
+        in = new MessageReader(socket.getInputStream(), interner);
+        // A new connection starts a new lobby history
+        lobbyVersion = -1;
+        lobbySyncRequested = false;
+    }
 
-        } catch (ConnectException e) {
-            System.err.println("ERROR: Unable to connect to the server at " +
-                    serverAddress + ":" + port);
-            System.err.println("Please make sure the server is running and try again.");
-            System.exit(1);
+    /**
+     * Tries to reconnect to a restarted server and resume the current match.
+     * @return true if a new connection was established
+     */
+    private boolean reconnect() {
+        for (int attempt = 1; attempt <= RECONNECT_ATTEMPTS; attempt++) {
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS);
+                connect();
+                synchronized (writer) {
+                    writer.reset().append("RESUME").field(playerId);
+                    if (room != null) {
+                        writer.field(room);
+                    }
+                    writer.end().writeTo(out);
+                }
+                identify(); // RESUME must come first
+                System.out.println("Reconnected to the server, resuming as " + playerId);
+                return true;
+            } catch (IOException e) {
+                System.err.println("Reconnect attempt " + attempt + " failed.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Connects again after the server turned us away with SERVER_BUSY, waiting as long
+     * as it asked. Gives up after a few refusals, so a client does not queue up forever.
+     * @return true if a new connection was established
+     */
+    private boolean retryAdmission() {
+        int delaySeconds = busyRetrySeconds;
+        busyRetrySeconds = 0;
+        if (++busyAttempts > BUSY_ATTEMPTS) {
+            return false;
+        }
+        System.out.println("Server busy, trying again in " + delaySeconds + "s");
+        try {
+            Thread.sleep(delaySeconds * 1000L);
+            connect();
+            identify();
+            return true;
         } catch (IOException e) {
-            System.err.println("ERROR: I/O exception occurred while connecting to the server.");
-            e.printStackTrace();
-            System.exit(1);
+            System.err.println("Could not reconnect to the server.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Tells the server who is playing, if we have a name, so it keeps our statistics under it.
+     */
+    private void identify() {
+        if (name != null) {
+            sendMessage("NAME," + name);
         }
     }
 
@@ -83,7 +258,10 @@ public class GameClient {
      * @param message The message to send
      */
     public void sendMessage(String message) {
-        out.println(message);
+        synchronized (writer) {
+            writer.reset().append(message).end();
+            write();
+        }
     }
 
     /**
@@ -92,7 +270,33 @@ public class GameClient {
      * @param newY The target Y coordinate
      */
     public void sendMove(int newX, int newY) {
-        out.println("MOVE," + newX + "," + newY);
+        synchronized (writer) {
+            // The stamp comes back with the reply; the last round trip feeds the server's statistics
+            writer.reset().append("MOVE").field(newX).field(newY)
+                    .field(latency.stamp()).field(latency.getLastRoundTripMicros()).end();
+            write();
+        }
+    }
+
+    /**
+     * Writes the encoded command. A failed write is left to the listener thread, which
+     * notices the broken connection and reconnects or reports it.
+     */
+    private void write() {
+        try {
+            writer.writeTo(out);
+        } catch (IOException e) {
+            if (DEBUG) {
+                System.err.println("Could not send to the server: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the latency measurements of this client's moves
+     */
+    public LatencyTracker getLatency() {
+        return latency;
     }
 
     /**
@@ -100,88 +304,160 @@ public class GameClient {
      * Runs in a separate thread to avoid blocking the main application.
      */
     private void listenForMessages() {
-        String message;
-        try {
-            while ((message = in.readLine()) != null) {
-                System.out.println("Server: " + message);
-                processServerMessage(message);
+        while (true) {
+            String reason;
+            try {
+                while (in.next()) {
+                    if (DEBUG) {
+                        System.out.println("Server: " + in.line());
+                    }
+                    try {
+                        processServerMessage(in);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Malformed message from server: " + in.line());
+                    }
+                }
+                reason = "The server closed the connection.";
+            } catch (SocketTimeoutException e) {
+                reason = "The server stopped responding.";
+                try {
+                    socket.close(); // Half-open; do not leave it behind when reconnecting
+                } catch (IOException closeFailure) {
+                    // Already closed
+                }
+            } catch (SocketException e) {
+                reason = "Connection to the server was lost.";
+            } catch (IOException e) {
+                reason = "I/O exception occurred while reading from the server.";
+            }
+
+            if (closed) {
+                return;
+            }
+            // Turned away before we got a player: come back when the server asked us to
+            if (playerId == null && busyRetrySeconds > 0) {
+                if (retryAdmission()) {
+                    continue;
+                }
+                handleDisconnection("The server is busy. Please try again later.");
+                return;
+            }
+            // Once we have a player in a match, try to get back into it (e.g. after a server restart)
+            if (playerId == null || !reconnect()) {
+                handleDisconnection(reason);
+                return;
             }
-        } catch (SocketException e) {
-            handleDisconnection("Connection to the server was lost.");
-        } catch (IOException e) {
-            handleDisconnection("I/O exception occurred while reading from the server.");
         }
     }
 
     /**
-     * Processes a single message received from the server.
-     * @param message The raw message from the server
+     * Processes a single message received from the server. Fields are parsed straight
+     * from the reader's buffer; IDs and colors come from the shared interner.
+     * @param message The reader, positioned on the message
      */
-    private void processServerMessage(String message) {
-        String[] parts = message.split(",");
-        String command = parts[0];
+    private void processServerMessage(MessageReader message) {
+        String command = message.nextString();
 
         // Handle different server commands
         switch (command) {
             case "ASSIGN_PLAYER":
-                handlePlayerAssignment(parts);
+                handlePlayerAssignment(message);
                 break;
 
             case "LOBBY_STATE":
-                if (gui != null) {
-                    gui.updateLobby(message.substring("LOBBY_STATE,".length()));
-                }
+                handleLobbyState(message);
+                break;
+
+            case "LOBBY_DIFF":
+                handleLobbyDiff(message);
+                break;
+
+            case "RESUMED":
+                handleResume(message);
+                break;
+
+            case "RESUME_FAILED":
+                System.err.println("Server could not resume the previous match.");
                 break;
 
             case "COUNTDOWN":
-                handleCountdown(parts);
+                handleCountdown(message);
                 break;
 
             case "COUNTDOWN_ABORTED":
-                if (gui != null) {
-                    gui.abortCountdown();
+                if (view != null) {
+                    view.abortCountdown();
                 }
                 break;
 
             case "GAME_STARTED":
-                SwingUtilities.invokeLater(() -> {
-                    if (gui != null && playerId == null) {
-                        System.err.println("Game started but player ID not assigned!");
-                        return;
-                    }
-                    gui.startGame();
-                });
+                if (playerId == null) {
+                    System.err.println("Game started but player ID not assigned!");
+                } else if (view != null) {
+                    view.onGameStarted();
+                }
                 break;
 
             case "PLAYER_JOINED":
-                handlePlayerJoined(message, parts);
+                handlePlayerJoined(message);
                 break;
 
-            case "PLAYER_MOVED":
-                if (gui != null) {
-                    gui.updateMaze(message.substring("PLAYER_MOVED,".length()));
+            case "PLAYER_MOVED": {
+                // "PLAYER_MOVED,id,x,y,color[,serverMicros]"
+                String movedId = message.nextString();
+                int x = message.nextInt();
+                int y = message.nextInt();
+                String color = message.nextString();
+                if (message.hasField() && !movedId.equals(playerId)) {
+                    latency.recordRemoteMove(movedId, message.nextLong());
+                }
+                if (view != null) {
+                    view.updateMaze(movedId, x, y, color);
                 }
                 break;
+            }
 
             case "PLAYER_LEFT":
-                if (gui != null) {
-                    gui.removePlayer(message.substring("PLAYER_LEFT,".length()));
+                if (view != null) {
+                    view.removePlayer(message.nextString());
                 }
                 break;
 
-            case "MOVE_CONFIRMED":
-                if (gui != null && parts.length >= 4) {
-                    String confirmedPlayerId = parts[1];
-                    int newX = Integer.parseInt(parts[2]);
-                    int newY = Integer.parseInt(parts[3]);
-                    gui.onMoveConfirmed(confirmedPlayerId, newX, newY);
+            case "MOVE_CONFIRMED": {
+                // "MOVE_CONFIRMED,id,x,y[,stamp,serverMicros,applyMicros]"
+                String confirmedPlayerId = message.nextString();
+                int newX = message.nextInt();
+                int newY = message.nextInt();
+                if (message.hasField()) {
+                    latency.recordReply(message.nextLong(), message.nextLong());
+                }
+                if (view != null) {
+                    view.onMoveConfirmed(confirmedPlayerId, newX, newY);
                 }
                 break;
+            }
 
             case "INVALID_MOVE":
-                System.err.println("Invalid move detected");
+                // "INVALID_MOVE[,stamp,serverMicros,applyMicros]"
+                if (message.hasField()) {
+                    latency.recordReply(message.nextLong(), message.nextLong());
+                }
+                if (view != null) {
+                    view.onMoveRejected();
+                }
                 break;
     
+            case "QUEUED":
+                break; // "QUEUED,position": waiting for the server to form a room; ASSIGN_PLAYER follows
+
+            case "PING":
+                // "PING,stamp": echo the stamp so the server can measure the round trip
+                synchronized (writer) {
+                    writer.reset().append("PONG").field(message.nextLong()).end();
+                    write();
+                }
+                break;
+
             case "UNKNOWN_COMMAND":
                 System.err.println("Server rejected last command");
                 break;
@@ -190,14 +466,20 @@ public class GameClient {
                 System.err.println("ERROR: Server is full. Please try again later.");
                 break;
 
+            case "SERVER_BUSY":
+                // "SERVER_BUSY,retryAfterSeconds,reason": the server closes the connection next
+                busyRetrySeconds = Math.max(1, message.nextInt());
+                System.err.println("Server is busy (" + message.nextString() + ").");
+                break;
+
             case "GAME_OVER":
-                if (parts.length >= 3) {
-                    String winnerID = parts[1];
-                    int winnerScore = Integer.parseInt(parts[2]);
-                    String allScores = parts[3];
+                if (message.hasField()) {
+                    String winnerID = message.nextString();
+                    int winnerScore = message.nextInt();
+                    String allScores = message.rest();
                     
-                    if (gui != null) {
-                        gui.showGameOver(winnerID, winnerScore, allScores);
+                    if (view != null) {
+                        view.showGameOver(winnerID, winnerScore, allScores);
                     }
                 }
                 break;
@@ -210,30 +492,107 @@ public class GameClient {
 
     /**
      * Handles player assignment message from server.
-     * @param parts The parsed message parts
+     * @param message The message, positioned after the command
      */
-    private void handlePlayerAssignment(String[] parts) {
-        playerId = parts[1];
-        int x = Integer.parseInt(parts[2]);
-        int y = Integer.parseInt(parts[3]);
-        String color = parts[4];
+    private void handlePlayerAssignment(MessageReader message) {
+        // "ASSIGN_PLAYER,id,x,y,color[,gridSize[,room]]"
+        playerId = message.nextString();
+        int x = message.nextInt();
+        int y = message.nextInt();
+        String color = message.nextString();
+        int gridSize = message.hasField() ? message.nextInt() : DEFAULT_GRID_SIZE;
+        room = message.nextString();
+
+        if (view != null) {
+            view.onPlayerAssigned(playerId, x, y, color, gridSize);
+        }
+    }
 
-        SwingUtilities.invokeLater(() -> {
-            if (gui != null) {
-                gui.setLocalPlayer(playerId, x, y, color);
+    /**
+     * Replaces our copy of the lobby with the whole lobby the server sent.
+     * @param message "LOBBY_STATE,version,id,READY|NOT READY;...", positioned after the command
+     */
+    private void handleLobbyState(MessageReader message) {
+        lobbyVersion = message.nextLong();
+        lobbySyncRequested = false;
+        lobby.clear();
+        applyLobbyEntries(message.rest());
+        showLobby();
+    }
+
+    /**
+     * Applies the changes to the lobby since the previous version. If we missed a version,
+     * or never had the whole lobby, we ask the server for the whole lobby instead.
+     * @param message "LOBBY_DIFF,version,id,READY|NOT READY|LEFT;...", positioned after the command
+     */
+    private void handleLobbyDiff(MessageReader message) {
+        long version = message.nextLong();
+        if (lobbyVersion >= 0 && version <= lobbyVersion) {
+            return; // Already part of the lobby we have
+        }
+        if (lobbyVersion < 0 || version != lobbyVersion + 1) {
+            if (!lobbySyncRequested) {
+                lobbySyncRequested = true;
+                sendMessage("LOBBY_SYNC");
             }
-        });
+            return;
+        }
+        lobbyVersion = version;
+        applyLobbyEntries(message.rest());
+        showLobby();
+    }
+
+    private void applyLobbyEntries(String entries) {
+        for (String entry : entries.split(";")) {
+            int comma = entry.indexOf(',');
+            if (comma <= 0) {
+                continue;
+            }
+            String id = entry.substring(0, comma);
+            String status = entry.substring(comma + 1);
+            if (status.equals("LEFT")) {
+                lobby.remove(id);
+            } else {
+                lobby.put(id, status);
+            }
+        }
+    }
+
+    private void showLobby() {
+        if (view == null) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, String> entry : lobby.entrySet()) {
+            text.append(entry.getKey()).append(',').append(entry.getValue()).append(';');
+        }
+        view.updateLobby(text.toString());
+    }
+
+    /**
+     * Handles the server accepting our reconnection into a recovered match.
+     * @param message The message (id, x, y, color, remaining seconds), positioned after the command
+     */
+    private void handleResume(MessageReader message) {
+        String resumedId = message.nextString();
+        int x = message.nextInt();
+        int y = message.nextInt();
+        String color = message.nextString();
+        System.out.println("Resumed match as " + resumedId + ", " + message.nextInt() + "s left");
+        if (view != null) {
+            view.updateMaze(resumedId, x, y, color);
+        }
     }
 
     /**
      * Handles countdown messages from server.
-     * @param parts The parsed message parts
+     * @param message The message, positioned after the command
      */
-    private void handleCountdown(String[] parts) {
+    private void handleCountdown(MessageReader message) {
         try {
-            int seconds = Integer.parseInt(parts[1]);
-            if (gui != null) {
-                gui.updateCountdown(seconds);
+            int seconds = message.nextInt();
+            if (view != null) {
+                view.updateCountdown(seconds);
             }
         } catch (NumberFormatException e) {
             System.err.println("Invalid countdown value received from server.");
@@ -242,18 +601,13 @@ public class GameClient {
 
     /**
      * Handles player join notifications from server.
-     * @param message The raw message
-     * @param parts The parsed message parts
+     * @param message The message, positioned after the command
      */
-    private void handlePlayerJoined(String message, String[] parts) {
-        // Skip our own join message
-        if (!parts[1].equals(playerId)) {
-            String finalMessage = message;
-            SwingUtilities.invokeLater(() -> {
-                if (gui != null) {
-                    gui.addPlayer(finalMessage.substring("PLAYER_JOINED,".length()));
-                }
-            });
+    private void handlePlayerJoined(MessageReader message) {
+        // "PLAYER_JOINED,id,x,y,color"; skip our own join message
+        String joinedId = message.nextString();
+        if (!joinedId.equals(playerId) && view != null) {
+            view.addPlayer(joinedId, message.nextInt(), message.nextInt(), message.nextString());
         }
     }
 
@@ -263,14 +617,8 @@ public class GameClient {
      */
     private void handleDisconnection(String errorMessage) {
         System.err.println("ERROR: " + errorMessage);
-        SwingUtilities.invokeLater(() -> {
-            if (gui != null) {
-                JOptionPane.showMessageDialog(gui,
-                        "Connection to server lost: " + errorMessage,
-                        "Connection Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
-        });
-        System.exit(1);
+        if (view != null) {
+            view.onDisconnected(errorMessage);
+        }
     }
 }
\ No newline at end of file
@@ -5,30 +5,43 @@ import main.java.model.Square;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The GameGUI class represents the main graphical user interface for the multiplayer maze game.
  * It handles both the lobby interface and the game board display, managing player visualization,
  * movement, and game state updates.
+ *
+ * The window shows its first frame right away: images and fonts decode in the background
+ * and fill in as they arrive, and the lobby panel is only built when it is first needed.
  */
-public class GameGUI extends JFrame {
+public class GameGUI extends JFrame implements GameView {
     private static final int WINDOW_SIZE = 1000;
-    private static final int GRID_SIZE = 10;
+    private static final int DEFAULT_GRID_SIZE = 10;
+    private static final int LOBBY_LIST_LINES = 8; // Longer lobbies are listed compactly
+    private static final int BOARD_PIXELS = 800; // Width and height of the game board
+    private static final Color LOADING_BACKGROUND = new Color(0xc8ced3); // The lobby background's color, shown until it loads
+    private static final Color TEXT_COLOR = new Color(41, 50, 65);
 
     // Start Screen UI components
     private JPanel backgroundPanel;
     private JLabel lobbyBackground;
     private JLabel logoLabel;
     private JLabel startPromptText;
-    private Font fontInkyThinPixelsLarge;
-    private Font fontInkyThinPixelsBase;
+    private Timer startPromptTimer;
+    // The default font until the game's font has loaded
+    private Font fontInkyThinPixelsLarge = new Font(Font.DIALOG, Font.PLAIN, 48);
+    private Font fontInkyThinPixelsBase = new Font(Font.DIALOG, Font.PLAIN, 36);
     private JLayeredPane layeredPane;
 
-    // Lobby UI components
+    // Lobby UI components; built on first use, see lobbyPanel()
     private JLayeredPane lobbyPanel;
     private JLabel howToPlayLabel;
     private JLabel instructions;
@@ -36,28 +49,46 @@ public class GameGUI extends JFrame {
     private JLabel playersContainerLabel;
     private JLabel playerListText;
     private JLabel countdownLabel;
+    private Timer countdownBlinkTimer;
     private JButton readyButton;
 
     // Game UI components
-    private JLabel[][] gridLabels; // Visual representation of the grid
+    private int gridSize = DEFAULT_GRID_SIZE; // Width and height of the server's grid
+    private GridCanvas board; // Visual representation of the grid
+    private final AnimationClock clock = new AnimationClock(); // Drives all board animations
     private Square[][] gridSquares; // Logical representation of grid squares
     private Player localPlayer; // The player associated with this client
-    private ImageIcon characterIcon; // Image icon object for the player sprite
     private GameClient client; // Reference to the network client
     private final Map<String, Player> players = new HashMap<>(); // All players in the game
-    private final Map<String, ImageIcon> playerSprites = new HashMap<>(); // Player sprites corresponding to player IDs
+    private final AssetManager assets = AssetManager.get(); // Preloaded images, sprites and fonts
     private final Map<String, Color> trailColors = new HashMap<>(); // Player trail colors
 
+    // Updates from the network thread, applied together in one pass on the EDT
+    private final ConcurrentLinkedQueue<PendingUpdate> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean updatePassScheduled = new AtomicBoolean(false);
+    private final List<PendingUpdate> updateBatch = new ArrayList<>(); // Only used on the EDT
+
     // Post Game UI components
     private JLabel gameOverPanel;
     private JLabel scoreboard;
 
+    // Latency overlay, toggled with F3
+    private JTextArea latencyOverlay;
+    private Timer latencyOverlayTimer;
+
     /**
-     * Parses a color name string into a Color object.
-     * @param colorName The name of the color (RED, GREEN, BLUE, YELLOW)
+     * Parses a color string into a Color object.
+     * @param colorName A hex color ("#f0adc6", as sent by the server) or a color name (RED, GREEN, BLUE, YELLOW)
      * @return The corresponding Color object, or GRAY if unknown
      */
     private Color parseColor(String colorName) {
+        if (colorName.startsWith("#")) {
+            try {
+                return Color.decode(colorName);
+            } catch (NumberFormatException e) {
+                return Color.GRAY;
+            }
+        }
         return switch (colorName.toUpperCase()) {
             case "RED" -> Color.RED;
             case "GREEN" -> Color.GREEN;
@@ -67,6 +98,35 @@ public class GameGUI extends JFrame {
         };
     }
 
+    /**
+     * A state change waiting for the next update pass. Player moves are kept as data so
+     * several moves of the same player in one pass can be collapsed; anything else is
+     * an action to run.
+     */
+    private static final class PendingUpdate {
+        final String playerId; // Moving player, null for actions
+        final int x, y;        // Position moved to
+        final String color;    // Color name of a PLAYER_MOVED update, null for a confirmed move
+        final Runnable action; // Non-move update, null for moves
+        boolean superseded;    // A later move of the same player is in the same pass
+
+        PendingUpdate(String playerId, int x, int y, String color) {
+            this.playerId = playerId;
+            this.x = x;
+            this.y = y;
+            this.color = color;
+            this.action = null;
+        }
+
+        PendingUpdate(Runnable action) {
+            this.playerId = null;
+            this.x = 0;
+            this.y = 0;
+            this.color = null;
+            this.action = action;
+        }
+    }
+
     // Synchronization lock for player operations
     private final Object playerLock = new Object();
 
@@ -76,17 +136,15 @@ public class GameGUI extends JFrame {
      * @param x The initial x-coordinate position
      * @param y The initial y-coordinate position
      * @param color The player's color in hex or name format
+     * @param gridSize The width and height of the grid
      */
-    public void setLocalPlayer(String id, int x, int y, String color) {
+    public void setLocalPlayer(String id, int x, int y, String color, int gridSize) {
         synchronized(playerLock) {
             try {
+                this.gridSize = gridSize;
                 this.localPlayer = new Player(id, x, y, color);
                 players.put(id, this.localPlayer);
-                trailColors.put(id, calculateTrailColor(Color.decode(color)));
-                playerSprites.put("P1", new ImageIcon("../../resources/images/sprites/p1.png"));
-                playerSprites.put("P2", new ImageIcon("../../resources/images/sprites/p2.png"));
-                playerSprites.put("P3", new ImageIcon("../../resources/images/sprites/p3.png"));
-                playerSprites.put("P4", new ImageIcon("../../resources/images/sprites/p4.png"));
+                trailColors.put(id, calculateTrailColor(parseColor(color)));
             } catch (Exception e) {
                 System.err.println("Error setting local player: ");
                 e.printStackTrace();
@@ -95,11 +153,13 @@ public class GameGUI extends JFrame {
     }
 
     /**
-     * Constructs the game GUI and initializes all components.
+     * Constructs the game GUI and shows the start screen. Returns without waiting for any
+     * image or font: each appears once it has loaded.
      * @param client The GameClient instance handling network communication
      */
     public GameGUI(GameClient client) {
         this.client = client;
+        assets.preload(); // Decode everything in the background while the start screen shows
         setTitle("Onigiri Wars");
         setSize(WINDOW_SIZE, WINDOW_SIZE);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -110,42 +170,39 @@ public class GameGUI extends JFrame {
         layeredPane.setBounds(0, 0, WINDOW_SIZE, WINDOW_SIZE);
         setContentPane(layeredPane);
 
-        // Lobby Background Panel
+        // Lobby Background Panel, in the background's color until the image is in
         backgroundPanel = new JPanel();
         backgroundPanel.setBounds(0, 0, 2065, 1000);
         backgroundPanel.setLayout(null);
-        lobbyBackground = new JLabel(new ImageIcon("../../resources/images/lobby_background.png"));
+        backgroundPanel.setBackground(LOADING_BACKGROUND);
+        lobbyBackground = new JLabel();
         lobbyBackground.setBounds(0, 0, 2065, 1000);
+        assets.withIcon(AssetManager.LOBBY_BACKGROUND, lobbyBackground::setIcon);
         backgroundPanel.add(lobbyBackground);
         layeredPane.add(backgroundPanel, JLayeredPane.DEFAULT_LAYER);
 
         // Logo Panel
-        logoLabel = new JLabel(new ImageIcon("../../resources/images/onigiri_wars_logo.png"));
+        logoLabel = new JLabel();
         logoLabel.setBounds(100, 345, 767, 146);
+        assets.withIcon(AssetManager.LOGO, logoLabel::setIcon);
         layeredPane.add(logoLabel, JLayeredPane.PALETTE_LAYER); 
 
-        // Press Any Key To Start Label
-        try {
-            // Load the Inky Thin Pixels font file from resources
-            fontInkyThinPixelsLarge = Font.createFont(Font.TRUETYPE_FONT, new File("../../resources/fonts/Inky Thin Pixels.ttf")).deriveFont(48f);
-            GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-            ge.registerFont(fontInkyThinPixelsLarge);
-
-            // Create JLabel with custom font
-            startPromptText = new JLabel("> PRESS ANY KEY TO START");
-            startPromptText.setFont(fontInkyThinPixelsLarge);
-            startPromptText.setForeground(new Color(41,50,65));
-            startPromptText.setBounds(430, 530, 450, 55);
-
-            // Add the text label to the layered pane
-            layeredPane.add(startPromptText, JLayeredPane.PALETTE_LAYER);
+        // Press Any Key To Start Label, in the game's font once it has loaded
+        startPromptText = new JLabel("> PRESS ANY KEY TO START");
+        startPromptText.setFont(fontInkyThinPixelsLarge);
+        startPromptText.setForeground(TEXT_COLOR);
+        startPromptText.setBounds(430, 530, 450, 55);
+        assets.withFont(AssetManager.FONT_INKY_THIN_PIXELS, 48f, font -> {
+            fontInkyThinPixelsLarge = font;
+            startPromptText.setFont(font);
+        });
+        assets.withFont(AssetManager.FONT_INKY_THIN_PIXELS, 36f, font -> fontInkyThinPixelsBase = font);
 
-        } catch (FontFormatException | IOException e) {
-            e.printStackTrace();
-        }
+        // Add the text label to the layered pane
+        layeredPane.add(startPromptText, JLayeredPane.PALETTE_LAYER);
 
         // Timer for blinking effect
-        Timer timer = new Timer(600, new ActionListener() {
+        startPromptTimer = new Timer(600, new ActionListener() {
             private boolean isVisible = true; // Track visibility state
         
             @Override
@@ -155,23 +212,13 @@ public class GameGUI extends JFrame {
             }
         });
 
-        timer.start();
-
-        // Setup Lobby Panel
-        setupLobbyPanel();
-        lobbyPanel.setBounds(0, 0, WINDOW_SIZE, WINDOW_SIZE);
-        lobbyPanel.setOpaque(false);
-        lobbyPanel.setVisible(false); // Initially hidden
-        layeredPane.add(lobbyPanel, JLayeredPane.PALETTE_LAYER); // Place above background
+        startPromptTimer.start();
 
         // Add KeyListener to detect any key press
         addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
-                lobbyPanel.setVisible(true); // Show lobby panel when any key is pressed
-                logoLabel.setVisible(false); // Hide logo when any key is pressed
-                timer.stop();
-                startPromptText.setVisible(false); // Hide "Press Any Key To Start" text when any key is pressed
+                showLobby();
             }
         });
 
@@ -186,51 +233,69 @@ public class GameGUI extends JFrame {
     }
 
     /**
-     * Initializes the lobby panel with player list and ready button.
+     * Leaves the start screen and shows the lobby panel.
+     */
+    private void showLobby() {
+        lobbyPanel().setVisible(true); // Show lobby panel when any key is pressed
+        logoLabel.setVisible(false); // Hide logo when any key is pressed
+        startPromptTimer.stop();
+        if (startPromptText != null) {
+            startPromptText.setVisible(false); // Hide "Press Any Key To Start" text when any key is pressed
+        }
+    }
+
+    /**
+     * Returns the lobby panel, building it on first use: when the player leaves the start
+     * screen, or the server first sends lobby news. Runs on the EDT.
+     */
+    private JLayeredPane lobbyPanel() {
+        if (lobbyPanel == null) {
+            setupLobbyPanel();
+            lobbyPanel.setBounds(0, 0, WINDOW_SIZE, WINDOW_SIZE);
+            lobbyPanel.setOpaque(false);
+            lobbyPanel.setVisible(false); // Initially hidden
+            layeredPane.add(lobbyPanel, JLayeredPane.PALETTE_LAYER); // Place above background
+        }
+        return lobbyPanel;
+    }
+
+    /**
+     * Initializes the lobby panel with player list and ready button. Images and the
+     * font fill in once they have loaded.
      */
     private void setupLobbyPanel() {
         lobbyPanel = new JLayeredPane();
         lobbyPanel.setPreferredSize(new Dimension(WINDOW_SIZE, WINDOW_SIZE));
 
         // How To Play Panel
-        howToPlayLabel = new JLabel(new ImageIcon("../../resources/images/how_to_play_text.png"));
+        howToPlayLabel = new JLabel();
         howToPlayLabel.setBounds(200, 100, 604, 207);
+        assets.withIcon(AssetManager.HOW_TO_PLAY, howToPlayLabel::setIcon);
         lobbyPanel.add(howToPlayLabel, JLayeredPane.DEFAULT_LAYER); 
 
-        // How To Play Text
-        try {
-            // Load the Inky Thin Pixels font file from resources
-            fontInkyThinPixelsBase = Font.createFont(Font.TRUETYPE_FONT, new File("../../resources/fonts/Inky Thin Pixels.ttf")).deriveFont(36f);
-            GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-            ge.registerFont(fontInkyThinPixelsLarge);
-
-            // Create JLabel with custom font
-            // Have to use <html> and <br> tags for newline support
-            instructions = new JLabel(
-                "<html>Capture tiles by stepping on them! Other players can't<br>" + 
-                "step on your territory so maneuver around them<br>" + 
-                "to capture the largest area you can. The player with the<br>" + 
-                "most territory at the end wins.</html>");
-            instructions.setFont(fontInkyThinPixelsBase);
-            instructions.setForeground(new Color(41,50,65));
-            instructions.setBounds(100, 265, 870, 170);
-
-            // Add the text label to the layered pane
-            lobbyPanel.add(instructions, JLayeredPane.PALETTE_LAYER);
-
-            // Countdown label at the top
-            countdownLabel = new JLabel("WAITING FOR PLAYERS...");
-            countdownLabel.setFont(fontInkyThinPixelsBase);
-            countdownLabel.setForeground(new Color(41,50,65));
-            countdownLabel.setBounds(540, 800, 370, 50);
-            lobbyPanel.add(countdownLabel, JLayeredPane.PALETTE_LAYER);
-
-        } catch (FontFormatException | IOException e) {
-            e.printStackTrace();
-        }
+        // Create JLabel with custom font
+        // Have to use <html> and <br> tags for newline support
+        instructions = new JLabel(
+            "<html>Capture tiles by stepping on them! Other players can't<br>" + 
+            "step on your territory so maneuver around them<br>" + 
+            "to capture the largest area you can. The player with the<br>" + 
+            "most territory at the end wins.</html>");
+        instructions.setFont(fontInkyThinPixelsBase);
+        instructions.setForeground(TEXT_COLOR);
+        instructions.setBounds(100, 265, 870, 170);
+
+        // Add the text label to the layered pane
+        lobbyPanel.add(instructions, JLayeredPane.PALETTE_LAYER);
+
+        // Countdown label at the top
+        countdownLabel = new JLabel("WAITING FOR PLAYERS...");
+        countdownLabel.setFont(fontInkyThinPixelsBase);
+        countdownLabel.setForeground(TEXT_COLOR);
+        countdownLabel.setBounds(540, 800, 370, 50);
+        lobbyPanel.add(countdownLabel, JLayeredPane.PALETTE_LAYER);
 
         // Timer for blinking effect
-        Timer timer = new Timer(800, new ActionListener() {
+        countdownBlinkTimer = new Timer(800, new ActionListener() {
             private boolean isVisible = true; // Track visibility state
         
             @Override
@@ -240,23 +305,25 @@ public class GameGUI extends JFrame {
             }
         });
 
-        timer.start();
+        countdownBlinkTimer.start();
         
         // Container for controls
-        controls = new JLabel(new ImageIcon("../../resources/images/controls.png"));
+        controls = new JLabel();
         controls.setBounds(137, 512, 253, 246);
+        assets.withIcon(AssetManager.CONTROLS, controls::setIcon);
         lobbyPanel.add(controls, JLayeredPane.DEFAULT_LAYER);
 
         // Container for players joined
-        playersContainerLabel = new JLabel(new ImageIcon("../../resources/images/players_container.png"));
+        playersContainerLabel = new JLabel();
         playersContainerLabel.setBounds(500, 512, 390, 355);
+        assets.withIcon(AssetManager.PLAYERS_CONTAINER, playersContainerLabel::setIcon);
         lobbyPanel.add(playersContainerLabel, JLayeredPane.DEFAULT_LAYER);
 
         // Player list in the center
         // Create a JLabel for the player list text
         playerListText = new JLabel("<html></html>");
         playerListText.setFont(fontInkyThinPixelsBase);
-        playerListText.setForeground(new Color(41, 50, 65));
+        playerListText.setForeground(TEXT_COLOR);
         playerListText.setBounds(540, 475, 305, 300);
 
         // Add the label to the lobby panel
@@ -271,6 +338,13 @@ public class GameGUI extends JFrame {
         readyButton.setBounds(540, 740, 325, 54);
         readyButton.setVerticalAlignment(SwingConstants.CENTER);
         lobbyPanel.add(readyButton, JLayeredPane.PALETTE_LAYER);
+
+        assets.withFont(AssetManager.FONT_INKY_THIN_PIXELS, 36f, font -> {
+            fontInkyThinPixelsBase = font;
+            for (JComponent text : new JComponent[]{instructions, countdownLabel, playerListText, readyButton}) {
+                text.setFont(font);
+            }
+        });
     }
 
     /**
@@ -291,21 +365,43 @@ public class GameGUI extends JFrame {
      * Updates the lobby display with current player states.
      * @param message The server message containing player readiness information
      */
+    @Override
     public void updateLobby(String message) {
-        SwingUtilities.invokeLater(() -> {
+        runInUpdatePass(() -> {
             // playerListModel.clear();
             StringBuilder playerText = new StringBuilder("<html>"); // Start HTML formatting
             String[] players = message.split(";");
-            for (String playerInfo : players) {
-                if (!playerInfo.isEmpty() && playerInfo.contains(",")) {
+            if (players.length <= LOBBY_LIST_LINES) {
+                for (String playerInfo : players) {
+                    if (!playerInfo.isEmpty() && playerInfo.contains(",")) {
+                        String[] parts = playerInfo.split(",");
+                        // playerListModel.addElement(parts[0] + " - " + parts[1]);
+                        playerText.append(parts[0]).append(" - ").append(parts[1]).append("<br>");
+                    }
+                }
+            } else {
+                // Too many for one per line: count the ready players and list who is still missing
+                int ready = 0;
+                StringBuilder notReady = new StringBuilder();
+                for (String playerInfo : players) {
                     String[] parts = playerInfo.split(",");
-                    // playerListModel.addElement(parts[0] + " - " + parts[1]);
-                    playerText.append(parts[0]).append(" - ").append(parts[1]).append("<br>");
+                    if (parts.length < 2) continue;
+                    if (parts[1].equals("READY")) {
+                        ready++;
+                    } else {
+                        notReady.append(parts[0]).append(' ');
+                    }
+                }
+                playerText.append("<body style='width:290px'>").append(ready).append('/').append(players.length)
+                        .append(" READY<br>");
+                if (notReady.length() > 0) {
+                    playerText.append("WAITING FOR: ").append(notReady);
                 }
             }
             playerText.append("</html>"); // Close the HTML tags
 
             // Update the text of the player list label
+            lobbyPanel();
             playerListText.setText(playerText.toString());
 
             lobbyPanel.revalidate();
@@ -317,8 +413,10 @@ public class GameGUI extends JFrame {
      * Updates the countdown display in the lobby.
      * @param seconds The remaining seconds until game start
      */
+    @Override
     public void updateCountdown(int seconds) {
-        SwingUtilities.invokeLater(() -> {
+        runInUpdatePass(() -> {
+            lobbyPanel();
             countdownLabel.setText("Game starting in " + seconds);
             if (seconds == 0) {
                 getContentPane().removeAll();
@@ -332,8 +430,12 @@ public class GameGUI extends JFrame {
     /**
      * Handles countdown abortion from the server.
      */
+    @Override
     public void abortCountdown() {
-        SwingUtilities.invokeLater(() -> countdownLabel.setText("Countdown aborted. Waiting for all players to be ready."));
+        runInUpdatePass(() -> {
+            lobbyPanel();
+            countdownLabel.setText("Countdown aborted. Waiting for all players to be ready.");
+        });
     }
 
     /**
@@ -350,77 +452,54 @@ public class GameGUI extends JFrame {
             return;
         }
 
-        // Set sprite image for corresponding player ID
-        switch(localPlayer.getId()){
-            case "P1":
-                characterIcon = new ImageIcon("../../resources/images/sprites/p1.png");
-                break;
-            default:
-                characterIcon = null;
-                break;
-    
-        }
-
-        JPanel gridPanel = new JPanel(new GridLayout(GRID_SIZE, GRID_SIZE));
-        gridPanel.setPreferredSize(new Dimension(800, 800));
+        // The whole board is painted by a single component
+        board = new GridCanvas(gridSize, clock);
 
         // Initialize game grid
-        gridLabels = new JLabel[GRID_SIZE][GRID_SIZE];
-        gridSquares = new Square[GRID_SIZE][GRID_SIZE];
-
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                gridLabels[row][col] = new JLabel("", SwingConstants.CENTER);
-                gridLabels[row][col].setBorder(BorderFactory.createLineBorder(Color.BLACK));
-                gridLabels[row][col].setOpaque(true);
+        gridSquares = new Square[gridSize][gridSize];
 
-                gridSquares[row][col] = new Square(gridLabels[row][col]);
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                gridSquares[row][col] = new Square();
                 gridSquares[row][col].tryLock(localPlayer);
                 gridSquares[row][col].setWall(false);
-
-                // add(gridLabels[row][col]);
-                gridPanel.add(gridLabels[row][col]);
             }
         }
         
-        client.sendMessage("INIT_STATE");
+        if (client != null) {
+            client.sendMessage("INIT_STATE");
+        }
         // Update all player positions
         for (Player player : players.values()) {
             updatePlayerPosition(player);
             gridSquares[player.getY()][player.getX()].tryLock(player);
         }
 
-        gridPanel.setBounds(1000, 100, 800, 800);
-        lobbyPanel.add(gridPanel, JLayeredPane.DEFAULT_LAYER);
+        board.setBounds(1000, 100, BOARD_PIXELS, BOARD_PIXELS);
+        lobbyPanel().add(board, JLayeredPane.DEFAULT_LAYER);
+        if (!lobbyPanel.isVisible()) {
+            showLobby(); // The game can start before this player left the start screen
+        }
+
+        // Scroll the background and grid in; the animation ends once the board is in place
+        clock.start(new AnimationClock.Animation() {
+            static final double SPEED = 2.0;      // Pixels per millisecond
+            static final double SLOW_SPEED = 1.0; // Speed over the last stretch
+            final long start = System.nanoTime();
 
-        // Create a Timer to make the background and grid scroll
-        Timer timer = new Timer(5, new ActionListener() {
-            int xPosition = 0;  // Position of the background image and grid panel
-            int speed = 10; // Initial speed of scrolling
-        
             @Override
-            public void actionPerformed(ActionEvent e) {
-                // Scroll the background, grid, and labels
-                if (xPosition <= -900) {
-                    xPosition = -900;
-                    // Remove components after reaching target position
-                    for (Component comp : lobbyPanel.getComponentsInLayer(JLayeredPane.PALETTE_LAYER)) {
-                        lobbyPanel.remove(comp);
-                    }
-                    lobbyPanel.remove(howToPlayLabel);
-                    lobbyPanel.remove(playersContainerLabel);
-                } else {
-                    // Gradually decrease the speed as the position moves
-                    if (xPosition <= -800) {
-                        speed = 5; // Slow down when nearing the end
-                    }
-                    xPosition -= speed; 
-                }
+            public boolean step(long now) {
+                // Same motion as before: fast until -800, then slower until -900
+                double elapsedMs = (now - start) / 1e6;
+                double fastMs = 800 / SPEED;
+                double distance = elapsedMs <= fastMs ? elapsedMs * SPEED
+                        : 800 + (elapsedMs - fastMs) * SLOW_SPEED;
+                int xPosition = -(int) Math.min(900, distance);
 
                 // Set new bounds for the background and grid
                 lobbyBackground.setBounds(xPosition, 0, 2065, 1000);
-                gridPanel.setBounds(xPosition + 1000, 100, 800, 800); 
-                howToPlayLabel.setBounds(xPosition + 200, 100, 604, 207); 
+                board.setBounds(xPosition + 1000, 100, BOARD_PIXELS, BOARD_PIXELS);
+                howToPlayLabel.setBounds(xPosition + 200, 100, 604, 207);
                 playersContainerLabel.setBounds(xPosition + 500, 512, 382, 355);
                 instructions.setBounds(xPosition + 100, 265, 870, 170);
                 controls.setBounds(xPosition + 137, 512, 253, 246);
@@ -428,10 +507,20 @@ public class GameGUI extends JFrame {
                 playerListText.setBounds(xPosition + 540, 475, 305, 300);
                 readyButton.setBounds(xPosition + 540, 740, 325, 54);
 
+                if (xPosition > -900) {
+                    return true;
+                }
+                // Remove the lobby components once, after reaching the target position
+                countdownBlinkTimer.stop();
+                for (Component comp : lobbyPanel.getComponentsInLayer(JLayeredPane.PALETTE_LAYER)) {
+                    lobbyPanel.remove(comp);
+                }
+                lobbyPanel.remove(howToPlayLabel);
+                lobbyPanel.remove(playersContainerLabel);
+                lobbyPanel.repaint();
+                return false;
             }
         });
-
-        timer.start();
         
         revalidate();
         repaint();
@@ -451,6 +540,7 @@ public class GameGUI extends JFrame {
         im.put(KeyStroke.getKeyStroke("DOWN"), "moveDown");
         im.put(KeyStroke.getKeyStroke("LEFT"), "moveLeft");
         im.put(KeyStroke.getKeyStroke("RIGHT"), "moveRight");
+        im.put(KeyStroke.getKeyStroke("F3"), "toggleLatency");
 
         am.put("moveUp", new AbstractAction() {
             @Override
@@ -476,6 +566,40 @@ public class GameGUI extends JFrame {
                 attemptMove(localPlayer.getX() + 1, localPlayer.getY());
             }
         });
+        am.put("toggleLatency", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                toggleLatencyOverlay();
+            }
+        });
+    }
+
+    /**
+     * Shows or hides the latency overlay: round trip of our moves split into server and
+     * network time, and how late we see each other player's moves. It refreshes twice a
+     * second while visible.
+     */
+    private void toggleLatencyOverlay() {
+        if (client == null) return;
+        if (latencyOverlay == null) {
+            latencyOverlay = new JTextArea();
+            latencyOverlay.setEditable(false);
+            latencyOverlay.setFocusable(false);
+            latencyOverlay.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+            latencyOverlay.setForeground(Color.WHITE);
+            latencyOverlay.setBackground(Color.BLACK);
+            latencyOverlay.setBounds(10, 10, 300, 120);
+            layeredPane.add(latencyOverlay, JLayeredPane.POPUP_LAYER);
+            latencyOverlayTimer = new Timer(500, e -> latencyOverlay.setText(client.getLatency().summary()));
+        }
+        boolean show = !latencyOverlay.isVisible() || !latencyOverlayTimer.isRunning();
+        latencyOverlay.setVisible(show);
+        if (show) {
+            latencyOverlay.setText(client.getLatency().summary());
+            latencyOverlayTimer.start();
+        } else {
+            latencyOverlayTimer.stop();
+        }
     }
 
     /**
@@ -486,7 +610,7 @@ public class GameGUI extends JFrame {
      * @param newY The new Y-coordinate.
      */
     private void attemptMove(int newX, int newY) {
-        if (isValidMove(newX, newY)) {
+        if (client != null && localPlayer != null && isValidMove(newX, newY)) {
             client.sendMove(newX, newY);
         }
     }
@@ -500,24 +624,35 @@ public class GameGUI extends JFrame {
      * @param playerId The ID of the player.
      */
     private void updateTrail(int x, int y, String playerId) {
-        if (gridLabels != null) {
-            gridLabels[y][x].setBackground(trailColors.get(playerId)); // Set the trail color
-            gridLabels[y][x].setIcon(null); // Clear previous trail
+        if (board != null) {
+            board.setCellColor(x, y, trailColors.get(playerId)); // Set the trail color
         }
     }
 
     /**
      * Updates the position of a player on the grid, marking the player's new position
-     * and updating the background color to the player's assigned color.
+     * and updating the background color to the player's assigned color. Remote players
+     * glide to their new position; the local player moves there at once.
      *
      * @param player The player whose position needs to be updated.
      */
     private void updatePlayerPosition(Player player) {
-        if (gridLabels != null) {
+        updatePlayerPosition(player, player != localPlayer);
+    }
+
+    /**
+     * Updates the position of a player on the grid.
+     *
+     * @param player The player whose position needs to be updated.
+     * @param glide True to animate the sprite from its previous position.
+     */
+    private void updatePlayerPosition(Player player, boolean glide) {
+        if (board != null) {
             int x = player.getX();
             int y = player.getY();
-            gridLabels[y][x].setBackground(parseColor(player.getColor())); // Update background color
-            gridLabels[y][x].setIcon(playerSprites.get(player.getId())); // Player sprite
+            Image sprite = assets.getSprite(player.getId(), player.getColor(), BOARD_PIXELS / gridSize);
+            board.setCellColor(x, y, parseColor(player.getColor())); // Update background color
+            board.placeSprite(player.getId(), sprite, x, y, glide); // Player sprite
         }
     }
 
@@ -532,7 +667,7 @@ public class GameGUI extends JFrame {
      */
     private boolean isValidMove(int x, int y) {
         // Check if the target coordinates are within bounds
-        if (x < 0 || x >= GRID_SIZE || y < 0 || y >= GRID_SIZE) {
+        if (x < 0 || x >= gridSize || y < 0 || y >= gridSize) {
             return false; // Out of bounds
         }
 
@@ -552,44 +687,82 @@ public class GameGUI extends JFrame {
     }
 
     /**
-     * Updates the maze based on a message from the server. The message includes
-     * the player ID, the new X and Y coordinates, and the player's color.
+     * Updates the maze based on a message from the server: a player moved.
      *
-     * @param message The message containing player update details in the format: "playerId,newX,newY,color".
+     * @param playerId The ID of the player who moved.
+     * @param newX The new X-coordinate.
+     * @param newY The new Y-coordinate.
+     * @param colorName The player's color.
      */
-    public void updateMaze(String message) {
-        SwingUtilities.invokeLater(() -> {
-            String[] parts = message.split(",");
-            if (parts.length != 4) {
-                System.err.println("Invalid message format: " + message);
-                return;
-            }
+    @Override
+    public void updateMaze(String playerId, int newX, int newY, String colorName) {
+        queueUpdate(new PendingUpdate(playerId, newX, newY, colorName));
+    }
 
-            // Message looks like: "playerId,newX,newY,color"
-            String playerId = parts[0];
-            int newX = Integer.parseInt(parts[1]);
-            int newY = Integer.parseInt(parts[2]);
-            String colorName = parts[3];
+    /**
+     * Applies a PLAYER_MOVED update. A superseded move only colors the cell the player
+     * passed through; the sprite is moved once, by the player's last move in the pass.
+     */
+    private void applyPlayerMoved(PendingUpdate update) {
+        String playerId = update.playerId;
+        int newX = update.x;
+        int newY = update.y;
+
+        // Convert color name to a Color object
+        Color color = parseColor(update.color);
+
+        Player p = players.get(playerId);
+        if (p == null) {
+            p = new Player(playerId, newX, newY, update.color);
+            players.put(playerId, p);
+            trailColors.put(playerId, calculateTrailColor(color));
+        } else {
+            int prevX = p.getX();
+            int prevY = p.getY();
+            updateTrail(prevX, prevY, playerId);
+            p.setX(newX);
+            p.setY(newY);
+        }
 
-            // Convert color name to a Color object
-            Color color = parseColor(colorName);
+        if (!update.superseded) {
+            updatePlayerPosition(p);
+        } else if (board != null) {
+            board.setCellColor(newX, newY, color);
+        }
+        if (gridSquares != null) {
+            gridSquares[newY][newX].tryLock(p);
+        }
+    }
 
-            Player p = players.get(playerId);
-            if (p == null) {
-                p = new Player(playerId, newX, newY, colorName);
-                players.put(playerId, p);
-                trailColors.put(playerId, calculateTrailColor(color));
-            } else {
-                int prevX = p.getX();
-                int prevY = p.getY();
-                updateTrail(prevX, prevY, playerId);
-                p.setX(newX);
-                p.setY(newY);
+    /**
+     * Redraws the whole board from a known state instead of from individual moves.
+     * Used by the replay viewer when seeking through a recorded match.
+     *
+     * @param boardPlayers The players on the board, keyed by ID.
+     * @param owners The owner player ID of each cell indexed [x][y], null if unclaimed.
+     */
+    public void loadBoard(Map<String, Player> boardPlayers, String[][] owners) {
+        runInUpdatePass(() -> {
+            if (board == null) return;
+
+            players.clear();
+            trailColors.clear();
+            for (Player p : boardPlayers.values()) {
+                players.put(p.getId(), p);
+                trailColors.put(p.getId(), calculateTrailColor(parseColor(p.getColor())));
             }
 
-            updatePlayerPosition(p);
-            if (gridSquares != null) {
-                gridSquares[newY][newX].tryLock(p);
+            int size = Math.min(gridSize, owners.length);
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    String owner = owners[x][y];
+                    board.setCellColor(x, y, owner == null ? null
+                            : trailColors.getOrDefault(owner, Color.GRAY));
+                }
+            }
+            board.retainSprites(players.keySet());
+            for (Player p : players.values()) {
+                updatePlayerPosition(p, false);
             }
         });
     }
@@ -611,35 +784,27 @@ public class GameGUI extends JFrame {
     }
 
     /**
-     * Adds a new player to the game based on the server's message. The message includes
-     * the player ID, the player's initial X and Y coordinates, and the player's color.
+     * Adds a new player to the game based on the server's message.
      *
-     * @param message The message containing player details in the format: "playerId,x,y,color".
+     * @param playerId The ID of the player who joined.
+     * @param x The player's initial X-coordinate.
+     * @param y The player's initial Y-coordinate.
+     * @param color The player's color.
      */
-    public void addPlayer(String message) {
-        SwingUtilities.invokeLater(() -> {
+    @Override
+    public void addPlayer(String playerId, int x, int y, String color) {
+        runInUpdatePass(() -> {
             try {
-                String[] playerData = message.split(",");
-                if (playerData.length != 4) {
-                    System.err.println("Invalid player data: " + message);
-                    return;
-                }
-
-                String playerId = playerData[0];
                 // Skip if this is our local player
                 if (localPlayer != null && localPlayer.getId().equals(playerId)) {
                     return;
                 }
 
-                int x = Integer.parseInt(playerData[1]);
-                int y = Integer.parseInt(playerData[2]);
-                String color = playerData[3];
-
                 Player newPlayer = new Player(playerId, x, y, color);
                 players.put(playerId, newPlayer);
                 trailColors.put(playerId, calculateTrailColor(parseColor(color)));
 
-                if (gridLabels != null) {
+                if (board != null) {
                     updatePlayerPosition(newPlayer);
                 }
             } catch (Exception e) {
@@ -655,15 +820,19 @@ public class GameGUI extends JFrame {
      *
      * @param playerId The ID of the player to remove.
      */
+    @Override
     public void removePlayer(String playerId) {
-        SwingUtilities.invokeLater(() -> {
+        runInUpdatePass(() -> {
             Player playerToRemove = players.remove(playerId);
             if (playerToRemove != null) {
                 // Clear the player's last position
                 int x = playerToRemove.getX();
                 int y = playerToRemove.getY();
-                if (x >= 0 && x < GRID_SIZE && y >= 0 && y < GRID_SIZE && gridSquares[y][x] != null) {
-                    gridSquares[y][x].clearSquare();
+                if (x >= 0 && x < gridSize && y >= 0 && y < gridSize && board != null) {
+                    board.clearCell(x, y);
+                }
+                if (board != null) {
+                    board.removeSprite(playerId);
                 }
                 trailColors.remove(playerId);
                 System.out.println("Player " + playerId + " left the game.");
@@ -683,28 +852,98 @@ public class GameGUI extends JFrame {
      * @param newX The new X-coordinate of the player.
      * @param newY The new Y-coordinate of the player.
      */
+    @Override
     public void onMoveConfirmed(String playerId, int newX, int newY) {
-        SwingUtilities.invokeLater(() -> {
-            Player player = players.get(playerId);
-            if (player == null) return;
+        queueUpdate(new PendingUpdate(playerId, newX, newY, null));
+    }
 
-            int oldX = player.getX();
-            int oldY = player.getY();
+    /**
+     * Applies a MOVE_CONFIRMED update.
+     */
+    private void applyMoveConfirmed(PendingUpdate update) {
+        Player player = players.get(update.playerId);
+        if (player == null) return;
 
-            if (!gridSquares[newY][newX].tryLock(player)) {
-                return;
-            }
+        int oldX = player.getX();
+        int oldY = player.getY();
 
-            player.setX(newX);
-            player.setY(newY);
+        if (!gridSquares[update.y][update.x].tryLock(player)) {
+            return;
+        }
 
-            if (gridSquares[oldY][oldX] != null) {
-                gridSquares[oldY][oldX].releaseLock();
-            }
+        player.setX(update.x);
+        player.setY(update.y);
+
+        if (gridSquares[oldY][oldX] != null) {
+            gridSquares[oldY][oldX].releaseLock();
+        }
 
-            updateTrail(oldX, oldY, playerId);
+        updateTrail(oldX, oldY, update.playerId);
+        if (!update.superseded) {
             updatePlayerPosition(player);
-        });
+        } else if (board != null) {
+            board.setCellColor(update.x, update.y, parseColor(player.getColor()));
+        }
+    }
+
+    /**
+     * Queues an action to run on the EDT in the next update pass, in order with every
+     * other update received from the server. Safe to call from any thread.
+     *
+     * @param action The action to run.
+     */
+    void runInUpdatePass(Runnable action) {
+        queueUpdate(new PendingUpdate(action));
+    }
+
+    /**
+     * Adds an update to the staging queue and schedules an update pass unless one is
+     * already pending, so a burst of messages costs a single EDT event.
+     */
+    private void queueUpdate(PendingUpdate update) {
+        pendingUpdates.add(update);
+        if (updatePassScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::runUpdatePass);
+        }
+    }
+
+    /**
+     * Applies every queued update in arrival order. Runs on the EDT.
+     */
+    private void runUpdatePass() {
+        updatePassScheduled.set(false); // Updates queued from now on schedule a new pass
+        PendingUpdate update;
+        while ((update = pendingUpdates.poll()) != null) {
+            updateBatch.add(update);
+        }
+
+        // Walk backwards marking moves that a later move of the same player supersedes.
+        // Any other update is a barrier, so moves are never collapsed across it.
+        Set<String> movedLater = new HashSet<>();
+        for (int i = updateBatch.size() - 1; i >= 0; i--) {
+            PendingUpdate pending = updateBatch.get(i);
+            if (pending.action != null) {
+                movedLater.clear();
+            } else if (!movedLater.add(pending.playerId)) {
+                pending.superseded = true;
+            }
+        }
+
+        for (PendingUpdate pending : updateBatch) {
+            try {
+                if (pending.action != null) {
+                    pending.action.run();
+                } else if (pending.color != null) {
+                    applyPlayerMoved(pending);
+                } else {
+                    applyMoveConfirmed(pending);
+                }
+            } catch (Exception e) {
+                System.err.println("Error applying update:");
+                e.printStackTrace();
+            }
+        }
+        updateBatch.clear();
     }
 
     /**
@@ -714,27 +953,21 @@ public class GameGUI extends JFrame {
      * @param winnerScore The score of the winning player.
      * @param allScores A string containing all players' scores.
      */
+    @Override
     public void showGameOver(String winnerId, int winnerScore, String allScores) {
-        SwingUtilities.invokeLater(() -> {
+        runInUpdatePass(() -> {
             try {
-                gameOverPanel = new JLabel(new ImageIcon("../../resources/images/game_over.png"));
+                gameOverPanel = new JLabel(assets.getIcon(AssetManager.GAME_OVER));
                 gameOverPanel.setBounds(130, 45, 730,830);
                 layeredPane.add(gameOverPanel, JLayeredPane.POPUP_LAYER);
                 
-                JLabel winnerText = null;
-                switch(winnerId){
-                    case "P1":
-                        winnerText = new JLabel(new ImageIcon("../../resources/images/p1_win.png"));
-                        break;
-                    case "P2":
-                        winnerText = new JLabel(new ImageIcon("../../resources/images/p2_win.png"));
-                        break;
-                    case "P3":
-                        winnerText = new JLabel(new ImageIcon("../../resources/images/p3_win.png"));
-                        break;
-                    case "P4":
-                        winnerText = new JLabel(new ImageIcon("../../resources/images/p4_win.png"));
-                        break;
+                JLabel winnerText = new JLabel(assets.getWinnerIcon(winnerId));
+                if (winnerText.getIcon().getIconWidth() <= 0) {
+                    // Only the first players have a drawn banner; name everyone else in their color
+                    Player winner = players.get(winnerId);
+                    winnerText = new JLabel(winnerId + " WINS!", SwingConstants.CENTER);
+                    winnerText.setFont(fontInkyThinPixelsLarge.deriveFont(96f));
+                    winnerText.setForeground(winner != null ? parseColor(winner.getColor()) : Color.WHITE);
                 }
 
                 winnerText.setBounds(280, 300, 450, 130);
@@ -772,11 +1005,43 @@ public class GameGUI extends JFrame {
         });
     }
 
+    @Override
+    public void onPlayerAssigned(String playerId, int x, int y, String color, int gridSize) {
+        runInUpdatePass(() -> setLocalPlayer(playerId, x, y, color, gridSize));
+    }
+
+    @Override
+    public void onGameStarted() {
+        runInUpdatePass(this::startGame);
+    }
+
+    @Override
+    public void onMoveRejected() {
+        System.err.println("Invalid move detected");
+    }
+
+    /**
+     * Tells the player the connection is gone and closes the application.
+     *
+     * @param reason A description of what happened.
+     */
+    @Override
+    public void onDisconnected(String reason) {
+        SwingUtilities.invokeLater(() -> {
+            JOptionPane.showMessageDialog(this,
+                    "Connection to server lost: " + reason,
+                    "Connection Error",
+                    JOptionPane.ERROR_MESSAGE);
+        });
+        System.exit(1);
+    }
+
     /**
      * Sets the client instance to interact with the server.
      *
      * @param client The GameClient instance to set.
      */
+    @Override
     public void setClient(GameClient client) {
         this.client = client;
     }
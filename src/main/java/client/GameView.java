@@ -0,0 +1,92 @@
+package main.java.client;
+
+/**
+ * Receives the game events that {@link GameClient} decodes from the server.
+ *
+ * {@link GameGUI} shows them on screen; headless clients such as the bots keep their own
+ * model of the board instead. All methods are called on the client's network thread,
+ * so implementations hand work over to their own threads as needed.
+ */
+public interface GameView {
+
+    /**
+     * Called once the client is connected, so the view can send commands.
+     *
+     * @param client The connected client
+     */
+    void setClient(GameClient client);
+
+    /**
+     * The server assigned this client its player.
+     *
+     * @param playerId The player's ID
+     * @param x The starting X-coordinate
+     * @param y The starting Y-coordinate
+     * @param color The player's color
+     * @param gridSize The width and height of the server's grid
+     */
+    void onPlayerAssigned(String playerId, int x, int y, String color, int gridSize);
+
+    /**
+     * @param message The lobby state: "playerId,READY|NOT READY;..."
+     */
+    void updateLobby(String message);
+
+    /**
+     * @param seconds The seconds left until the game starts
+     */
+    void updateCountdown(int seconds);
+
+    void abortCountdown();
+
+    void onGameStarted();
+
+    /**
+     * Another player joined.
+     *
+     * @param playerId The player's ID
+     * @param x The starting X-coordinate
+     * @param y The starting Y-coordinate
+     * @param color The player's color
+     */
+    void addPlayer(String playerId, int x, int y, String color);
+
+    /**
+     * A player moved.
+     *
+     * @param playerId The player's ID
+     * @param x The new X-coordinate
+     * @param y The new Y-coordinate
+     * @param color The player's color
+     */
+    void updateMaze(String playerId, int x, int y, String color);
+
+    /**
+     * @param playerId The ID of the player who left
+     */
+    void removePlayer(String playerId);
+
+    /**
+     * A move of this client's player was accepted.
+     */
+    void onMoveConfirmed(String playerId, int newX, int newY);
+
+    /**
+     * The last move of this client's player was rejected.
+     */
+    void onMoveRejected();
+
+    /**
+     * @param winnerId The winner's ID
+     * @param winnerScore The winner's tile count
+     * @param allScores Every player's score: "playerId:score;..."
+     */
+    void showGameOver(String winnerId, int winnerScore, String allScores);
+
+    /**
+     * The connection to the server was lost for good.
+     *
+     * @param reason A description of what happened
+     */
+    void onDisconnected(String reason);
+}
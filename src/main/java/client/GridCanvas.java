@@ -0,0 +1,282 @@
+package main.java.client;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Single component that paints the whole game board: the color of every cell, the grid
+ * lines and the player sprites.
+ *
+ * The board is kept as plain arrays and each change repaints only the rectangle of the
+ * cell it touched; when Swing asks for a repaint, only the cells inside the clip are
+ * drawn. This keeps large boards cheap where one component per cell would not be.
+ *
+ * Sprites can glide between cells instead of jumping: each glide lasts as long as the
+ * time since that sprite's previous update, so remote players move smoothly at the rate
+ * the server reports them. Glides are driven by the shared {@link AnimationClock}.
+ *
+ * All methods must be called on the Event Dispatch Thread.
+ */
+public class GridCanvas extends JComponent {
+    private static final int MIN_LINE_CELL_SIZE = 6; // Below this many pixels, grid lines are skipped
+    private static final long MIN_GLIDE_NANOS = 50_000_000L;
+    private static final long MAX_GLIDE_NANOS = 150_000_000L;
+
+    /**
+     * A player sprite and its (possibly fractional) position in cells.
+     */
+    private static class Sprite {
+        Image image;
+        double x, y;          // Where the sprite is drawn
+        double fromX, fromY;  // Start of the current glide
+        int toX, toY;         // Cell the sprite is heading to
+        long glideStart;      // System.nanoTime() when the glide started
+        long glideNanos;      // Length of the glide
+        long lastUpdate;      // System.nanoTime() of the previous position update
+    }
+
+    private final int size;
+    private final Color[] cellColors;  // Background of each cell, indexed y * size + x, null if unclaimed
+    private final Map<String, Sprite> sprites = new LinkedHashMap<>(); // Player ID -> sprite
+    private final List<Sprite> gliding = new ArrayList<>();
+    private final AnimationClock clock;
+
+    /**
+     * Creates an empty board.
+     *
+     * @param size the width and height of the board in cells
+     * @param clock the clock that drives sprite glides
+     */
+    public GridCanvas(int size, AnimationClock clock) {
+        this.size = size;
+        this.cellColors = new Color[size * size];
+        this.clock = clock;
+        setOpaque(true);
+        setBackground(UIManager.getColor("Panel.background"));
+    }
+
+    public int getGridSize() { return size; }
+
+    /**
+     * Sets the background color of a cell.
+     *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @param color the new color, or null for an unclaimed cell
+     */
+    public void setCellColor(int x, int y, Color color) {
+        int index = y * size + x;
+        if (!Objects.equals(cellColors[index], color)) {
+            cellColors[index] = color;
+            repaintCell(x, y);
+        }
+    }
+
+    /**
+     * Places a player's sprite on a cell.
+     *
+     * @param playerId the player the sprite belongs to
+     * @param image the sprite image, or null to draw nothing
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @param glide true to glide from the previous position, false to jump there
+     */
+    public void placeSprite(String playerId, Image image, int x, int y, boolean glide) {
+        long now = System.nanoTime();
+        Sprite sprite = sprites.get(playerId);
+        if (sprite == null) {
+            sprite = new Sprite();
+            sprite.x = x;
+            sprite.y = y;
+            sprite.toX = x;
+            sprite.toY = y;
+            sprites.put(playerId, sprite);
+            glide = false;
+        }
+        repaintSprite(sprite);
+        sprite.image = image;
+
+        if (glide && (x != sprite.toX || y != sprite.toY)) {
+            sprite.fromX = sprite.x;
+            sprite.fromY = sprite.y;
+            sprite.glideStart = now;
+            sprite.glideNanos = Math.max(MIN_GLIDE_NANOS, Math.min(MAX_GLIDE_NANOS, now - sprite.lastUpdate));
+            if (!gliding.contains(sprite)) {
+                gliding.add(sprite);
+            }
+            if (gliding.size() == 1) {
+                clock.start(this::stepGlides);
+            }
+        } else if (!glide) {
+            gliding.remove(sprite);
+            sprite.x = x;
+            sprite.y = y;
+        }
+        sprite.toX = x;
+        sprite.toY = y;
+        sprite.lastUpdate = now;
+        repaintSprite(sprite);
+    }
+
+    /**
+     * Removes a player's sprite from the board.
+     */
+    public void removeSprite(String playerId) {
+        Sprite sprite = sprites.remove(playerId);
+        if (sprite != null) {
+            gliding.remove(sprite);
+            repaintSprite(sprite);
+        }
+    }
+
+    /**
+     * Removes the sprites of every player not in the given set.
+     */
+    public void retainSprites(Set<String> playerIds) {
+        for (String playerId : new ArrayList<>(sprites.keySet())) {
+            if (!playerIds.contains(playerId)) {
+                removeSprite(playerId);
+            }
+        }
+    }
+
+    /**
+     * Removes the color of a cell.
+     */
+    public void clearCell(int x, int y) {
+        setCellColor(x, y, null);
+    }
+
+    /**
+     * Removes the color of every cell and every sprite.
+     */
+    public void clearAll() {
+        Arrays.fill(cellColors, null);
+        sprites.clear();
+        gliding.clear();
+        repaint();
+    }
+
+    /**
+     * Moves every gliding sprite to where it should be at the given time. Runs once per
+     * frame while any sprite is gliding.
+     *
+     * @return true while some sprite is still gliding
+     */
+    private boolean stepGlides(long now) {
+        for (int i = gliding.size() - 1; i >= 0; i--) {
+            Sprite sprite = gliding.get(i);
+            repaintSprite(sprite);
+            double progress = (now - sprite.glideStart) / (double) sprite.glideNanos;
+            if (progress >= 1) {
+                sprite.x = sprite.toX;
+                sprite.y = sprite.toY;
+                gliding.remove(i);
+            } else {
+                sprite.x = sprite.fromX + (sprite.toX - sprite.fromX) * progress;
+                sprite.y = sprite.fromY + (sprite.toY - sprite.fromY) * progress;
+            }
+            repaintSprite(sprite);
+        }
+        return !gliding.isEmpty();
+    }
+
+    /**
+     * Left edge of a column in pixels. Cells are spread evenly over the component so the
+     * board always fills it exactly, even when the size does not divide the width.
+     */
+    private int cellLeft(int column) {
+        return column * getWidth() / size;
+    }
+
+    private int cellTop(int row) {
+        return row * getHeight() / size;
+    }
+
+    private void repaintCell(int x, int y) {
+        int left = cellLeft(x);
+        int top = cellTop(y);
+        repaint(left, top, cellLeft(x + 1) - left, cellTop(y + 1) - top);
+    }
+
+    /**
+     * Area covered by a sprite at its current, possibly fractional, position.
+     */
+    private Rectangle spriteBounds(Sprite sprite) {
+        int left = (int) Math.floor(sprite.x * getWidth() / size);
+        int top = (int) Math.floor(sprite.y * getHeight() / size);
+        return new Rectangle(left, top, getWidth() / size + 2, getHeight() / size + 2);
+    }
+
+    private void repaintSprite(Sprite sprite) {
+        repaint(spriteBounds(sprite));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int width = Math.max(1, getWidth());
+        int height = Math.max(1, getHeight());
+
+        // Only the cells that intersect the clip are painted
+        int firstColumn = Math.max(0, clip.x * size / width);
+        int lastColumn = Math.min(size - 1, (clip.x + clip.width) * size / width);
+        int firstRow = Math.max(0, clip.y * size / height);
+        int lastRow = Math.min(size - 1, (clip.y + clip.height) * size / height);
+        boolean drawLines = width / size >= MIN_LINE_CELL_SIZE;
+
+        for (int y = firstRow; y <= lastRow; y++) {
+            int top = cellTop(y);
+            int cellHeight = cellTop(y + 1) - top;
+            for (int x = firstColumn; x <= lastColumn; x++) {
+                int left = cellLeft(x);
+                int cellWidth = cellLeft(x + 1) - left;
+                int index = y * size + x;
+
+                Color color = cellColors[index];
+                g.setColor(color != null ? color : getBackground());
+                g.fillRect(left, top, cellWidth, cellHeight);
+
+                if (drawLines) {
+                    g.setColor(Color.BLACK);
+                    g.drawRect(left, top, cellWidth - 1, cellHeight - 1);
+                }
+            }
+        }
+
+        // Sprites go on top, as they can sit between cells while gliding
+        for (Sprite sprite : sprites.values()) {
+            Rectangle bounds = spriteBounds(sprite);
+            if (sprite.image != null && bounds.intersects(clip)) {
+                drawSprite(g, sprite.image, bounds.x, bounds.y, width / size, height / size);
+            }
+        }
+    }
+
+    /**
+     * Draws a sprite centered in a cell, at its natural size if it fits and scaled down
+     * (keeping its proportions) otherwise.
+     */
+    private void drawSprite(Graphics g, Image sprite, int left, int top, int cellWidth, int cellHeight) {
+        int spriteWidth = sprite.getWidth(this);
+        int spriteHeight = sprite.getHeight(this);
+        if (spriteWidth <= 0 || spriteHeight <= 0) {
+            return; // Not loaded (yet)
+        }
+        double scale = Math.min(1.0, Math.min(cellWidth / (double) spriteWidth, cellHeight / (double) spriteHeight));
+        int drawWidth = (int) (spriteWidth * scale);
+        int drawHeight = (int) (spriteHeight * scale);
+        g.drawImage(sprite, left + (cellWidth - drawWidth) / 2, top + (cellHeight - drawHeight) / 2,
+                drawWidth, drawHeight, this);
+    }
+}
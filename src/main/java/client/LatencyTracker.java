@@ -0,0 +1,86 @@
+package main.java.client;
+
+import main.java.metrics.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures this client's move latency and splits it into server time and network time.
+ *
+ * Every MOVE carries a stamp of when it was sent. The server echoes the stamp with the
+ * time it spent on the move (from reading it to replying), so the round trip minus the
+ * server time is what the network took. Other players' moves arrive with the time the
+ * server held them; adding our own round trip (their half on the way in, ours on the way
+ * out, assuming both are alike) estimates how late we see each of them.
+ *
+ * All values are kept in microseconds. Methods are called from the network thread and
+ * read from the GUI, so everything is thread-safe.
+ */
+public class LatencyTracker {
+    private final LatencyHistogram roundTrip = new LatencyHistogram();
+    private final LatencyHistogram server = new LatencyHistogram();
+    private final LatencyHistogram network = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> observed = new ConcurrentHashMap<>();
+    private volatile long lastRoundTrip = -1;
+
+    /**
+     * @return the stamp to send with a move: this client's clock in microseconds
+     */
+    public long stamp() {
+        return System.nanoTime() / 1000;
+    }
+
+    /**
+     * @return the round trip of the last answered move, or -1 before the first answer
+     */
+    public long getLastRoundTripMicros() {
+        return lastRoundTrip;
+    }
+
+    /**
+     * Records the server's answer to one of our moves.
+     *
+     * @param stamp the stamp the move was sent with
+     * @param serverMicros the time the server spent on the move
+     */
+    public void recordReply(long stamp, long serverMicros) {
+        long rtt = stamp() - stamp;
+        lastRoundTrip = rtt;
+        roundTrip.record(rtt);
+        server.record(serverMicros);
+        network.record(Math.max(0, rtt - serverMicros));
+    }
+
+    /**
+     * Records another player's move as we received it.
+     *
+     * @param playerId the player who moved
+     * @param serverMicros the time the server held the move before broadcasting it
+     */
+    public void recordRemoteMove(String playerId, long serverMicros) {
+        if (lastRoundTrip < 0) return; // No network estimate yet
+        observed.computeIfAbsent(playerId, id -> new LatencyHistogram()).record(serverMicros + lastRoundTrip);
+    }
+
+    /**
+     * @return the overlay text: our round trip, its server and network shares, and how
+     *         late we see each other player, as median / 95th percentile in milliseconds
+     */
+    public String summary() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("RTT     %s%n", format(roundTrip)));
+        text.append(String.format(" server %s%n", format(server)));
+        text.append(String.format(" net    %s%n", format(network)));
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(observed).entrySet()) {
+            text.append(String.format("%-7s %s%n", entry.getKey(), format(entry.getValue())));
+        }
+        return text.toString();
+    }
+
+    private static String format(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) return "-";
+        return String.format("%6.1f / %6.1f ms", histogram.getPercentile(50) / 1000.0, histogram.getPercentile(95) / 1000.0);
+    }
+}
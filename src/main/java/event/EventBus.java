@@ -0,0 +1,311 @@
+package main.java.event;
+
+import main.java.model.Player;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The typed events of one room, delivered to in-process consumers such as analytics.
+ *
+ * Game threads publish with one method per event type, e.g. {@link #move}, usually while
+ * holding the room's monitor, so events are published in the order they happened. The
+ * subscriber list is copy-on-write: publishing never locks, and subscribing is rare.
+ *
+ * Every subscriber has its own bounded queue, drained on a shared executor by at most one
+ * thread at a time, so a subscriber sees its events one by one and in order, and a slow
+ * subscriber only holds up itself. A subscriber that falls a whole queue behind misses
+ * events rather than stalling the game threads.
+ *
+ * Events come from a pool and go back to it once every subscriber has handled them, so
+ * publishing allocates nothing once the pool is warm. An event nobody subscribed to is
+ * not even taken from the pool.
+ */
+public class EventBus {
+    private static final int QUEUE_CAPACITY = 4096; // Events a subscriber may fall behind by
+    private static final int MAX_BATCH = 256;       // Events delivered per run, so subscribers share the threads
+    private static final int POOL_CAPACITY = 1024;  // Free events kept for reuse
+    private static final int PREALLOCATED = 64;
+
+    private final String room;
+    private final Executor executor;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final GameEvent[] pool = new GameEvent[POOL_CAPACITY]; // Guarded by itself
+    private int pooled;
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param room the name of the room, stamped on its events
+     * @param executor runs the deliveries to subscribers
+     */
+    public EventBus(String room, Executor executor) {
+        this.room = room;
+        this.executor = executor;
+        for (int i = 0; i < PREALLOCATED; i++) {
+            pool[pooled++] = new GameEvent();
+        }
+    }
+
+    /**
+     * Subscribes to some of the room's events.
+     *
+     * @param listener receives the events
+     * @param types the event types to receive
+     * @return the subscription, to cancel it with
+     */
+    public Subscription subscribe(GameEventListener listener, Set<GameEvent.Type> types) {
+        Subscription subscription = new Subscription(listener, EnumSet.copyOf(types));
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Publishes ROOM_CLOSED and lets go of every subscriber. Events already queued are
+     * still delivered.
+     */
+    public void close() {
+        GameEvent event = obtain(GameEvent.Type.ROOM_CLOSED);
+        if (event != null) {
+            publish(event);
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * @return the events subscribers missed because their queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // ----- One publishing method for each event type -----
+
+    public void join(Player player) {
+        GameEvent event = obtain(GameEvent.Type.JOINED);
+        if (event != null) {
+            event.playerId = player.getId();
+            event.x = player.getX();
+            event.y = player.getY();
+            event.text = player.getColor();
+            publish(event);
+        }
+    }
+
+    public void leave(String playerId) {
+        GameEvent event = obtain(GameEvent.Type.LEFT);
+        if (event != null) {
+            event.playerId = playerId;
+            publish(event);
+        }
+    }
+
+    public void move(String playerId, int fromX, int fromY, int toX, int toY) {
+        publishMove(GameEvent.Type.MOVED, playerId, fromX, fromY, toX, toY);
+    }
+
+    public void reject(String playerId, int fromX, int fromY, int toX, int toY) {
+        publishMove(GameEvent.Type.MOVE_REJECTED, playerId, fromX, fromY, toX, toY);
+    }
+
+    public void claim(String playerId, int x, int y) {
+        publishSquare(GameEvent.Type.CLAIMED, playerId, x, y);
+    }
+
+    public void release(String playerId, int x, int y) {
+        publishSquare(GameEvent.Type.RELEASED, playerId, x, y);
+    }
+
+    public void lobbyChanged(String playerId, boolean ready) {
+        GameEvent event = obtain(GameEvent.Type.LOBBY_CHANGED);
+        if (event != null) {
+            event.playerId = playerId;
+            event.ready = ready;
+            publish(event);
+        }
+    }
+
+    public void gameStarted(int durationSeconds) {
+        GameEvent event = obtain(GameEvent.Type.GAME_STARTED);
+        if (event != null) {
+            event.value = durationSeconds;
+            publish(event);
+        }
+    }
+
+    public void gameOver(String winnerId, int winnerScore, String scores) {
+        GameEvent event = obtain(GameEvent.Type.GAME_OVER);
+        if (event != null) {
+            event.playerId = winnerId;
+            event.value = winnerScore;
+            event.text = scores;
+            publish(event);
+        }
+    }
+
+    private void publishMove(GameEvent.Type type, String playerId, int fromX, int fromY, int toX, int toY) {
+        GameEvent event = obtain(type);
+        if (event != null) {
+            event.playerId = playerId;
+            event.x = fromX;
+            event.y = fromY;
+            event.toX = toX;
+            event.toY = toY;
+            publish(event);
+        }
+    }
+
+    private void publishSquare(GameEvent.Type type, String playerId, int x, int y) {
+        GameEvent event = obtain(type);
+        if (event != null) {
+            event.playerId = playerId;
+            event.x = x;
+            event.y = y;
+            publish(event);
+        }
+    }
+
+    /**
+     * Takes an event from the pool, or creates one if the pool is empty.
+     *
+     * @return the event, or null if no subscriber wants events of this type
+     */
+    private GameEvent obtain(GameEvent.Type type) {
+        if (!isWanted(type)) {
+            return null;
+        }
+        GameEvent event = null;
+        synchronized (pool) {
+            if (pooled > 0) {
+                event = pool[--pooled];
+                pool[pooled] = null;
+            }
+        }
+        if (event == null) {
+            event = new GameEvent();
+        }
+        event.type = type;
+        event.room = room;
+        event.timestamp = System.currentTimeMillis();
+        return event;
+    }
+
+    private boolean isWanted(GameEvent.Type type) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.types.contains(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queues the event for every subscriber that wants it.
+     */
+    private void publish(GameEvent event) {
+        // Held while handing the event out, so a subscriber done with it already cannot recycle it
+        event.retain();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.types.contains(event.type)) {
+                event.retain();
+                subscription.offer(event);
+            }
+        }
+        release(event);
+    }
+
+    private void release(GameEvent event) {
+        if (!event.release()) {
+            return;
+        }
+        event.clear();
+        synchronized (pool) {
+            if (pooled < POOL_CAPACITY) {
+                pool[pooled++] = event;
+            }
+        }
+    }
+
+    /**
+     * A subscriber with its queue of events still to be delivered.
+     */
+    public final class Subscription implements Runnable {
+        private final GameEventListener listener;
+        private final Set<GameEvent.Type> types;
+        private final BlockingQueue<GameEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean scheduled = new AtomicBoolean(); // A delivery run is queued or running
+        private volatile boolean cancelled = false;
+        private boolean warned = false;
+
+        private Subscription(GameEventListener listener, Set<GameEvent.Type> types) {
+            this.listener = listener;
+            this.types = types;
+        }
+
+        /**
+         * Stops deliveries. Events already queued are dropped.
+         */
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        private void offer(GameEvent event) {
+            if (!queue.offer(event)) {
+                dropped.incrementAndGet();
+                if (!warned) {
+                    warned = true;
+                    System.err.println("WARNING: An event subscriber of " + room + " fell behind; dropping events.");
+                }
+                release(event);
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false); // Shutting down
+                }
+            }
+        }
+
+        /**
+         * Delivers a batch of queued events.
+         */
+        @Override
+        public void run() {
+            for (int i = 0; i < MAX_BATCH; i++) {
+                GameEvent event = queue.poll();
+                if (event == null) {
+                    break;
+                }
+                try {
+                    if (!cancelled) {
+                        listener.onEvent(event);
+                    }
+                } catch (Throwable t) {
+                    System.err.println("Event subscriber of " + room + " failed: " + t);
+                    t.printStackTrace();
+                } finally {
+                    release(event);
+                }
+            }
+            scheduled.set(false);
+            // Events queued after the last poll, or left over from a full batch
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package main.java.event;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Something that happened in a room, as handed to the subscribers of its {@link EventBus}.
+ *
+ * Like a journal record, every event has the same flat set of fields and each type only
+ * uses the ones relevant to it (e.g. a CLAIMED event uses playerId, x and y).
+ *
+ * Events are pooled: the bus hands the same object to every subscriber and reuses it once
+ * the last of them is done with it. A subscriber must copy what it needs and must not keep
+ * the event after {@link GameEventListener#onEvent} returns.
+ */
+public final class GameEvent {
+    public enum Type {
+        JOINED,         // playerId, x, y, text: color
+        LEFT,           // playerId
+        MOVED,          // playerId, from x, y to toX, toY
+        MOVE_REJECTED,  // playerId, from x, y, the refused toX, toY
+        CLAIMED,        // playerId, x, y
+        RELEASED,       // playerId, x, y
+        LOBBY_CHANGED,  // playerId, ready
+        GAME_STARTED,   // value: game duration in seconds
+        GAME_OVER,      // playerId: winner, value: winning score, text: score table
+        ROOM_CLOSED     // The last event of a room
+    }
+
+    private static final AtomicIntegerFieldUpdater<GameEvent> REFERENCES =
+            AtomicIntegerFieldUpdater.newUpdater(GameEvent.class, "references");
+
+    public Type type;
+    public String room;     // The room it happened in
+    public long timestamp;  // Wall clock time (ms) at which it happened
+    public String playerId;
+    public int x, y;        // Position (JOINED, CLAIMED, RELEASED) or origin of a move
+    public int toX, toY;    // Destination of a move
+    public boolean ready;   // LOBBY_CHANGED
+    public int value;       // Game duration or winning score
+    public String text;     // Player color (JOINED) or score table (GAME_OVER)
+
+    private volatile int references; // Subscribers that have not handled the event yet
+
+    GameEvent() {
+    }
+
+    void retain() {
+        REFERENCES.incrementAndGet(this);
+    }
+
+    /**
+     * @return whether this was the last reference, so the event can be reused
+     */
+    boolean release() {
+        return REFERENCES.decrementAndGet(this) == 0;
+    }
+
+    /**
+     * Forgets the previous use, so a pooled event keeps no strings alive.
+     */
+    void clear() {
+        playerId = null;
+        text = null;
+        x = y = toX = toY = value = 0;
+        ready = false;
+    }
+}
@@ -0,0 +1,16 @@
+package main.java.event;
+
+/**
+ * Receives the events of a room it subscribed to on the room's {@link EventBus}.
+ */
+@FunctionalInterface
+public interface GameEventListener {
+
+    /**
+     * Called for each event of the types subscribed to, one at a time and in the order
+     * they happened, on one of the bus's delivery threads.
+     *
+     * @param event the event; only valid until this method returns
+     */
+    void onEvent(GameEvent event);
+}
@@ -0,0 +1,29 @@
+package main.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One message sent to every connected client. The duration covers all the writes.
+ */
+@Name("onigiri.Broadcast")
+@Label("Broadcast")
+@Category({"Onigiri", "Server"})
+@Description("A message broadcast to all clients")
+@StackTrace(false) // Recorded for every broadcast; the message type tells the callers apart
+public class BroadcastEvent extends jdk.jfr.Event {
+    @Label("Message Type")
+    public String messageType;
+
+    @Label("Recipients")
+    public int recipients;
+
+    @Label("Bytes")
+    @Description("Bytes written across all recipients")
+    @DataAmount
+    public long bytes;
+}
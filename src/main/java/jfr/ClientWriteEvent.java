@@ -0,0 +1,29 @@
+package main.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A slow write of one message to one client, e.g. because the client stopped reading
+ * and its socket buffer is full. Only writes above the threshold are recorded.
+ */
+@Name("onigiri.ClientWrite")
+@Label("Client Write")
+@Category({"Onigiri", "Server"})
+@Description("A slow write of a message to one client")
+@Threshold("1 ms")
+public class ClientWriteEvent extends jdk.jfr.Event {
+    @Label("Player")
+    public String playerId;
+
+    @Label("Message Type")
+    public String messageType;
+
+    @Label("Bytes")
+    @DataAmount
+    public int bytes;
+}
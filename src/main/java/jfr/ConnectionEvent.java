@@ -0,0 +1,25 @@
+package main.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A client connecting to or disconnecting from the server.
+ */
+@Name("onigiri.Connection")
+@Label("Client Connection")
+@Category({"Onigiri", "Server"})
+@Description("A client connected or disconnected")
+public class ConnectionEvent extends jdk.jfr.Event {
+    @Label("Connected")
+    @Description("True for a new connection, false for a disconnection")
+    public boolean connected;
+
+    @Label("Remote Address")
+    public String remoteAddress;
+
+    @Label("Player")
+    public String playerId;
+}
@@ -0,0 +1,30 @@
+package main.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A step in the life of a match: the countdown (its duration is the countdown itself),
+ * the game start, and determineWinner() (its duration is the scoring).
+ */
+@Name("onigiri.MatchPhase")
+@Label("Match Phase")
+@Category({"Onigiri", "Match"})
+@Description("Countdown, game start and game end")
+public class MatchPhaseEvent extends jdk.jfr.Event {
+    public static final String COUNTDOWN = "COUNTDOWN";
+    public static final String COUNTDOWN_ABORTED = "COUNTDOWN_ABORTED";
+    public static final String STARTED = "STARTED";
+    public static final String FINISHED = "FINISHED";
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Players")
+    public int players;
+
+    @Label("Winner")
+    public String winnerId;
+}
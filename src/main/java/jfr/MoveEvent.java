@@ -0,0 +1,48 @@
+package main.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One move handled by GameServer.movePlayer(). The event's duration is the whole call;
+ * the two wait fields show how much of it was spent waiting for the server's monitor and
+ * for the target square's lock.
+ */
+@Name("onigiri.Move")
+@Label("Move")
+@Category({"Onigiri", "Server"})
+@Description("A move request handled by the game server")
+@StackTrace(false) // Recorded for every move; the call site never varies
+public class MoveEvent extends jdk.jfr.Event {
+    @Label("Player")
+    public String playerId;
+
+    @Label("From X")
+    public int fromX;
+
+    @Label("From Y")
+    public int fromY;
+
+    @Label("To X")
+    public int toX;
+
+    @Label("To Y")
+    public int toY;
+
+    @Label("Accepted")
+    public boolean accepted;
+
+    @Label("Monitor Wait")
+    @Description("Time spent waiting to enter the synchronized move handling")
+    @Timespan(Timespan.NANOSECONDS)
+    public long monitorWait;
+
+    @Label("Lock Wait")
+    @Description("Time spent in Square.tryLock() on the target square")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lockWait;
+}
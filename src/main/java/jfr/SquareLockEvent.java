@@ -0,0 +1,28 @@
+package main.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A slow Square.tryLock(): the square was held by another player's thread. Only waits
+ * above the threshold are recorded, so uncontended locking costs nothing.
+ */
+@Name("onigiri.SquareLock")
+@Label("Square Lock Wait")
+@Category({"Onigiri", "Model"})
+@Description("A thread waited for the lock of a grid square")
+@Threshold("1 ms")
+public class SquareLockEvent extends jdk.jfr.Event {
+    @Label("Player")
+    public String playerId;
+
+    @Label("Holder")
+    @Description("The player who owned the square when the wait started")
+    public String holderId;
+
+    @Label("Acquired")
+    public boolean acquired;
+}
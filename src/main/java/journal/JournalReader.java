@@ -0,0 +1,81 @@
+package main.java.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the records of a match journal written by {@link MatchJournal}.
+ *
+ * Reading stops at the first record that is incomplete or fails its checksum, which is
+ * what the end of a journal looks like if the server died in the middle of a write.
+ */
+public class JournalReader {
+    private final ByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Creates a reader over the given journal bytes.
+     *
+     * @param bytes the raw contents of a journal file
+     */
+    public JournalReader(ByteBuffer bytes) {
+        this.buffer = bytes;
+    }
+
+    /**
+     * Loads every valid record of a journal file.
+     *
+     * @param file the journal file
+     * @return the records in sequence order
+     * @throws IOException if the file cannot be read
+     */
+    public static List<JournalRecord> readAll(Path file) throws IOException {
+        JournalReader reader = new JournalReader(ByteBuffer.wrap(Files.readAllBytes(file)));
+        List<JournalRecord> records = new ArrayList<>();
+        JournalRecord record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Byte offset just after the last record returned by {@link #next()}.
+     */
+    public int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the next record, or null at the end of the valid part of the journal
+     */
+    public JournalRecord next() {
+        if (buffer.remaining() < Integer.BYTES) {
+            return null;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        if (length <= 0 || buffer.remaining() < Integer.BYTES * 2 + length) {
+            return null; // Torn write at the end of the file
+        }
+
+        int bodyStart = start + Integer.BYTES;
+        crc.reset();
+        crc.update(buffer.duplicate().position(bodyStart).limit(bodyStart + length));
+        if ((int) crc.getValue() != buffer.getInt(bodyStart + length)) {
+            return null; // Corrupt record, nothing after it can be trusted
+        }
+
+        ByteBuffer body = buffer.duplicate().position(bodyStart).limit(bodyStart + length);
+        JournalRecord record = JournalRecord.decodeBody(body);
+        buffer.position(bodyStart + length + Integer.BYTES);
+        return record;
+    }
+}
@@ -0,0 +1,157 @@
+package main.java.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single entry in a match journal.
+ *
+ * Every record shares the same flat set of fields; each record type only uses the
+ * fields that are relevant to it (e.g. a CLAIM uses playerId, x and y). Keeping one
+ * record shape makes encoding, replaying and recovering matches straightforward.
+ *
+ * On disk a record is stored as: [int length][body][int crc32], where the body is
+ * [byte type][long sequence][long timestamp][type specific payload].
+ */
+public class JournalRecord {
+    // Record types
+    public static final byte JOIN = 1;
+    public static final byte READY = 2;
+    public static final byte MOVE = 3;
+    public static final byte CLAIM = 4;
+    public static final byte LEAVE = 5;
+    public static final byte GAME_STARTED = 6;
+    public static final byte GAME_OVER = 7;
+    public static final byte KEYFRAME = 8;
+    public static final byte RELEASE = 9;
+    public static final byte REJECT = 10;
+
+    public byte type;
+    public long sequence;   // Assigned by the journal writer, strictly increasing per file
+    public long timestamp;  // Wall clock time (ms) at which the event happened
+    public String playerId;
+    public int x, y;        // Position (JOIN, CLAIM, RELEASE) or origin of a MOVE
+    public int toX, toY;    // Destination of a MOVE or REJECT
+    public int value;       // READY flag, game duration or winning score
+    public String text;     // Player color (JOIN) or score table (GAME_OVER)
+    public byte[] data;     // Encoded MatchState (KEYFRAME)
+
+    /**
+     * Creates a record of the given type stamped with the current time.
+     *
+     * @param type one of the record type constants
+     */
+    public JournalRecord(byte type) {
+        this.type = type;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Writes the body of this record (without the length prefix and checksum).
+     *
+     * @param buffer the buffer to write into
+     */
+    void encodeBody(ByteBuffer buffer) {
+        buffer.put(type);
+        buffer.putLong(sequence);
+        buffer.putLong(timestamp);
+        switch (type) {
+            case JOIN -> {
+                putString(buffer, playerId);
+                buffer.putInt(x).putInt(y);
+                putString(buffer, text);
+            }
+            case READY -> {
+                putString(buffer, playerId);
+                buffer.putInt(value);
+            }
+            case MOVE, REJECT -> {
+                putString(buffer, playerId);
+                buffer.putInt(x).putInt(y).putInt(toX).putInt(toY);
+            }
+            case CLAIM, RELEASE -> {
+                putString(buffer, playerId);
+                buffer.putInt(x).putInt(y);
+            }
+            case LEAVE -> putString(buffer, playerId);
+            case GAME_STARTED -> buffer.putInt(value);
+            case GAME_OVER -> {
+                putString(buffer, playerId);
+                buffer.putInt(value);
+                putString(buffer, text);
+            }
+            case KEYFRAME -> {
+                buffer.putInt(data.length);
+                buffer.put(data);
+            }
+            default -> throw new IllegalStateException("Unknown journal record type: " + type);
+        }
+    }
+
+    /**
+     * Reads a record body previously written by {@link #encodeBody(ByteBuffer)}.
+     *
+     * @param buffer the buffer positioned at the start of the body
+     * @return the decoded record
+     */
+    static JournalRecord decodeBody(ByteBuffer buffer) {
+        JournalRecord record = new JournalRecord(buffer.get());
+        record.sequence = buffer.getLong();
+        record.timestamp = buffer.getLong();
+        switch (record.type) {
+            case JOIN -> {
+                record.playerId = getString(buffer);
+                record.x = buffer.getInt();
+                record.y = buffer.getInt();
+                record.text = getString(buffer);
+            }
+            case READY -> {
+                record.playerId = getString(buffer);
+                record.value = buffer.getInt();
+            }
+            case MOVE, REJECT -> {
+                record.playerId = getString(buffer);
+                record.x = buffer.getInt();
+                record.y = buffer.getInt();
+                record.toX = buffer.getInt();
+                record.toY = buffer.getInt();
+            }
+            case CLAIM, RELEASE -> {
+                record.playerId = getString(buffer);
+                record.x = buffer.getInt();
+                record.y = buffer.getInt();
+            }
+            case LEAVE -> record.playerId = getString(buffer);
+            case GAME_STARTED -> record.value = buffer.getInt();
+            case GAME_OVER -> {
+                record.playerId = getString(buffer);
+                record.value = buffer.getInt();
+                record.text = getString(buffer);
+            }
+            case KEYFRAME -> {
+                record.data = new byte[buffer.getInt()];
+                buffer.get(record.data);
+            }
+            default -> throw new IllegalStateException("Unknown journal record type: " + record.type);
+        }
+        return record;
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " type=" + type + " player=" + playerId
+                + " (" + x + "," + y + ")->(" + toX + "," + toY + ") value=" + value + " text=" + text;
+    }
+}
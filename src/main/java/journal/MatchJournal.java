@@ -0,0 +1,345 @@
+package main.java.journal;
+
+import main.java.model.Player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of everything that happens in a match.
+ *
+ * Game threads only enqueue records (no I/O happens on the caller's thread). A single
+ * background writer thread drains whatever has accumulated, encodes the whole batch as
+ * length-prefixed records into one buffer, writes it to a FileChannel and forces it to
+ * disk once per batch (group commit).
+ *
+ * The writer also mirrors the match in a {@link MatchState} and inserts a full KEYFRAME
+ * record every {@value #KEYFRAME_INTERVAL} records, so a replay can jump to any point
+ * without re-applying the whole match.
+ *
+ * Checkpoints requested with {@link #checkpoint(Path, int)} are handled by the same
+ * writer in journal order: it commits everything before the checkpoint and then writes a
+ * {@link MatchSnapshot} pointing just past it, so snapshot and journal always agree.
+ */
+public class MatchJournal implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_RECORD_SIZE = 16 * 1024;
+    private static final int MAX_BATCH = 1024;
+    private static final int KEYFRAME_INTERVAL = 200;
+    private static final JournalRecord CLOSE_MARKER = new JournalRecord((byte) 0);
+    private static final byte CHECKPOINT = -1; // Internal marker type, never written to the journal
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BlockingQueue<JournalRecord> pending = new LinkedBlockingQueue<>();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final Thread writer;
+    private final MatchState shadow; // Only touched by the writer thread
+    private long nextSequence = 1;   // Only touched by the writer thread
+    private int sinceKeyframe = 0;   // Only touched by the writer thread
+    private volatile boolean closed = false;
+
+    private MatchJournal(Path file, FileChannel channel, MatchState initialState) {
+        this.file = file;
+        this.channel = channel;
+        this.shadow = initialState;
+        if (channel != null) {
+            writer = new Thread(this::writeLoop, "match-journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * Opens a new journal file for a match in the given directory.
+     *
+     * @param directory the directory holding journal files (created if missing)
+     * @param gridSize the width and height of the match grid
+     * @return the opened journal
+     * @throws IOException if the directory or file cannot be created
+     */
+    public static MatchJournal open(Path directory, int gridSize) throws IOException {
+        return open(directory, new MatchState(gridSize));
+    }
+
+    /**
+     * Opens a new journal file for a match that continues from a known state, such as
+     * a match restored after a crash. The journal's first keyframe describes that state.
+     *
+     * @param directory the directory holding journal files (created if missing)
+     * @param initialState the state of the match when the journal starts
+     * @return the opened journal
+     * @throws IOException if the directory or file cannot be created
+     */
+    public static MatchJournal open(Path directory, MatchState initialState) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("match-" + System.currentTimeMillis() + ".journal");
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new MatchJournal(file, channel, initialState);
+    }
+
+    /**
+     * Opens a journal, falling back to a disabled journal (that ignores every record)
+     * if the file cannot be created. The game keeps running either way.
+     *
+     * @param directory the directory holding journal files
+     * @param initialState the state of the match when the journal starts
+     * @return an open journal, or a disabled one on failure
+     */
+    public static MatchJournal openOrDisable(Path directory, MatchState initialState) {
+        try {
+            return open(directory, initialState);
+        } catch (IOException e) {
+            System.err.println("WARNING: Unable to open match journal in " + directory + ", journaling disabled.");
+            e.printStackTrace();
+            return new MatchJournal(null, null, initialState);
+        }
+    }
+
+    public Path getFile() { return file; }
+
+    /**
+     * Queues a record to be written. Never blocks on I/O.
+     *
+     * @param record the record to append
+     */
+    public void append(JournalRecord record) {
+        if (writer != null && !closed) {
+            pending.offer(record);
+        }
+    }
+
+    // ----- Convenience methods for each event type -----
+
+    public void join(Player player) {
+        JournalRecord record = new JournalRecord(JournalRecord.JOIN);
+        record.playerId = player.getId();
+        record.x = player.getX();
+        record.y = player.getY();
+        record.text = player.getColor();
+        append(record);
+    }
+
+    public void ready(String playerId, boolean ready) {
+        JournalRecord record = new JournalRecord(JournalRecord.READY);
+        record.playerId = playerId;
+        record.value = ready ? 1 : 0;
+        append(record);
+    }
+
+    public void move(String playerId, int fromX, int fromY, int toX, int toY) {
+        JournalRecord record = new JournalRecord(JournalRecord.MOVE);
+        record.playerId = playerId;
+        record.x = fromX;
+        record.y = fromY;
+        record.toX = toX;
+        record.toY = toY;
+        append(record);
+    }
+
+    public void reject(String playerId, int fromX, int fromY, int toX, int toY) {
+        JournalRecord record = new JournalRecord(JournalRecord.REJECT);
+        record.playerId = playerId;
+        record.x = fromX;
+        record.y = fromY;
+        record.toX = toX;
+        record.toY = toY;
+        append(record);
+    }
+
+    public void claim(String playerId, int x, int y) {
+        JournalRecord record = new JournalRecord(JournalRecord.CLAIM);
+        record.playerId = playerId;
+        record.x = x;
+        record.y = y;
+        append(record);
+    }
+
+    public void release(String playerId, int x, int y) {
+        JournalRecord record = new JournalRecord(JournalRecord.RELEASE);
+        record.playerId = playerId;
+        record.x = x;
+        record.y = y;
+        append(record);
+    }
+
+    public void leave(String playerId) {
+        JournalRecord record = new JournalRecord(JournalRecord.LEAVE);
+        record.playerId = playerId;
+        append(record);
+    }
+
+    public void gameStarted(int durationSeconds) {
+        JournalRecord record = new JournalRecord(JournalRecord.GAME_STARTED);
+        record.value = durationSeconds;
+        append(record);
+    }
+
+    public void gameOver(String winnerId, int winnerScore, String scores) {
+        JournalRecord record = new JournalRecord(JournalRecord.GAME_OVER);
+        record.playerId = winnerId;
+        record.value = winnerScore;
+        record.text = scores;
+        append(record);
+    }
+
+    /**
+     * Requests a snapshot of the match as of every record appended so far. The snapshot
+     * is written by the writer thread; the caller never blocks.
+     *
+     * @param snapshotFile where to write the snapshot
+     * @param remainingMillis game time left, or -1 if the game has not started
+     */
+    public void checkpoint(Path snapshotFile, int remainingMillis) {
+        JournalRecord marker = new JournalRecord(CHECKPOINT);
+        marker.value = remainingMillis;
+        marker.text = snapshotFile.toString();
+        append(marker);
+    }
+
+    /**
+     * Writer thread: waits for at least one record, then drains and commits the batch.
+     */
+    private void writeLoop() {
+        List<JournalRecord> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            // Every journal starts with a keyframe so readers learn the grid size
+            writeKeyframe();
+
+            while (true) {
+                batch.add(pending.take());
+                pending.drainTo(batch, MAX_BATCH - 1);
+
+                boolean closeRequested = false;
+                for (JournalRecord record : batch) {
+                    if (record == CLOSE_MARKER) {
+                        closeRequested = true;
+                    } else if (record.type == CHECKPOINT) {
+                        writeSnapshot(record);
+                    } else {
+                        encode(record);
+                        shadow.apply(record);
+                        if (++sinceKeyframe >= KEYFRAME_INTERVAL) {
+                            writeKeyframe();
+                        }
+                    }
+                }
+                flush();
+                channel.force(false); // One fsync per batch
+                batch.clear();
+
+                if (closeRequested) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            // Stop accepting records, or they would pile up in the queue for the rest of the match
+            System.err.println("ERROR: Match journal write failed, journaling disabled: " + e);
+            closed = true;
+            pending.clear();
+            if (e instanceof RuntimeException) {
+                e.printStackTrace();
+            }
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Commits the journal so far and writes a snapshot that points just past it.
+     */
+    private void writeSnapshot(JournalRecord marker) throws IOException {
+        flush();
+        channel.force(false);
+        MatchSnapshot snapshot = new MatchSnapshot(file.getFileName().toString(), channel.size(),
+                marker.timestamp, marker.value, shadow.getLastSequence(), shadow.encodeKeyframe());
+        try {
+            snapshot.write(Path.of(marker.text));
+        } catch (IOException e) {
+            System.err.println("WARNING: Unable to write match snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a KEYFRAME record describing the current shadow state.
+     */
+    private void writeKeyframe() throws IOException {
+        JournalRecord keyframe = new JournalRecord(JournalRecord.KEYFRAME);
+        keyframe.data = shadow.encodeKeyframe();
+        sinceKeyframe = 0;
+        if (keyframe.data.length + MAX_RECORD_SIZE > BUFFER_SIZE) {
+            return; // Board too large to keyframe; replays fall back to applying events
+        }
+        encode(keyframe);
+    }
+
+    /**
+     * Encodes a single record as [length][body][crc32] into the batch buffer.
+     */
+    private void encode(JournalRecord record) throws IOException {
+        int needed = MAX_RECORD_SIZE + (record.data != null ? record.data.length : 0);
+        if (buffer.remaining() < needed) {
+            flush();
+        }
+        record.sequence = nextSequence++;
+
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES); // Reserve space for the length prefix
+        int bodyStart = buffer.position();
+        record.encodeBody(buffer);
+        int bodyLength = buffer.position() - bodyStart;
+
+        crc.reset();
+        crc.update(buffer.duplicate().position(bodyStart).limit(bodyStart + bodyLength));
+        buffer.putInt((int) crc.getValue());
+        buffer.putInt(start, bodyLength);
+    }
+
+    /**
+     * Writes the contents of the batch buffer to the channel.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes every queued record, commits it and closes the journal file.
+     */
+    @Override
+    public void close() {
+        if (writer == null || closed) {
+            return;
+        }
+        closed = true;
+        pending.offer(CLOSE_MARKER);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
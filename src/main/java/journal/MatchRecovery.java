@@ -0,0 +1,81 @@
+package main.java.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Restores an interrupted match from its latest snapshot and the journal records that
+ * were written after it.
+ *
+ * Only the journal tail past the snapshot's offset is read, so recovery time depends on
+ * the size of the board and the checkpoint interval, not on how long the match ran.
+ */
+public class MatchRecovery {
+    private final MatchState state;
+    private final int remainingMillis;
+
+    private MatchRecovery(MatchState state, int remainingMillis) {
+        this.state = state;
+        this.remainingMillis = remainingMillis;
+    }
+
+    public MatchState getState() { return state; }
+
+    /**
+     * Game time left when the server went down, or -1 if the game had not started.
+     */
+    public int getRemainingMillis() { return remainingMillis; }
+
+    /**
+     * Looks for an interrupted match described by a snapshot file.
+     *
+     * @param snapshotFile the snapshot written by the previous server run
+     * @return the recovered match, or null if there is nothing to recover
+     */
+    public static MatchRecovery recover(Path snapshotFile) {
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+        try {
+            MatchSnapshot snapshot = MatchSnapshot.read(snapshotFile);
+            MatchState state = snapshot.toState();
+            int remaining = snapshot.remainingMillis;
+            long clock = snapshot.timestamp; // Time up to which 'remaining' is accounted for
+
+            Path journal = snapshotFile.resolveSibling(snapshot.journalFile);
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+                long tailLength = channel.size() - snapshot.journalOffset;
+                ByteBuffer tail = ByteBuffer.allocate((int) Math.max(0, tailLength));
+                while (tail.hasRemaining() && channel.read(tail, snapshot.journalOffset + tail.position()) > 0) {
+                    // Keep reading until the whole tail is loaded
+                }
+                tail.flip();
+
+                JournalReader reader = new JournalReader(tail);
+                JournalRecord record;
+                while ((record = reader.next()) != null) {
+                    if (record.type == JournalRecord.GAME_STARTED) {
+                        remaining = record.value * 1000;
+                        clock = record.timestamp;
+                    } else if (remaining >= 0) {
+                        remaining -= (int) Math.max(0, record.timestamp - clock);
+                        clock = record.timestamp;
+                    }
+                    state.apply(record);
+                }
+            }
+
+            if (state.getResult() != null || state.getPlayers().isEmpty()) {
+                return null; // The match ended (or never had players) before the crash
+            }
+            return new MatchRecovery(state, state.isStarted() ? Math.max(0, remaining) : -1);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("WARNING: Unable to recover match from " + snapshotFile + ": " + e);
+            return null;
+        }
+    }
+}
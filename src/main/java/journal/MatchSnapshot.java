@@ -0,0 +1,92 @@
+package main.java.journal;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A compact checkpoint of a running match, used to recover it after a server crash.
+ *
+ * A snapshot holds the full board (in keyframe form), the game time left when it was
+ * taken, and the position in the match journal it corresponds to. Recovering a match
+ * only needs the snapshot plus the journal records written after that position.
+ */
+public class MatchSnapshot {
+    private static final int MAGIC = 0x4F4E4947; // "ONIG"
+
+    public final String journalFile;    // File name of the journal, relative to the snapshot
+    public final long journalOffset;    // Journal size when the snapshot was taken
+    public final long timestamp;        // When the snapshot was taken
+    public final int remainingMillis;   // Game time left, or -1 if the game had not started
+    public final long lastSequence;     // Sequence number of the last record included
+    public final byte[] keyframe;       // MatchState.encodeKeyframe() of the board
+
+    public MatchSnapshot(String journalFile, long journalOffset, long timestamp,
+                         int remainingMillis, long lastSequence, byte[] keyframe) {
+        this.journalFile = journalFile;
+        this.journalOffset = journalOffset;
+        this.timestamp = timestamp;
+        this.remainingMillis = remainingMillis;
+        this.lastSequence = lastSequence;
+        this.keyframe = keyframe;
+    }
+
+    /**
+     * Rebuilds the board stored in this snapshot.
+     *
+     * @return the match state at the time of the snapshot
+     */
+    public MatchState toState() {
+        JournalRecord record = new JournalRecord(JournalRecord.KEYFRAME);
+        record.sequence = lastSequence;
+        record.timestamp = timestamp;
+        record.data = keyframe;
+        return MatchState.fromKeyframe(record);
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and atomically moves it into place, so a
+     * crash during the write never leaves a partial snapshot behind.
+     *
+     * @param file the snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(journalFile);
+            out.writeLong(journalOffset);
+            out.writeLong(timestamp);
+            out.writeInt(remainingMillis);
+            out.writeLong(lastSequence);
+            out.writeInt(keyframe.length);
+            out.write(keyframe);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot file.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static MatchSnapshot read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a match snapshot: " + file);
+            }
+            String journalFile = in.readUTF();
+            long journalOffset = in.readLong();
+            long timestamp = in.readLong();
+            int remainingMillis = in.readInt();
+            long lastSequence = in.readLong();
+            byte[] keyframe = new byte[in.readInt()];
+            in.readFully(keyframe);
+            return new MatchSnapshot(journalFile, journalOffset, timestamp, remainingMillis, lastSequence, keyframe);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package main.java.journal;
+
+import main.java.model.Player;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, Swing-free mirror of a match (cell ownership and player positions) that is
+ * rebuilt by applying journal records in order.
+ *
+ * The journal writer keeps one of these up to date to produce keyframes, and the replay
+ * tools use it to reconstruct the board at any point of a recorded match.
+ */
+public class MatchState {
+    /**
+     * Position and status of a single player in the mirrored match.
+     */
+    public static class PlayerState {
+        public final String id;
+        public final String color;
+        public int x, y;
+        public boolean ready;
+
+        PlayerState(String id, int x, int y, String color) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+            this.color = color;
+        }
+    }
+
+    private final int size;
+    private final String[] owners; // Owner player ID per cell, indexed x * size + y
+    private final Map<String, PlayerState> players = new LinkedHashMap<>();
+    private long lastSequence = 0;
+    private long lastTimestamp = 0;
+    private boolean started = false;
+    private JournalRecord result = null; // The GAME_OVER record, once the match ended
+
+    /**
+     * Creates an empty match state.
+     *
+     * @param size the width and height of the grid
+     */
+    public MatchState(int size) {
+        this.size = size;
+        this.owners = new String[size * size];
+    }
+
+    public int getSize() { return size; }
+    public long getLastSequence() { return lastSequence; }
+    public long getLastTimestamp() { return lastTimestamp; }
+    public boolean isStarted() { return started; }
+    public JournalRecord getResult() { return result; }
+    public Map<String, PlayerState> getPlayers() { return players; }
+
+    /**
+     * Returns the ID of the player owning the given cell, or null if unclaimed.
+     */
+    public String getOwner(int x, int y) {
+        return owners[x * size + y];
+    }
+
+    /**
+     * Copies the ownership of every cell.
+     *
+     * @return owner player IDs indexed [x][y], null for unclaimed cells
+     */
+    public String[][] copyOwners() {
+        String[][] copy = new String[size][size];
+        for (int x = 0; x < size; x++) {
+            System.arraycopy(owners, x * size, copy[x], 0, size);
+        }
+        return copy;
+    }
+
+    /**
+     * Applies a single journal record to this state.
+     *
+     * @param record the record to apply (records must be applied in sequence order)
+     */
+    public void apply(JournalRecord record) {
+        switch (record.type) {
+            case JournalRecord.JOIN -> {
+                players.put(record.playerId, new PlayerState(record.playerId, record.x, record.y, record.text));
+                owners[record.x * size + record.y] = record.playerId;
+            }
+            case JournalRecord.READY -> {
+                PlayerState player = players.get(record.playerId);
+                if (player != null) player.ready = record.value != 0;
+            }
+            case JournalRecord.MOVE -> {
+                PlayerState player = players.get(record.playerId);
+                if (player != null) {
+                    player.x = record.toX;
+                    player.y = record.toY;
+                }
+            }
+            case JournalRecord.CLAIM -> owners[record.x * size + record.y] = record.playerId;
+            case JournalRecord.RELEASE -> owners[record.x * size + record.y] = null;
+            case JournalRecord.LEAVE -> {
+                // The server releases the square the player was standing on
+                PlayerState player = players.remove(record.playerId);
+                if (player != null) owners[player.x * size + player.y] = null;
+            }
+            case JournalRecord.GAME_STARTED -> started = true;
+            case JournalRecord.GAME_OVER -> result = record;
+            case JournalRecord.KEYFRAME, JournalRecord.REJECT -> {
+                // Keyframes and rejected moves do not change the state
+            }
+            default -> throw new IllegalStateException("Unknown journal record type: " + record.type);
+        }
+        lastSequence = record.sequence;
+        lastTimestamp = record.timestamp;
+    }
+
+    /**
+     * Counts the cells owned by each player, the same way the server scores a match.
+     *
+     * @return a map of player ID to number of owned cells
+     */
+    public Map<String, Integer> countScores() {
+        Map<String, Integer> scores = new HashMap<>();
+        for (String owner : owners) {
+            if (owner != null) {
+                scores.merge(owner, 1, Integer::sum);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Builds model Player objects for every player currently in the match.
+     *
+     * @return a map of player ID to Player
+     */
+    public Map<String, Player> toPlayers() {
+        Map<String, Player> result = new LinkedHashMap<>();
+        for (PlayerState state : players.values()) {
+            Player player = new Player(state.id, state.x, state.y, state.color);
+            if (state.ready) player.toggleReady();
+            result.put(state.id, player);
+        }
+        return result;
+    }
+
+    /**
+     * Serializes this state as keyframe data.
+     *
+     * Layout: [int size][byte started][short players]{[id][color][int x][int y][byte ready]}
+     * followed by one byte per cell holding the owner's index in the player table (0 = none).
+     * Owners that have left the match are appended to the table with x = y = -1.
+     *
+     * @return the encoded keyframe
+     */
+    public byte[] encodeKeyframe() {
+        List<String> table = new ArrayList<>(players.keySet());
+        for (String owner : owners) {
+            if (owner != null && !players.containsKey(owner) && !table.contains(owner)) {
+                table.add(owner);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(16 + table.size() * 64 + owners.length);
+        buffer.putInt(size);
+        buffer.put((byte) (started ? 1 : 0));
+        buffer.putShort((short) table.size());
+        for (String id : table) {
+            PlayerState player = players.get(id);
+            JournalRecord.putString(buffer, id);
+            JournalRecord.putString(buffer, player != null ? player.color : "");
+            buffer.putInt(player != null ? player.x : -1);
+            buffer.putInt(player != null ? player.y : -1);
+            buffer.put((byte) (player != null && player.ready ? 1 : 0));
+        }
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < table.size(); i++) {
+            index.put(table.get(i), i + 1);
+        }
+        for (String owner : owners) {
+            buffer.put((byte) (owner == null ? 0 : index.get(owner)));
+        }
+
+        byte[] data = new byte[buffer.position()];
+        buffer.flip().get(data);
+        return data;
+    }
+
+    /**
+     * Rebuilds a state from a keyframe record.
+     *
+     * @param keyframe a KEYFRAME record
+     * @return the state described by the keyframe
+     */
+    public static MatchState fromKeyframe(JournalRecord keyframe) {
+        ByteBuffer buffer = ByteBuffer.wrap(keyframe.data);
+        MatchState state = new MatchState(buffer.getInt());
+        state.started = buffer.get() != 0;
+
+        String[] table = new String[buffer.getShort() & 0xFFFF];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = JournalRecord.getString(buffer);
+            String color = JournalRecord.getString(buffer);
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            boolean ready = buffer.get() != 0;
+            if (x >= 0) {
+                PlayerState player = new PlayerState(table[i], x, y, color);
+                player.ready = ready;
+                state.players.put(table[i], player);
+            }
+        }
+        for (int i = 0; i < state.owners.length; i++) {
+            int index = buffer.get() & 0xFF;
+            state.owners[i] = index == 0 ? null : table[index - 1];
+        }
+        state.lastSequence = keyframe.sequence;
+        state.lastTimestamp = keyframe.timestamp;
+        return state;
+    }
+
+    /**
+     * Compares ownership and player positions with another state.
+     *
+     * @param other the state to compare with
+     * @return true if both states describe the same board
+     */
+    public boolean sameBoardAs(MatchState other) {
+        if (size != other.size || !Arrays.equals(owners, other.owners)
+                || !players.keySet().equals(other.players.keySet())) {
+            return false;
+        }
+        for (PlayerState player : players.values()) {
+            PlayerState theirs = other.players.get(player.id);
+            if (player.x != theirs.x || player.y != theirs.y) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package main.java.loadtest;
+
+import main.java.bot.BotClient;
+import main.java.bot.BotStrategy;
+import main.java.metrics.LatencyHistogram;
+import main.java.server.GameServer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load generator: connects thousands of bots to a game server on this machine, lets them
+ * ready up and storm the server with moves until their games are over, and reports what
+ * the server sustained.
+ *
+ * Every bot's connection runs on a virtual thread, and one small scheduler drives all of
+ * their moves, so a single process can simulate thousands of players.
+ *
+ * Usage: LoadTest [options]
+ *   --clients N        number of simulated players (default 1000)
+ *   --port P           server port on localhost (default 12345)
+ *   --strategy NAME    bot strategy: random, greedy or cutter (default random)
+ *   --interval MS      time between a bot's move attempts (default 50)
+ *   --duration S       stop after this many seconds even if games are still running (default 120)
+ *   --embedded         start a GameServer inside this process first
+ */
+public class LoadTest {
+    private static final String HOST = "localhost"; // Load tests never leave this machine
+    private static final int REPORT_INTERVAL_SECONDS = 5;
+
+    private final LatencyHistogram moveLatency = new LatencyHistogram(); // Microseconds
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+    private final AtomicInteger connectFailures = new AtomicInteger();
+    private final List<BotClient> bots = new CopyOnWriteArrayList<>();
+
+    /**
+     * A bot that reports how long the server took to answer each of its moves.
+     */
+    private class LoadBot extends BotClient {
+        LoadBot(BotStrategy strategy, ScheduledExecutorService scheduler, int intervalMs) {
+            super(strategy, scheduler, intervalMs);
+        }
+
+        @Override
+        protected void onMoveAnswered(long nanos) {
+            moveLatency.record(nanos / 1000);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = 1000;
+        int port = 12345;
+        String strategy = "random";
+        int interval = 50;
+        int duration = 120;
+        boolean embedded = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients" -> clients = Integer.parseInt(args[++i]);
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--strategy" -> strategy = args[++i];
+                case "--interval" -> interval = Integer.parseInt(args[++i]);
+                case "--duration" -> duration = Integer.parseInt(args[++i]);
+                case "--embedded" -> embedded = true;
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+                }
+            }
+        }
+
+        if (embedded) {
+            Thread server = new Thread(() -> GameServer.main(new String[0]), "embedded-server");
+            server.setDaemon(true);
+            server.start();
+            Thread.sleep(1000); // Let it bind its port
+        }
+
+        new LoadTest().run(clients, port, strategy, interval, duration);
+        System.exit(0);
+    }
+
+    private void run(int clients, int port, String strategy, int interval, int durationSeconds) throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        long start = System.nanoTime();
+
+        // Connect everyone at once, one virtual thread per connection attempt
+        try (ExecutorService connectors = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                connectors.submit(() -> {
+                    LoadBot bot = new LoadBot(BotStrategy.byName(strategy), scheduler, interval);
+                    long connectStart = System.nanoTime();
+                    try {
+                        bot.connect(HOST, port, null); // Unnamed: load tests leave no player totals
+                        connectLatency.record((System.nanoTime() - connectStart) / 1000);
+                        bots.add(bot);
+                    } catch (IOException e) {
+                        connectFailures.incrementAndGet();
+                    }
+                });
+            }
+        }
+        System.out.printf("Connected %d of %d clients in %.2fs (connect p50 %.1fms, p99 %.1fms)%n",
+                bots.size(), clients, (System.nanoTime() - start) / 1e9,
+                connectLatency.getPercentile(50) / 1000.0, connectLatency.getPercentile(99) / 1000.0);
+
+        // Report until every game is over, every connection is gone, or time runs out
+        long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long lastMoves = 0;
+        long lastReport = System.nanoTime();
+        while (System.nanoTime() < deadline && bots.stream().anyMatch(bot -> !bot.isGameOver() && !bot.isDisconnected())) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(REPORT_INTERVAL_SECONDS));
+            long now = System.nanoTime();
+            long moves = moveLatency.getCount();
+            report(String.format("%5.0fs", (now - start) / 1e9), (moves - lastMoves) / ((now - lastReport) / 1e9));
+            lastMoves = moves;
+            lastReport = now;
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("----- Final -----");
+        report("total", moveLatency.getCount() / seconds);
+        for (BotClient bot : bots) {
+            bot.stop();
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Prints one line of statistics: players in a game, connections never assigned a
+     * player, refused and dropped connections,
+     * move throughput, rejections and round-trip latency percentiles.
+     */
+    private void report(String label, double movesPerSecond) {
+        int playing = 0, waiting = 0, refused = 0, dropped = 0, finished = 0;
+        long rejected = 0, sent = 0;
+        for (BotClient bot : bots) {
+            sent += bot.getMovesSent();
+            rejected += bot.getMovesRejected();
+            if (bot.isGameOver()) {
+                finished++;
+            } else if (bot.isDisconnected()) {
+                if (bot.getPlayerId() == null) refused++; // e.g. SERVER_FULL
+                else dropped++;
+            } else if (bot.getPlayerId() != null) {
+                playing++;
+            } else {
+                waiting++; // Connected, but never assigned a player
+            }
+        }
+        System.out.printf("%s  players %d, unassigned %d, finished %d, refused %d, dropped %d, connect failures %d | "
+                        + "moves %.0f/s, sent %d, rejected %d (%.1f%%) | rtt p50 %.2fms p90 %.2fms p99 %.2fms max %.2fms%n",
+                label, playing, waiting, finished, refused, dropped, connectFailures.get(),
+                movesPerSecond, sent, rejected, sent == 0 ? 0 : 100.0 * rejected / sent,
+                moveLatency.getPercentile(50) / 1000.0, moveLatency.getPercentile(90) / 1000.0,
+                moveLatency.getPercentile(99) / 1000.0, moveLatency.getMax() / 1000.0);
+    }
+}
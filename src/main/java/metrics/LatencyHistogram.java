@@ -0,0 +1,112 @@
+package main.java.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values (typically latencies in microseconds).
+ *
+ * Buckets are log-linear: every power of two is split into 16 equal sub-buckets, so any
+ * recorded value is known to within 1/16 (about 6%) at every scale, with a fixed ~1000
+ * counters covering the whole long range. Recording is a single atomic increment, so
+ * many threads can record into one histogram without contention on a lock.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value. Negative values are recorded as 0.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() { return total.get(); }
+    public long getSum() { return sum.get(); }
+    public long getMax() { return max.get(); }
+
+    public double getMean() {
+        long count = total.get();
+        return count == 0 ? 0 : sum.get() / (double) count;
+    }
+
+    /**
+     * Returns an upper bound of the value below which the given fraction of the recorded
+     * values fall.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the value, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = total.get();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBound(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Number of recorded values that are at most the given value (rounded to bucket
+     * precision), for cumulative exports such as Prometheus histograms.
+     *
+     * @param value the upper bound
+     * @return the number of values in every bucket that lies entirely at or below it
+     */
+    public long getCountAtOrBelow(long value) {
+        long count = 0;
+        for (int bucket = 0; bucket < BUCKETS && upperBound(bucket) <= value; bucket++) {
+            count += counts.get(bucket);
+        }
+        return count;
+    }
+
+    /**
+     * Clears every count. Values recorded concurrently with a reset may be lost.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,238 @@
+package main.java.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Serves {@link ServerMetrics} at http://127.0.0.1:PORT/metrics in the Prometheus text
+ * exposition format. It only listens on the loopback interface; scrape it from the same
+ * machine or through a tunnel.
+ *
+ * Requests are answered on one daemon thread, so scraping never competes with the game
+ * threads for more than one core and never keeps the server process alive.
+ *
+ * Other parts of the server can append their own metrics to /metrics with
+ * {@link #addSection}, e.g. the match analytics, and serve plain-text pages from the
+ * same endpoint with {@link #addPage}, e.g. player statistics at /stats.
+ */
+public class MetricsHttpServer {
+    // Histogram bucket bounds: latencies in microseconds, exported in seconds
+    private static final long[] LATENCY_BOUNDS_MICROS = {
+            50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000};
+    private static final long[] WAIT_BOUNDS_MICROS = {
+            100_000, 250_000, 500_000, 1_000_000, 2_000_000, 5_000_000, 10_000_000, 30_000_000, 60_000_000};
+    private static final long[] DEPTH_BOUNDS = {1, 2, 4, 8, 16, 32, 64, 128};
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final ServerMetrics metrics;
+    private final HttpServer server;
+    private final List<Consumer<StringBuilder>> sections = new CopyOnWriteArrayList<>();
+
+    private MetricsHttpServer(ServerMetrics metrics, int port) throws IOException {
+        this.metrics = metrics;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this::handle);
+        server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Starts serving the metrics, or reports why it could not.
+     *
+     * @param metrics the metrics to serve
+     * @param port the local port to listen on
+     * @return the running endpoint, or null if the port could not be bound
+     */
+    public static MetricsHttpServer start(ServerMetrics metrics, int port) {
+        try {
+            MetricsHttpServer endpoint = new MetricsHttpServer(metrics, port);
+            endpoint.server.start();
+            System.out.println("Metrics available at http://127.0.0.1:" + port + "/metrics");
+            return endpoint;
+        } catch (IOException e) {
+            System.err.println("Metrics endpoint disabled: could not listen on port " + port + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * Appends more metrics to every /metrics response, after the server's own. The section
+     * is rendered on the endpoint's thread and must write complete Prometheus text lines.
+     *
+     * @param section writes the section's metrics into the response
+     */
+    public void addSection(Consumer<StringBuilder> section) {
+        sections.add(section);
+    }
+
+    /**
+     * Serves a plain-text page at a path of this endpoint. The page is rendered on the
+     * endpoint's thread, so it may read the disk.
+     *
+     * @param path the path, e.g. "/stats"
+     * @param page renders the page from the request's query parameters, decoded
+     */
+    public void addPage(String path, Function<Map<String, String>, String> page) {
+        server.createContext(path, exchange -> {
+            String body;
+            int status = 200;
+            try {
+                body = page.apply(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (RuntimeException e) {
+                status = 500;
+                body = "Error: " + e.getMessage() + "\n";
+            }
+            respond(exchange, status, "text/plain; charset=utf-8", body);
+        });
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, "text/plain; version=0.0.4; charset=utf-8", render());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Formats every metric in the Prometheus text format.
+     */
+    String render() {
+        StringBuilder out = new StringBuilder(4096);
+        counter(out, "onigiri_moves_total", "Moves handled by the server, by result",
+                "result=\"accepted\"", metrics.getMovesAccepted());
+        out.append("onigiri_moves_total{result=\"rejected\"} ").append(metrics.getMovesRejected()).append('\n');
+        gauge(out, "onigiri_moves_per_second", "Moves per second over the last few seconds", metrics.getMovesPerSecond());
+        counter(out, "onigiri_broadcasts_total", "Messages broadcast to all clients", null, metrics.getBroadcasts());
+        counter(out, "onigiri_messages_sent_total", "Messages written to clients", null, metrics.getMessagesSent());
+        counter(out, "onigiri_connections_total", "Client connections accepted", null, metrics.getConnectionsOpened());
+        gauge(out, "onigiri_active_connections", "Clients currently connected", metrics.getActiveConnections());
+        counter(out, "onigiri_idle_evictions_total", "Connections closed because the client stopped answering",
+                null, metrics.getIdleEvictions());
+        counter(out, "onigiri_connections_shed_total", "Connections turned away because the server was overloaded",
+                null, metrics.getConnectionsShed());
+        gauge(out, "onigiri_queued_players", "Players waiting for a room", metrics.getQueuedPlayers());
+        gauge(out, "onigiri_rooms", "Rooms with players in them", metrics.getActiveRooms());
+
+        histogram(out, "onigiri_move_duration_seconds", "Time to handle one move, including lock waits",
+                metrics.getMoveLatency(), LATENCY_BOUNDS_MICROS, 1e6);
+        histogram(out, "onigiri_broadcast_duration_seconds", "Time to hand one broadcast to every client",
+                metrics.getBroadcastLatency(), LATENCY_BOUNDS_MICROS, 1e6);
+        histogram(out, "onigiri_scheduler_lag_seconds", "How late scheduled game tasks started",
+                metrics.getSchedulerLag(), LATENCY_BOUNDS_MICROS, 1e6);
+        histogram(out, "onigiri_heartbeat_round_trip_seconds", "Time from a PING to its PONG",
+                metrics.getHeartbeatRoundTrip(), LATENCY_BOUNDS_MICROS, 1e6);
+        histogram(out, "onigiri_queue_wait_seconds", "Time from joining the matchmaking queue to getting a room",
+                metrics.getQueueWait(), WAIT_BOUNDS_MICROS, 1e6);
+        histogram(out, "onigiri_send_queue_depth", "Messages waiting for one client when another is sent",
+                metrics.getSendQueueDepth(), DEPTH_BOUNDS, 1);
+
+        Map<String, RoomLatencyStats> rooms = metrics.getRooms();
+        out.append("# HELP onigiri_player_round_trip_seconds Move round trip reported by each client\n");
+        out.append("# TYPE onigiri_player_round_trip_seconds summary\n");
+        for (Map.Entry<String, RoomLatencyStats> room : rooms.entrySet()) {
+            for (Map.Entry<String, RoomLatencyStats.PlayerLatency> player : room.getValue().getPlayers().entrySet()) {
+                summary(out, "onigiri_player_round_trip_seconds", room.getKey(), player.getKey(), player.getValue().roundTrip);
+            }
+        }
+        out.append("# HELP onigiri_player_server_seconds Server time from reading a move to replying\n");
+        out.append("# TYPE onigiri_player_server_seconds summary\n");
+        for (Map.Entry<String, RoomLatencyStats> room : rooms.entrySet()) {
+            for (Map.Entry<String, RoomLatencyStats.PlayerLatency> player : room.getValue().getPlayers().entrySet()) {
+                summary(out, "onigiri_player_server_seconds", room.getKey(), player.getKey(), player.getValue().server);
+            }
+        }
+        for (Consumer<StringBuilder> section : sections) {
+            section.accept(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the quantiles, sum and count of one player's histogram (in microseconds) in seconds.
+     */
+    private static void summary(StringBuilder out, String name, String room, String player, LatencyHistogram histogram) {
+        String labels = "room=\"" + room + "\",player=\"" + player + "\"";
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.getPercentile(quantile * 100) / 1e6).append('\n');
+        }
+        out.append(name).append("_sum{").append(labels).append("} ").append(histogram.getSum() / 1e6).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, String labels, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name);
+        if (labels != null) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Writes a cumulative histogram. The bucket counts are read while values may still be
+     * recorded, so a scrape can be off by the few values recorded during it.
+     *
+     * @param unit recorded units per exported unit (1e6 to export microseconds as seconds)
+     */
+    private static void histogram(StringBuilder out, String name, String help, LatencyHistogram histogram,
+                                  long[] bounds, double unit) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        long count = histogram.getCount();
+        for (long bound : bounds) {
+            out.append(name).append("_bucket{le=\"").append(bound / unit).append("\"} ")
+                    .append(Math.min(count, histogram.getCountAtOrBelow(bound))).append('\n');
+        }
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(count).append('\n');
+        out.append(name).append("_sum ").append(histogram.getSum() / unit).append('\n');
+        out.append(name).append("_count ").append(count).append('\n');
+    }
+}
@@ -0,0 +1,84 @@
+package main.java.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Move latency of every player in one room (match), split into the part spent in the
+ * server and the part spent on the network.
+ *
+ * The server measures its own share of each move: from reading the MOVE line to writing
+ * the reply, and within that the time spent applying the move. Clients report the
+ * round-trip time they measured for their previous move, so the network share is the
+ * round trip minus the server time.
+ */
+public class RoomLatencyStats {
+
+    /**
+     * Latency histograms of one player, in microseconds.
+     */
+    public static class PlayerLatency {
+        public final LatencyHistogram roundTrip = new LatencyHistogram(); // Reported by the client
+        public final LatencyHistogram server = new LatencyHistogram();    // Receive to reply
+        public final LatencyHistogram apply = new LatencyHistogram();     // movePlayer() alone
+    }
+
+    private final Map<String, PlayerLatency> players = new ConcurrentHashMap<>();
+
+    /**
+     * Records the server's handling of one move.
+     *
+     * @param playerId the moving player
+     * @param serverMicros time from reading the move to sending the reply
+     * @param applyMicros the part of it spent in movePlayer()
+     * @param reportedRoundTripMicros the client's round-trip time for its previous move, or -1
+     */
+    public void record(String playerId, long serverMicros, long applyMicros, long reportedRoundTripMicros) {
+        PlayerLatency latency = players.computeIfAbsent(playerId, id -> new PlayerLatency());
+        latency.server.record(serverMicros);
+        latency.apply.record(applyMicros);
+        if (reportedRoundTripMicros >= 0) {
+            latency.roundTrip.record(reportedRoundTripMicros);
+        }
+    }
+
+    /**
+     * @return each player's histograms, by player ID in order
+     */
+    public Map<String, PlayerLatency> getPlayers() {
+        return new TreeMap<>(players);
+    }
+
+    /**
+     * Forgets every player, e.g. when a new match starts in the room.
+     */
+    public void reset() {
+        players.clear();
+    }
+
+    /**
+     * Formats a per-player table: median and 99th percentile of round trip, server time
+     * and estimated network time, in milliseconds.
+     */
+    public String report() {
+        StringBuilder out = new StringBuilder("Move latency (ms, p50/p99): player  round trip  server  network\n");
+        for (Map.Entry<String, PlayerLatency> entry : getPlayers().entrySet()) {
+            PlayerLatency latency = entry.getValue();
+            out.append(String.format("  %-6s %6.1f/%-6.1f %5.2f/%-5.2f %6.1f/%-6.1f%n", entry.getKey(),
+                    latency.roundTrip.getPercentile(50) / 1000.0, latency.roundTrip.getPercentile(99) / 1000.0,
+                    latency.server.getPercentile(50) / 1000.0, latency.server.getPercentile(99) / 1000.0,
+                    network(latency, 50) / 1000.0, network(latency, 99) / 1000.0));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Estimates a percentile of a player's network time: the round trip minus the
+     * server's median time (the two are recorded for different moves, so they cannot be
+     * subtracted move by move).
+     */
+    public static long network(PlayerLatency latency, double percentile) {
+        return Math.max(0, latency.roundTrip.getPercentile(percentile) - latency.server.getPercentile(50));
+    }
+}
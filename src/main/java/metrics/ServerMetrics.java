@@ -0,0 +1,260 @@
+package main.java.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live instrumentation of the game server: latency histograms for moves, broadcasts,
+ * scheduled tasks, heartbeats and matchmaking waits, the depth of each client's send
+ * queue, and counters for moves, rejections, connections, shed connections, idle
+ * evictions, queued players and rooms.
+ *
+ * Recording is lock-free and allocation-free (atomic increments only), so game threads
+ * can record on every move. The values are read through JMX (see
+ * {@link ServerMetricsMBean}) or scraped in Prometheus text format from
+ * {@link MetricsHttpServer}.
+ */
+public class ServerMetrics implements ServerMetricsMBean {
+    public static final String OBJECT_NAME = "main.java.server:type=ServerMetrics";
+    private static final int RATE_WINDOW_SECONDS = 10;
+
+    // Durations in microseconds
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final LatencyHistogram broadcastLatency = new LatencyHistogram();
+    private final LatencyHistogram schedulerLag = new LatencyHistogram();
+    private final LatencyHistogram heartbeatRoundTrip = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    // Messages waiting to be written to one client, sampled on every send
+    private final LatencyHistogram sendQueueDepth = new LatencyHistogram();
+
+    private final AtomicLong movesAccepted = new AtomicLong();
+    private final AtomicLong movesRejected = new AtomicLong();
+    private final AtomicLong broadcasts = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong connectionsShed = new AtomicLong();
+    private volatile long recentSchedulerLag; // Moving average in microseconds; racing updates may be lost
+    private final AtomicInteger queuedPlayers = new AtomicInteger();
+    private final AtomicInteger activeRooms = new AtomicInteger();
+
+    // Moves per second over a sliding window, indexed by (second % RATE_WINDOW_SECONDS)
+    private final AtomicLongArray rateSecond = new AtomicLongArray(RATE_WINDOW_SECONDS);
+    private final AtomicLongArray rateMoves = new AtomicLongArray(RATE_WINDOW_SECONDS);
+
+    // Per-player move latency of each room, by room name
+    private final Map<String, RoomLatencyStats> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * Records one handled move.
+     *
+     * @param nanos how long movePlayer took, including waiting for locks
+     * @param accepted whether the move was made
+     */
+    public void recordMove(long nanos, boolean accepted) {
+        moveLatency.record(nanos / 1000);
+        (accepted ? movesAccepted : movesRejected).incrementAndGet();
+        countMoveInWindow(System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * Records one broadcast.
+     *
+     * @param nanos how long it took to hand the message to every client
+     */
+    public void recordBroadcast(long nanos) {
+        broadcastLatency.record(nanos / 1000);
+        broadcasts.incrementAndGet();
+    }
+
+    /**
+     * Records one message sent to a client.
+     *
+     * @param queueDepth the messages waiting to be written to that client, including this one
+     */
+    public void recordSend(int queueDepth) {
+        sendQueueDepth.record(queueDepth);
+        messagesSent.incrementAndGet();
+    }
+
+    /**
+     * Records how late a task on the game timers (game end, claimed-squares check, countdown) started.
+     *
+     * @param nanos the time between when the task was due and when it ran
+     */
+    public void recordSchedulerLag(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        schedulerLag.record(micros);
+        recentSchedulerLag += (micros - recentSchedulerLag) / 8;
+    }
+
+    /**
+     * Records the answer to one PING the server sent a client.
+     *
+     * @param nanos the time from sending the PING to reading the PONG
+     */
+    public void recordHeartbeat(long nanos) {
+        heartbeatRoundTrip.record(nanos / 1000);
+    }
+
+    /**
+     * Counts a connection closed because the client stopped answering.
+     */
+    public void idleEviction() {
+        idleEvictions.incrementAndGet();
+    }
+
+    /**
+     * Records how long a player waited in the matchmaking queue before getting a room.
+     *
+     * @param nanos the time from joining the queue to being placed in a room
+     */
+    public void recordQueueWait(long nanos) {
+        queueWait.record(nanos / 1000);
+    }
+
+    /**
+     * Updates the matchmaking gauges.
+     *
+     * @param queued the players waiting for a room
+     * @param rooms the rooms with players in them
+     */
+    public void setMatchmaking(int queued, int rooms) {
+        queuedPlayers.set(queued);
+        activeRooms.set(rooms);
+    }
+
+    /**
+     * Counts a connection turned away at accept time because the server was overloaded.
+     */
+    public void connectionShed() {
+        connectionsShed.incrementAndGet();
+    }
+
+    public void connectionOpened() {
+        connectionsOpened.incrementAndGet();
+        activeConnections.incrementAndGet();
+    }
+
+    public void connectionClosed() {
+        activeConnections.decrementAndGet();
+    }
+
+    /**
+     * Adds one move to the bucket of the given second, clearing the bucket first if it
+     * still holds an older second.
+     */
+    private void countMoveInWindow(long second) {
+        int bucket = (int) (second % RATE_WINDOW_SECONDS);
+        long stored = rateSecond.get(bucket);
+        if (stored != second && rateSecond.compareAndSet(bucket, stored, second)) {
+            rateMoves.set(bucket, 0); // Moves racing with the reset may be lost
+        }
+        rateMoves.incrementAndGet(bucket);
+    }
+
+    /**
+     * Adds a room's per-player latency to the exported metrics.
+     *
+     * @param name the room's name, used as a label
+     * @param stats the room's latency statistics
+     */
+    public void addRoom(String name, RoomLatencyStats stats) {
+        rooms.put(name, stats);
+    }
+
+    public void removeRoom(String name) {
+        rooms.remove(name);
+    }
+
+    /**
+     * @return the latency statistics of every room, by room name in order
+     */
+    public Map<String, RoomLatencyStats> getRooms() {
+        return new TreeMap<>(rooms);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, so JMX clients such as
+     * JConsole can read them. Failures are reported and otherwise ignored.
+     */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Could not register server metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    // ----- Raw histograms, for exporters -----
+
+    public LatencyHistogram getMoveLatency() { return moveLatency; }
+    public LatencyHistogram getBroadcastLatency() { return broadcastLatency; }
+    public LatencyHistogram getSchedulerLag() { return schedulerLag; }
+    public LatencyHistogram getSendQueueDepth() { return sendQueueDepth; }
+    public LatencyHistogram getHeartbeatRoundTrip() { return heartbeatRoundTrip; }
+    public LatencyHistogram getQueueWait() { return queueWait; }
+
+    // ----- ServerMetricsMBean -----
+
+    @Override public long getMovesAccepted() { return movesAccepted.get(); }
+    @Override public long getMovesRejected() { return movesRejected.get(); }
+    @Override public long getBroadcasts() { return broadcasts.get(); }
+    @Override public long getMessagesSent() { return messagesSent.get(); }
+    @Override public long getConnectionsOpened() { return connectionsOpened.get(); }
+    @Override public int getActiveConnections() { return activeConnections.get(); }
+    @Override public long getIdleEvictions() { return idleEvictions.get(); }
+    @Override public long getConnectionsShed() { return connectionsShed.get(); }
+    @Override public int getQueuedPlayers() { return queuedPlayers.get(); }
+    @Override public int getActiveRooms() { return activeRooms.get(); }
+
+    /**
+     * Moves per second over the last full seconds of the window (the current second is
+     * still filling up and is left out).
+     */
+    @Override
+    public double getMovesPerSecond() {
+        long now = System.currentTimeMillis() / 1000;
+        long moves = 0;
+        for (int i = 1; i < RATE_WINDOW_SECONDS; i++) {
+            int bucket = (int) ((now - i) % RATE_WINDOW_SECONDS);
+            if (rateSecond.get(bucket) == now - i) {
+                moves += rateMoves.get(bucket);
+            }
+        }
+        return moves / (double) (RATE_WINDOW_SECONDS - 1);
+    }
+
+    @Override public long getMoveLatencyP50Micros() { return moveLatency.getPercentile(50); }
+    @Override public long getMoveLatencyP99Micros() { return moveLatency.getPercentile(99); }
+    @Override public long getMoveLatencyMaxMicros() { return moveLatency.getMax(); }
+    @Override public long getBroadcastP50Micros() { return broadcastLatency.getPercentile(50); }
+    @Override public long getBroadcastP99Micros() { return broadcastLatency.getPercentile(99); }
+    @Override public long getSendQueueDepthP99() { return sendQueueDepth.getPercentile(99); }
+    @Override public long getSendQueueDepthMax() { return sendQueueDepth.getMax(); }
+    @Override public long getSchedulerLagP99Micros() { return schedulerLag.getPercentile(99); }
+    @Override public long getSchedulerLagMaxMicros() { return schedulerLag.getMax(); }
+    @Override public long getRecentSchedulerLagMicros() { return recentSchedulerLag; }
+    @Override public long getHeartbeatRoundTripP50Micros() { return heartbeatRoundTrip.getPercentile(50); }
+    @Override public long getHeartbeatRoundTripP99Micros() { return heartbeatRoundTrip.getPercentile(99); }
+    @Override public long getQueueWaitP50Micros() { return queueWait.getPercentile(50); }
+    @Override public long getQueueWaitP99Micros() { return queueWait.getPercentile(99); }
+
+    @Override
+    public void resetHistograms() {
+        moveLatency.reset();
+        broadcastLatency.reset();
+        schedulerLag.reset();
+        sendQueueDepth.reset();
+        heartbeatRoundTrip.reset();
+        queueWait.reset();
+    }
+}
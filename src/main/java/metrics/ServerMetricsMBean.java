@@ -0,0 +1,40 @@
+package main.java.metrics;
+
+/**
+ * The JMX view of {@link ServerMetrics}. Latencies are in microseconds; percentiles are
+ * over everything recorded since the start or the last {@link #resetHistograms()}.
+ */
+public interface ServerMetricsMBean {
+    long getMovesAccepted();
+    long getMovesRejected();
+    double getMovesPerSecond();
+    long getBroadcasts();
+    long getMessagesSent();
+    long getConnectionsOpened();
+    int getActiveConnections();
+    long getIdleEvictions();
+    long getConnectionsShed();
+    int getQueuedPlayers();
+    int getActiveRooms();
+
+    long getMoveLatencyP50Micros();
+    long getMoveLatencyP99Micros();
+    long getMoveLatencyMaxMicros();
+    long getBroadcastP50Micros();
+    long getBroadcastP99Micros();
+    long getSendQueueDepthP99();
+    long getSendQueueDepthMax();
+    long getSchedulerLagP99Micros();
+    long getSchedulerLagMaxMicros();
+    /** How late the game timers ran lately, as a moving average over the last few tasks. */
+    long getRecentSchedulerLagMicros();
+    long getHeartbeatRoundTripP50Micros();
+    long getHeartbeatRoundTripP99Micros();
+    long getQueueWaitP50Micros();
+    long getQueueWaitP99Micros();
+
+    /**
+     * Clears every histogram, e.g. to look at one match in isolation. Counters keep counting.
+     */
+    void resetHistograms();
+}
@@ -1,41 +1,33 @@
 package main.java.model;
 
-import javax.swing.*;
-import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Represents the game board as a 2D grid of squares.
- * The Grid class maintains both the representations of each square in the grid. 
- * 
- * This class provides methods to access individual squares and their corresponding 
- * visual components, ensuring proper bounds checking.
+ * The Grid class holds the logical state of each square; drawing the board is left
+ * to the client (see GridCanvas).
+ *
+ * This class provides methods to access individual squares, ensuring proper bounds checking.
  */
 public class Grid {
     private final int size;
     private final Square[][] grid;
-    private final JLabel[][] gridLabels; // To store the JLabel references for UI
 
     /**
      * Constructor a new Grid with the specified dimensions
-     * Initializes both the logical grid of Square objects and their
-     * JLabel visual representations.
+     * Initializes the logical grid of Square objects.
      *
      * @param size The width and height of the grid (grid will be size x size)
      */
     public Grid(int size) {
         this.size = size;
         grid = new Square[size][size];
-        gridLabels = new JLabel[size][size];
 
-        // Initialize the grid and the gridLabels
+        // Initialize the grid
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
-                gridLabels[i][j] = new JLabel(" ", SwingConstants.CENTER); // Initialize JLabel
-                gridLabels[i][j].setBorder(BorderFactory.createLineBorder(Color.BLACK));
-                gridLabels[i][j].setOpaque(true);
-
-                // Create the Square with the corresponding JLabel
-                grid[i][j] = new Square(gridLabels[i][j]);
+                grid[i][j] = new Square();
             }
         }
     }
@@ -55,26 +47,47 @@ public class Grid {
     }
 
     /**
-     * Gets the size (width and height) of the grid.
+     * Counts the squares owned by each player.
      *
-     * @return The size of the grid
+     * @return each player who owns at least one square, mapped to their number of squares
      */
-    public int getSize() {
-        return size;
+    public Map<Player, Integer> countOwnedSquares() {
+        Map<Player, Integer> counts = new HashMap<>();
+        for (Square[] column : grid) {
+            for (Square square : column) {
+                Player owner = square.getOwner();
+                if (owner != null) {
+                    counts.merge(owner, 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
     }
 
     /**
-     * Retrieves the JLabel object at the specified coordinates.
+     * Checks whether every square that is not a wall has an owner. Stops at the first
+     * unclaimed square.
      *
-     * @param x The x-coordinate (column) of the label
-     * @param y The y-coordinate (row) of the label
-     * @return The JLabel object at the specified coordinates
+     * @return true if no square is left to claim
      */
-    public JLabel getLabel(int x, int y) {
-        if (0 <= x && x < size && 0 <= y && y < size) {
-            return gridLabels[x][y];
-        } else {
-            throw new IndexOutOfBoundsException("Coordinates out of bounds");
+    public boolean isFullyClaimed() {
+        for (Square[] column : grid) {
+            for (Square square : column) {
+                if (!square.isWall() && square.getOwner() == null) {
+                    return false;
+                }
+            }
         }
+        return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the size (width and height) of the grid.
+     *
+     * @return The size of the grid
+     */
+    public int getSize() {
+        return size;
+    }
+
+}
@@ -11,6 +11,7 @@ public class Player {
     private int x, y;
     private String color;
     private boolean ready = false;
+    private volatile String name; // Given by the player's client with NAME, or null
 
     /**
      * Constructs a new Player.
@@ -45,6 +46,8 @@ public class Player {
     public void setX(int newX) { this.x = newX;}
     public void setY(int newY) { this.y = newY;}
     public void toggleReady() { this.ready = !this.ready;}
+    public String getName() { return name;}
+    public void setName(String name) { this.name = name;}
 
     /**
      * Attempts to move the player to the specified position on the grid.
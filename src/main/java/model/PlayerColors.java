@@ -0,0 +1,36 @@
+package main.java.model;
+
+import java.awt.Color;
+
+/**
+ * The color of each player, by player number.
+ *
+ * Players 1 to 4 keep the game's original pastel colors. Later players get generated
+ * ones: each hue is the previous one turned by the golden angle, which keeps any number
+ * of consecutive players far apart on the color wheel, and saturation and brightness
+ * alternate between a few pastel levels so players with nearby hues still differ.
+ */
+public final class PlayerColors {
+    private static final String[] CLASSIC = {"#f0adc6", "#a7c1e9", "#feeaa7", "#b3f4bb"};
+    private static final float GOLDEN_RATIO_CONJUGATE = 0.618034f;
+    private static final float[] SATURATIONS = {0.35f, 0.55f, 0.45f};
+    private static final float[] BRIGHTNESSES = {0.98f, 0.88f};
+
+    private PlayerColors() {
+    }
+
+    /**
+     * @param number the player's number: 1 for P1, 2 for P2, ...
+     * @return the player's color as "#rrggbb"
+     */
+    public static String forNumber(int number) {
+        if (number >= 1 && number <= CLASSIC.length) {
+            return CLASSIC[number - 1];
+        }
+        int index = Math.max(0, number - CLASSIC.length - 1);
+        float hue = (0.9f + index * GOLDEN_RATIO_CONJUGATE) % 1f; // Start away from P1's pink
+        float saturation = SATURATIONS[index % SATURATIONS.length];
+        float brightness = BRIGHTNESSES[index / SATURATIONS.length % BRIGHTNESSES.length];
+        return String.format("#%06x", Color.HSBtoRGB(hue, saturation, brightness) & 0xffffff);
+    }
+}
@@ -1,46 +1,30 @@
 package main.java.model;
 
-import javax.swing.*;
-import java.awt.*;
+import main.java.jfr.SquareLockEvent;
+
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Represents a single square (or cell) on the game grid.
- * Each square can be owned (locked) by a player, act as a wall,
- * and has a corresponding JLabel for GUI display.
+ * Each square can be owned (locked) by a player or act as a wall.
  */
 public class Square {
     private final ReentrantLock lock = new ReentrantLock(true); // Fair lock
     private volatile Player owner = null;
-    private final JLabel label; // JLabel associated with this square in the UI
+    private volatile Player restoredOwner = null; // Claim restored after a crash, not yet re-locked
     private boolean isWall = false;
     private static final int LOCK_TIMEOUT_MS = 100; // Timeout for lock attempts
 
     /**
-     * Constructs a Square with a given JLabel for display in the UI.
-     *
-     * @param label the JLabel representing this square visually
+     * Constructs an empty, unowned Square.
      */
-    public Square(JLabel label) {
-        this.label = label;
-        this.label.setOpaque(true);
-        clearSquare();
+    public Square() {
     }
 
     public boolean isWall() { return isWall; }
     public Player getOwner() { return owner; }
 
-    /**
-     * Clears the visual appearance of the square in the UI.
-     */
-    public synchronized void clearSquare() {
-        SwingUtilities.invokeLater(() -> {
-            label.setText("");
-            label.setBackground(null);
-        });
-    }
-
     /**
      * Sets the wall status of this square.
      * Walls are permanently locked and cannot be entered.
@@ -53,10 +37,6 @@ public class Square {
             try {
                 if (lock.tryLock(LOCK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
                     owner = null;
-                    SwingUtilities.invokeLater(() -> {
-                        label.setText("WALL");
-                        label.setBackground(Color.DARK_GRAY);
-                    });
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -68,7 +48,20 @@ public class Square {
 
 
     public boolean isLocked() {
-        return lock.isLocked() || isWall;
+        return lock.isLocked() || isWall || restoredOwner != null;
+    }
+
+    /**
+     * Marks this square as claimed by a player without holding its lock. Used when a
+     * match is restored after a crash: the lock is thread-bound, so it is only taken
+     * again once the owner's own connection thread locks the square. Until then, no
+     * other player can lock it.
+     *
+     * @param player the player who owned the square before the crash
+     */
+    public void restoreOwner(Player player) {
+        owner = player;
+        restoredOwner = player;
     }
 
     public boolean canEnter(Player player) {
@@ -84,25 +77,43 @@ public class Square {
      */
     public boolean tryLock(Player player) {
         if (player == null || isWall) return false;
+        Player restored = restoredOwner;
+        if (restored != null && restored != player) return false;
 
+        // Recorded only when the wait exceeds the event's threshold
+        SquareLockEvent event = new SquareLockEvent();
+        Player holder = owner;
+        event.begin();
+        boolean acquired = false;
         try {
             if (lock.tryLock(LOCK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                restoredOwner = null;
                 owner = player;
-                updateLabelForLock(player);
-                return true;
+                acquired = true;
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
-        return false;
+        event.end();
+        if (event.shouldCommit()) {
+            event.playerId = player.getId();
+            event.holderId = holder != null ? holder.getId() : null;
+            event.acquired = acquired;
+            event.commit();
+        }
+        return acquired;
     }
 
     /**
      * Releases the lock on this square if held by the current thread.
-     * Resets ownership and updates UI.
+     * Resets ownership.
      */
     public synchronized void releaseLock() {
-        if (lock.isHeldByCurrentThread()) {
+        if (restoredOwner != null) {
+            // Restored claim that was never re-locked by its owner
+            restoredOwner = null;
+            owner = null;
+        } else if (lock.isHeldByCurrentThread()) {
             owner = null;
             lock.unlock();
         } else if (lock.isLocked()) {
@@ -112,15 +123,4 @@ public class Square {
         }
     }
 
-    /**
-     * Updates the UI to show the square is locked by a player.
-     *
-     * @param player the player who locked the square
-     */
-    private void updateLabelForLock(Player player) {
-        SwingUtilities.invokeLater(() -> {
-            // label.setText("L:" + player.getId());
-            label.setBorder(BorderFactory.createLineBorder(Color.WHITE, 2));
-        });
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package main.java.protocol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A fixed-size cache of short ASCII Strings, looked up by their bytes.
+ *
+ * Protocol messages repeat the same few identifiers (player IDs, colors) over and over.
+ * Looking them up here returns the String created the first time, so parsing them again
+ * allocates nothing. When the table is full, new values are returned uncached.
+ * Thread-safe: entries are only ever added, and a racing insert at worst creates a
+ * duplicate String.
+ */
+public final class AsciiInterner {
+    private static final int MAX_PROBES = 8;
+    private static final int MAX_CACHED_LENGTH = 32;
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * @param capacity the number of Strings to cache, rounded up to a power of two
+     */
+    public AsciiInterner(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        table = new String[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return the String for the given bytes, from the cache when possible
+     */
+    public String intern(byte[] bytes, int offset, int length) {
+        if (length > MAX_CACHED_LENGTH) {
+            return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + bytes[offset + i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++, slot = (slot + 1) & mask) {
+            String cached = table[slot];
+            if (cached == null) {
+                String value = new String(bytes, offset, length, StandardCharsets.US_ASCII);
+                table[slot] = value;
+                return value;
+            }
+            if (matches(cached, bytes, offset, length)) {
+                return cached;
+            }
+        }
+        return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+    }
+
+    private static boolean matches(String cached, byte[] bytes, int offset, int length) {
+        if (cached.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != bytes[offset + i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,98 @@
+package main.java.protocol;
+
+/**
+ * A command sent by a client, decoded in place.
+ *
+ * One instance belongs to each connection and is overwritten by every message, so
+ * decoding allocates nothing. Fields that the current command does not carry keep
+ * stale values and must not be read.
+ */
+public final class ClientCommand {
+    public static final int MAX_NAME_LENGTH = 24;
+
+    public enum Type {
+        MOVE,       // "MOVE,x,y[,clientStamp,lastRoundTripMicros]"
+        READY,
+        UNREADY,
+        INIT_STATE,
+        RESUME,     // "RESUME,playerId[,room]"
+        PING,       // "PING[,stamp]": the client checks the connection; answered with PONG
+        PONG,       // "PONG,stamp": the answer to the server's PING, echoing its stamp
+        LOBBY_SYNC, // The client missed a lobby diff and asks for the whole lobby
+        NAME,       // "NAME,name": who is playing, the key of their statistics; see isValidName
+        UNKNOWN
+    }
+
+    public Type type = Type.UNKNOWN;
+    public int x;
+    public int y;
+    public boolean hasStamp;        // Whether the MOVE carried the client's stamp
+    public long stamp;              // The client's clock when it sent the MOVE or PING, or the echoed server stamp of a PONG
+    public long reportedRoundTrip;  // The client's last measured round trip, or -1
+    public String argument;         // The player ID of a RESUME, or the name of a NAME
+    public String room;             // The room of a RESUME, or null if the client did not say
+
+    /**
+     * Decodes the reader's current line into this command. Malformed commands decode
+     * as {@link Type#UNKNOWN}.
+     *
+     * @return this command
+     */
+    public ClientCommand readFrom(MessageReader reader) {
+        try {
+            type = switch (reader.nextString()) {
+                case "MOVE" -> readMove(reader);
+                case "READY" -> Type.READY;
+                case "UNREADY" -> Type.UNREADY;
+                case "INIT_STATE" -> Type.INIT_STATE;
+                case "LOBBY_SYNC" -> Type.LOBBY_SYNC;
+                case "PING" -> readStamp(reader, Type.PING);
+                case "PONG" -> readStamp(reader, Type.PONG);
+                case "NAME" -> {
+                    argument = reader.nextString();
+                    yield isValidName(argument) ? Type.NAME : Type.UNKNOWN;
+                }
+                case "RESUME" -> {
+                    argument = reader.nextString();
+                    room = reader.nextString();
+                    yield argument != null ? Type.RESUME : Type.UNKNOWN;
+                }
+                default -> Type.UNKNOWN;
+            };
+        } catch (NumberFormatException e) {
+            type = Type.UNKNOWN;
+        }
+        return this;
+    }
+
+    /**
+     * @return whether a player name is 1 to MAX_NAME_LENGTH letters, digits, '_' or '-'
+     */
+    public static boolean isValidName(String name) {
+        if (name == null || name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Type readStamp(MessageReader reader, Type type) {
+        hasStamp = reader.hasField();
+        stamp = hasStamp ? reader.nextLong() : 0;
+        return type;
+    }
+
+    private Type readMove(MessageReader reader) {
+        x = reader.nextInt();
+        y = reader.nextInt();
+        hasStamp = reader.hasField();
+        stamp = hasStamp ? reader.nextLong() : 0;
+        reportedRoundTrip = reader.hasField() ? reader.nextLong() : -1;
+        return Type.MOVE;
+    }
+}
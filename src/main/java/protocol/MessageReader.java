@@ -0,0 +1,170 @@
+package main.java.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads protocol lines from a stream into one reusable buffer and parses their
+ * comma-separated fields in place.
+ *
+ * {@link #next()} makes the next line current; the field methods then walk it from left
+ * to right. Numbers are parsed from the bytes directly and short identifiers come from an
+ * {@link AsciiInterner}, so reading a typical message allocates nothing. Not thread-safe:
+ * one reader belongs to one connection's reading thread.
+ */
+public final class MessageReader {
+    private static final int MAX_LINE = 16 * 1024;
+
+    private final InputStream in;
+    private final AsciiInterner interner;
+    private final byte[] buffer = new byte[MAX_LINE];
+    private int readPos;   // Start of unconsumed data
+    private int limit;     // End of buffered data
+    private int lineStart;
+    private int lineEnd;   // Exclusive, without the line ending
+    private int cursor;    // Start of the next field, or -1 if the line has no more fields
+
+    /**
+     * @param in the stream to read lines from
+     * @param interner the cache that turns identifiers into shared Strings
+     */
+    public MessageReader(InputStream in, AsciiInterner interner) {
+        this.in = in;
+        this.interner = interner;
+    }
+
+    /**
+     * Advances to the next line, blocking until it is complete. A line that is
+     * unreasonably long is skipped.
+     *
+     * @return false at the end of the stream
+     * @throws IOException if reading fails; a partial line stays buffered, so reading
+     *                     can continue after a timeout
+     */
+    public boolean next() throws IOException {
+        int scan = readPos;
+        while (true) {
+            for (; scan < limit; scan++) {
+                if (buffer[scan] == '\n') {
+                    setLine(readPos, scan);
+                    readPos = scan + 1;
+                    return true;
+                }
+            }
+            if (readPos > 0) {
+                // Move the partial line to the front to make room
+                System.arraycopy(buffer, readPos, buffer, 0, limit - readPos);
+                scan -= readPos;
+                limit -= readPos;
+                readPos = 0;
+            }
+            if (limit == buffer.length) {
+                System.err.println("Skipping a protocol line longer than " + MAX_LINE + " bytes");
+                limit = 0;
+                scan = 0;
+            }
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                if (limit > readPos) {
+                    // Last line without a line ending
+                    setLine(readPos, limit);
+                    readPos = limit;
+                    return true;
+                }
+                return false;
+            }
+            limit += read;
+        }
+    }
+
+    private void setLine(int start, int end) {
+        if (end > start && buffer[end - 1] == '\r') end--;
+        lineStart = start;
+        lineEnd = end;
+        cursor = start;
+    }
+
+    /**
+     * @return whether the current line has another field
+     */
+    public boolean hasField() {
+        return cursor >= 0;
+    }
+
+    /**
+     * Parses the next field as an int.
+     *
+     * @throws NumberFormatException if there is no next field or it is not a number
+     */
+    public int nextInt() {
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the next field as a long.
+     *
+     * @throws NumberFormatException if there is no next field or it is not a number
+     */
+    public long nextLong() {
+        if (cursor < 0) throw new NumberFormatException("Missing field in: " + line());
+        int pos = cursor;
+        boolean negative = pos < lineEnd && buffer[pos] == '-';
+        if (negative) pos++;
+        int digitsStart = pos;
+        long value = 0;
+        for (; pos < lineEnd && buffer[pos] != ','; pos++) {
+            int digit = buffer[pos] - '0';
+            if (digit < 0 || digit > 9 || pos - digitsStart >= 19) {
+                throw new NumberFormatException("Not a number in: " + line());
+            }
+            value = value * 10 + digit;
+        }
+        if (pos == digitsStart) throw new NumberFormatException("Empty number in: " + line());
+        advancePast(pos);
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return the next field as a String, shared through the interner (no allocation for
+     *         identifiers seen before)
+     */
+    public String nextString() {
+        if (cursor < 0) return null;
+        int end = fieldEnd(cursor);
+        String value = interner.intern(buffer, cursor, end - cursor);
+        advancePast(end);
+        return value;
+    }
+
+    /**
+     * @return everything after the consumed fields, as a new String ("" if nothing is left)
+     */
+    public String rest() {
+        if (cursor < 0) return "";
+        String value = new String(buffer, cursor, lineEnd - cursor, StandardCharsets.US_ASCII);
+        cursor = -1;
+        return value;
+    }
+
+    /**
+     * @return the whole current line as a new String, for rare messages and logging
+     */
+    public String line() {
+        return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.US_ASCII);
+    }
+
+    private int fieldEnd(int from) {
+        int end = from;
+        while (end < lineEnd && buffer[end] != ',') end++;
+        return end;
+    }
+
+    private void advancePast(int fieldEnd) {
+        cursor = fieldEnd < lineEnd ? fieldEnd + 1 : -1;
+    }
+}
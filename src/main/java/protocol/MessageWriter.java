@@ -0,0 +1,146 @@
+package main.java.protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds one protocol line in a reusable byte buffer.
+ *
+ * The protocol is plain ASCII, so strings and numbers are written straight into the
+ * buffer: no intermediate Strings, char arrays or encoders. A writer is meant to be
+ * reset and reused for every message, and is not thread-safe.
+ */
+public final class MessageWriter {
+    private static final byte[] MIN_LONG = "-9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buffer;
+    private int length;
+
+    public MessageWriter() {
+        this(256);
+    }
+
+    public MessageWriter(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Starts a new message, discarding the current one.
+     */
+    public MessageWriter reset() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Appends ASCII text. Other characters are written as '?'.
+     */
+    public MessageWriter append(String text) {
+        int count = text.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            buffer[length++] = c < 0x80 ? (byte) c : (byte) '?';
+        }
+        return this;
+    }
+
+    public MessageWriter append(char c) {
+        ensureCapacity(1);
+        buffer[length++] = c < 0x80 ? (byte) c : (byte) '?';
+        return this;
+    }
+
+    /**
+     * Appends a number in decimal.
+     */
+    public MessageWriter append(long value) {
+        if (value == Long.MIN_VALUE) {
+            ensureCapacity(MIN_LONG.length);
+            System.arraycopy(MIN_LONG, 0, buffer, length, MIN_LONG.length);
+            length += MIN_LONG.length;
+            return this;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        // Write the digits backwards, then reverse them in place
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+        return this;
+    }
+
+    /**
+     * Appends a comma and a field: the usual way to add an argument.
+     */
+    public MessageWriter field(String text) {
+        return append(',').append(text);
+    }
+
+    public MessageWriter field(long value) {
+        return append(',').append(value);
+    }
+
+    /**
+     * Ends the line. The message is complete and ready to be written.
+     */
+    public MessageWriter end() {
+        return append('\n');
+    }
+
+    public byte[] getBuffer() { return buffer; }
+    public int getLength() { return length; }
+
+    /**
+     * Writes the message with one call, so it is never interleaved with another.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+    }
+
+    /**
+     * @return the command of the message: the text before the first comma or line end
+     */
+    public String getCommand() {
+        return commandOf(buffer, 0, length);
+    }
+
+    /**
+     * @return the command of an encoded message: the text before the first comma or line end
+     */
+    public static String commandOf(byte[] message, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && message[end] != ',' && message[end] != '\n') {
+            end++;
+        }
+        return new String(message, offset, end - offset, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return the message without its line ending, as a String (allocates; for logging)
+     */
+    @Override
+    public String toString() {
+        int end = length > 0 && buffer[length - 1] == '\n' ? length - 1 : length;
+        return new String(buffer, 0, end, StandardCharsets.US_ASCII);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, length + extra)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+}
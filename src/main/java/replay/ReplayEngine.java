@@ -0,0 +1,196 @@
+package main.java.replay;
+
+import main.java.journal.JournalReader;
+import main.java.journal.JournalRecord;
+import main.java.journal.MatchState;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reconstructs a recorded match from its journal.
+ *
+ * The engine keeps a cursor into the record list and a {@link MatchState} describing the
+ * board at that cursor. Moving forward applies records one by one; seeking restores the
+ * closest keyframe at or before the target time and applies only the records after it.
+ */
+public class ReplayEngine {
+    private final Path file;
+    private final List<JournalRecord> records;
+    private final List<Integer> keyframes = new ArrayList<>(); // Indexes of KEYFRAME records
+    private MatchState state;
+    private int cursor = 0; // Index of the next record to apply
+
+    /**
+     * Creates an engine over already loaded records.
+     *
+     * @param file the journal the records came from (used for reporting)
+     * @param records the records in sequence order, starting with a keyframe
+     */
+    public ReplayEngine(Path file, List<JournalRecord> records) {
+        this.file = file;
+        this.records = records;
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).type == JournalRecord.KEYFRAME) {
+                keyframes.add(i);
+            }
+        }
+        if (keyframes.isEmpty() || keyframes.get(0) != 0) {
+            throw new IllegalArgumentException("Journal does not start with a keyframe: " + file);
+        }
+        restoreKeyframe(0);
+    }
+
+    /**
+     * Loads a journal file.
+     *
+     * @param file the journal file
+     * @return an engine positioned at the start of the match
+     * @throws IOException if the file cannot be read
+     */
+    public static ReplayEngine load(Path file) throws IOException {
+        return new ReplayEngine(file, JournalReader.readAll(file));
+    }
+
+    public Path getFile() { return file; }
+    public MatchState getState() { return state; }
+    public long getStartTime() { return records.get(0).timestamp; }
+    public long getEndTime() { return records.get(records.size() - 1).timestamp; }
+    public boolean isFinished() { return cursor >= records.size(); }
+
+    /**
+     * Finds when the first record of a given type happened.
+     *
+     * @param type a journal record type
+     * @return its timestamp, or the start of the match if there is none
+     */
+    public long firstTimeOf(byte type) {
+        for (JournalRecord record : records) {
+            if (record.type == type) return record.timestamp;
+        }
+        return getStartTime();
+    }
+
+    /**
+     * Applies every record with a timestamp up to and including the given time.
+     *
+     * @param timestamp the time to advance to
+     * @param listener notified of each applied record (may be null)
+     */
+    public void advanceTo(long timestamp, Consumer<JournalRecord> listener) {
+        while (cursor < records.size() && records.get(cursor).timestamp <= timestamp) {
+            JournalRecord record = records.get(cursor++);
+            state.apply(record);
+            if (listener != null) {
+                listener.accept(record);
+            }
+        }
+    }
+
+    /**
+     * Positions the replay at the given time, going backwards if needed.
+     *
+     * @param timestamp the time to seek to
+     */
+    public void seek(long timestamp) {
+        int keyframe = findKeyframe(timestamp);
+        // Only restore when it saves work or when going backwards
+        if (keyframe >= cursor || timestamp < state.getLastTimestamp()) {
+            restoreKeyframe(keyframe);
+        }
+        advanceTo(timestamp, null);
+    }
+
+    /**
+     * Binary search for the last keyframe whose timestamp is at or before the given time.
+     */
+    private int findKeyframe(long timestamp) {
+        int low = 0;
+        int high = keyframes.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (records.get(keyframes.get(mid)).timestamp <= timestamp) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return keyframes.get(low);
+    }
+
+    private void restoreKeyframe(int index) {
+        state = MatchState.fromKeyframe(records.get(index));
+        cursor = index + 1;
+    }
+
+    /**
+     * Replays the whole match from the start and checks that it is consistent: every move
+     * goes to an adjacent in-bounds cell, nobody claims a cell owned by someone else,
+     * every keyframe matches the state rebuilt from events, and the recorded final scores
+     * match the board.
+     *
+     * @return a list of problems found (empty if the match verified)
+     */
+    public List<String> verify() {
+        List<String> problems = new ArrayList<>();
+        restoreKeyframe(0);
+
+        while (cursor < records.size()) {
+            JournalRecord record = records.get(cursor++);
+            switch (record.type) {
+                case JournalRecord.MOVE -> checkMove(record, problems);
+                case JournalRecord.CLAIM -> {
+                    String owner = state.getOwner(record.x, record.y);
+                    if (owner != null && !owner.equals(record.playerId)) {
+                        problems.add(record + ": claimed a cell owned by " + owner);
+                    }
+                }
+                case JournalRecord.KEYFRAME -> {
+                    if (!MatchState.fromKeyframe(record).sameBoardAs(state)) {
+                        problems.add(record + ": keyframe does not match replayed events");
+                    }
+                }
+                case JournalRecord.GAME_OVER -> checkScores(record, problems);
+                default -> {
+                }
+            }
+            state.apply(record);
+        }
+        return problems;
+    }
+
+    private void checkMove(JournalRecord move, List<String> problems) {
+        MatchState.PlayerState player = state.getPlayers().get(move.playerId);
+        int size = state.getSize();
+        if (player == null) {
+            problems.add(move + ": unknown player");
+        } else if (player.x != move.x || player.y != move.y) {
+            problems.add(move + ": player was at (" + player.x + "," + player.y + ")");
+        }
+        if (move.toX < 0 || move.toX >= size || move.toY < 0 || move.toY >= size) {
+            problems.add(move + ": out of bounds");
+        } else if (Math.abs(move.toX - move.x) + Math.abs(move.toY - move.y) != 1) {
+            problems.add(move + ": not an adjacent cell");
+        }
+    }
+
+    private void checkScores(JournalRecord gameOver, List<String> problems) {
+        Map<String, Integer> scores = state.countScores();
+        for (String entry : gameOver.text.split(";")) {
+            if (entry.isEmpty()) continue;
+            String[] parts = entry.split(":");
+            int recorded = Integer.parseInt(parts[1]);
+            int replayed = scores.getOrDefault(parts[0], 0);
+            if (recorded != replayed) {
+                problems.add(gameOver + ": " + parts[0] + " scored " + recorded + " but replay gives " + replayed);
+            }
+        }
+        if (scores.getOrDefault(gameOver.playerId, 0) != gameOver.value) {
+            problems.add(gameOver + ": winner score does not match the board");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package main.java.replay;
+
+import main.java.journal.JournalRecord;
+import main.java.journal.MatchState;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Command line entry point for working with recorded matches.
+ *
+ * Usage:
+ *   verify FILE_OR_DIR...      Replays every journal headlessly and reports inconsistencies
+ *   show FILE SECONDS          Prints the board SECONDS after the first player joined
+ *   view FILE [SPEED]          Opens the visual replay at the given speed (1-64)
+ */
+public class ReplayTool {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ReplayTool verify FILE_OR_DIR... | show FILE SECONDS | view FILE [SPEED]");
+            System.exit(1);
+        }
+
+        switch (args[0]) {
+            case "verify" -> {
+                List<Path> files = new ArrayList<>();
+                for (int i = 1; i < args.length; i++) {
+                    collectJournals(Paths.get(args[i]), files);
+                }
+                System.exit(verifyAll(files) ? 0 : 2);
+            }
+            case "show" -> {
+                ReplayEngine engine = ReplayEngine.load(Paths.get(args[1]));
+                engine.seek(engine.firstTimeOf(JournalRecord.JOIN)
+                        + (long) (Double.parseDouble(args[2]) * 1000));
+                printBoard(engine.getState());
+            }
+            case "view" -> {
+                ReplayEngine engine = ReplayEngine.load(Paths.get(args[1]));
+                int speed = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+                SwingUtilities.invokeLater(() -> new ReplayViewer(engine, speed));
+            }
+            default -> {
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Adds the journal files found at a path (a file or a directory tree) to the list.
+     */
+    private static void collectJournals(Path path, List<Path> files) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                walk.filter(p -> p.toString().endsWith(".journal")).forEach(files::add);
+            }
+        } else {
+            files.add(path);
+        }
+    }
+
+    /**
+     * Verifies every match in parallel, one task per journal.
+     *
+     * @param files the journal files to verify
+     * @return true if every match verified
+     */
+    private static boolean verifyAll(List<Path> files) throws InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (Path file : files) {
+            results.add(pool.submit(() -> ReplayEngine.load(file).verify()));
+        }
+
+        int failed = 0;
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                List<String> problems = results.get(i).get();
+                if (!problems.isEmpty()) {
+                    failed++;
+                    System.out.println("FAILED " + files.get(i));
+                    problems.forEach(problem -> System.out.println("  " + problem));
+                }
+            } catch (Exception e) {
+                failed++;
+                System.out.println("FAILED " + files.get(i) + ": " + e.getCause());
+            }
+        }
+        pool.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Verified %d matches (%d failed) in %.2fs (%.0f matches/min)%n",
+                files.size(), failed, seconds, files.size() / Math.max(seconds, 1e-9) * 60);
+        return failed == 0;
+    }
+
+    /**
+     * Prints the board as text: each cell shows its owner's ID, '*' marks a player's position.
+     */
+    private static void printBoard(MatchState state) {
+        for (int y = 0; y < state.getSize(); y++) {
+            StringBuilder row = new StringBuilder();
+            for (int x = 0; x < state.getSize(); x++) {
+                String owner = state.getOwner(x, y);
+                boolean occupied = false;
+                for (MatchState.PlayerState player : state.getPlayers().values()) {
+                    occupied |= player.x == x && player.y == y;
+                }
+                row.append(String.format("%-4s", (owner == null ? "." : owner) + (occupied ? "*" : "")));
+            }
+            System.out.println(row);
+        }
+        System.out.println("Scores: " + state.countScores());
+    }
+}
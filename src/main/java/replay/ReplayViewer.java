@@ -0,0 +1,128 @@
+package main.java.replay;
+
+import main.java.client.GameGUI;
+import main.java.journal.JournalRecord;
+import main.java.journal.MatchState;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.util.Map;
+
+/**
+ * Plays a recorded match back through the regular game board of {@link GameGUI}.
+ *
+ * Controls: SPACE pauses/resumes, '[' and ']' halve/double the speed (1x to 64x),
+ * ',' and '.' seek five seconds backwards/forwards.
+ */
+public class ReplayViewer {
+    private static final int FRAME_MS = 16;
+    private static final int MAX_SPEED = 64;
+    private static final long SEEK_STEP_MS = 5000;
+
+    private final ReplayEngine engine;
+    private final GameGUI gui;
+    private final Timer timer;
+    private long playhead; // Current replay time
+    private int speed;
+    private boolean paused = false;
+
+    /**
+     * Creates a viewer for a loaded match. Must be called on the Event Dispatch Thread.
+     *
+     * @param engine the replay engine holding the match
+     * @param speed the initial playback speed multiplier
+     */
+    public ReplayViewer(ReplayEngine engine, int speed) {
+        this.engine = engine;
+        this.speed = Math.max(1, Math.min(MAX_SPEED, speed));
+        this.playhead = engine.firstTimeOf(JournalRecord.JOIN);
+
+        gui = new GameGUI(null);
+        gui.setTitle("Onigiri Wars - Replay of " + engine.getFile().getFileName());
+
+        // Show the first player that joined as the local player so sprites are loaded
+        engine.advanceTo(playhead, null);
+        Map<String, MatchState.PlayerState> players = engine.getState().getPlayers();
+        if (!players.isEmpty()) {
+            MatchState.PlayerState first = players.values().iterator().next();
+            gui.setLocalPlayer(first.id, first.x, first.y, first.color, engine.getState().getSize());
+        }
+        gui.startGame();
+        showCurrentState();
+
+        timer = new Timer(FRAME_MS, _ -> tick());
+        setupControls();
+        timer.start();
+    }
+
+    /**
+     * Advances the replay by one frame's worth of match time.
+     */
+    private void tick() {
+        if (paused) return;
+        playhead += (long) FRAME_MS * speed;
+        engine.advanceTo(playhead, this::render);
+        if (engine.isFinished()) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Forwards a single replayed record to the game board.
+     */
+    private void render(JournalRecord record) {
+        switch (record.type) {
+            case JournalRecord.JOIN ->
+                    gui.addPlayer(record.playerId, record.x, record.y, record.text);
+            case JournalRecord.MOVE -> {
+                MatchState.PlayerState player = engine.getState().getPlayers().get(record.playerId);
+                String color = player != null ? player.color : "";
+                gui.updateMaze(record.playerId, record.toX, record.toY, color);
+            }
+            case JournalRecord.LEAVE -> gui.removePlayer(record.playerId);
+            case JournalRecord.GAME_OVER -> gui.showGameOver(record.playerId, record.value, record.text);
+            default -> {
+            }
+        }
+    }
+
+    private void seek(long timestamp) {
+        playhead = Math.max(engine.getStartTime(), Math.min(engine.getEndTime(), timestamp));
+        engine.seek(playhead);
+        showCurrentState();
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    private void showCurrentState() {
+        MatchState state = engine.getState();
+        gui.loadBoard(state.toPlayers(), state.copyOwners());
+    }
+
+    private void setupControls() {
+        InputMap im = gui.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap am = gui.getRootPane().getActionMap();
+
+        im.put(KeyStroke.getKeyStroke("SPACE"), "replayPause");
+        im.put(KeyStroke.getKeyStroke('['), "replaySlower");
+        im.put(KeyStroke.getKeyStroke(']'), "replayFaster");
+        im.put(KeyStroke.getKeyStroke(','), "replayBack");
+        im.put(KeyStroke.getKeyStroke('.'), "replayForward");
+
+        am.put("replayPause", action(() -> paused = !paused));
+        am.put("replaySlower", action(() -> speed = Math.max(1, speed / 2)));
+        am.put("replayFaster", action(() -> speed = Math.min(MAX_SPEED, speed * 2)));
+        am.put("replayBack", action(() -> seek(playhead - SEEK_STEP_MS)));
+        am.put("replayForward", action(() -> seek(playhead + SEEK_STEP_MS)));
+    }
+
+    private static Action action(Runnable runnable) {
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                runnable.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package main.java.server;
+
+import main.java.metrics.ServerMetrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides, on the accepting thread, whether the server takes on another connection.
+ *
+ * A connection is turned away before it gets a thread in any of these cases:
+ * - too many clients are connected;
+ * - the matchmaking queue is full;
+ * - the heap is nearly full even after garbage collection;
+ * - the game timers run late, i.e. the server's ticks overrun.
+ * A refused client gets "SERVER_BUSY,retryAfterSeconds,reason" and the connection is
+ * closed. The retry delay grows with the overload and is jittered, so refused clients
+ * do not all come back at once. Running matches keep their full share of the server.
+ */
+public class AdmissionController {
+    // Limits; each can be set with -Donigiri.<name>=N
+    private static final int MAX_CONNECTIONS = Integer.getInteger("onigiri.maxConnections", 10_000);
+    private static final double MAX_HEAP_FRACTION = Integer.getInteger("onigiri.maxHeapPercent", 90) / 100.0;
+    private static final long MAX_TIMER_LAG_MICROS = Integer.getInteger("onigiri.maxTimerLagMs", 200) * 1000L;
+    private static final int BASE_RETRY_SECONDS = 5;
+    private static final int MAX_RETRY_SECONDS = 120;
+
+    private final Matchmaker matchmaker;
+    private final ServerMetrics metrics;
+    // Heap pools that report their usage after the last collection
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+
+    public AdmissionController(Matchmaker matchmaker, ServerMetrics metrics) {
+        this.matchmaker = matchmaker;
+        this.metrics = metrics;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                heapPools.add(pool);
+            }
+        }
+    }
+
+    /**
+     * Admits a new connection, or turns it away with SERVER_BUSY and closes it.
+     *
+     * @param socket the accepted connection
+     * @return whether the connection may be handed to a ClientHandler
+     */
+    public boolean admit(Socket socket) {
+        String message = check();
+        if (message == null) {
+            return true;
+        }
+        metrics.connectionShed();
+        try (socket) {
+            // A fresh connection's send buffer is empty, so this does not block the accepting thread
+            OutputStream out = socket.getOutputStream();
+            out.write((message + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        } catch (IOException e) {
+            // The client is gone already
+        }
+        return false;
+    }
+
+    /**
+     * @return the SERVER_BUSY message for a new connection, or null if it can be admitted
+     */
+    private String check() {
+        int connections = metrics.getActiveConnections();
+        if (connections >= MAX_CONNECTIONS) {
+            return busyMessage("connections", (double) connections / MAX_CONNECTIONS);
+        }
+        if (matchmaker.isQueueFull()) {
+            return busyMessage("queue", 1);
+        }
+        double heap = heapFractionAfterGc();
+        if (heap >= MAX_HEAP_FRACTION) {
+            return busyMessage("memory", 1 + 10 * (heap - MAX_HEAP_FRACTION));
+        }
+        long lag = metrics.getRecentSchedulerLagMicros();
+        if (lag >= MAX_TIMER_LAG_MICROS) {
+            return busyMessage("overloaded", (double) lag / MAX_TIMER_LAG_MICROS);
+        }
+        return null;
+    }
+
+    /**
+     * @return the share of the maximum heap still in use after the last garbage collection
+     */
+    private double heapFractionAfterGc() {
+        long max = Runtime.getRuntime().maxMemory();
+        if (heapPools.isEmpty() || max == Long.MAX_VALUE) {
+            Runtime runtime = Runtime.getRuntime();
+            return (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+        }
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return (double) used / max;
+    }
+
+    /**
+     * Builds a SERVER_BUSY message with a retry delay that grows with the overload and
+     * is spread by up to a quarter either way.
+     *
+     * @param reason why the client is turned away
+     * @param overload how far over its limit the server is; 1 means at the limit
+     * @return the message
+     */
+    static String busyMessage(String reason, double overload) {
+        double seconds = BASE_RETRY_SECONDS * Math.max(1, overload) * ThreadLocalRandom.current().nextDouble(0.75, 1.25);
+        return "SERVER_BUSY," + (int) Math.min(MAX_RETRY_SECONDS, Math.ceil(seconds)) + "," + reason;
+    }
+}
@@ -1,63 +1,251 @@
 package main.java.server;
 
+import main.java.jfr.ClientWriteEvent;
+import main.java.jfr.ConnectionEvent;
+import main.java.metrics.ServerMetrics;
 import main.java.model.Player;
+import main.java.protocol.AsciiInterner;
+import main.java.protocol.ClientCommand;
+import main.java.protocol.MessageReader;
+import main.java.protocol.MessageWriter;
+import main.java.timer.Timeout;
+import main.java.timer.TimerWheel;
 
 import java.io.*;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Handles communication with an individual game client.
  * This class is responsible for assigning players, processing client commands,
  * sending and receiving messages, and broadcasting game state updates.
  *
- * The ClientHandler also implements the Observer interface to receive updates from the GameServer.
- * This decouples the ClientHandler's responsibilities from the GameServer's core logic,
- * allowing for more flexible and maintainable code. The ClientHandler listens for changes in the game
- * state and reacts accordingly by sending updates to the client.
+ * Once the ClientHandler joins a room, the room's broadcasts are written to the client
+ * through {@link #send(byte[], int)}, keeping the client in sync with the game state.
  */
-public class ClientHandler implements Runnable, Observer {
-    private final GameServerInterface gameServer;
+public class ClientHandler implements Runnable {
+    private static final int RESUME_WAIT_MS = 1000; // How long to wait for RESUME after a recovery
+    private static final int QUEUE_POLL_MS = 1000;  // How often a queued client that ignores PING looks for its room
+    // Every client is pinged this often; set with -Donigiri.pingIntervalMs=N, 0 turns heartbeats off
+    private static final long PING_INTERVAL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Integer.getInteger("onigiri.pingIntervalMs", 5000));
+    // A client that sends nothing (not even PONG) for this long is disconnected; -Donigiri.idleTimeoutMs=N
+    private static final long IDLE_TIMEOUT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Integer.getInteger("onigiri.idleTimeoutMs", 15000));
+    // A client that keeps one write from finishing for this long is disconnected; -Donigiri.writeTimeoutMs=N
+    private static final long WRITE_TIMEOUT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Integer.getInteger("onigiri.writeTimeoutMs", 5000));
+    // Command names and player IDs read by every handler
+    private static final AsciiInterner interner = new AsciiInterner(256);
+    // Write the messages posted by timer tasks and the matchmaker, which must never wait on a client's socket
+    private static final ExecutorService outboxSenders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Matchmaker matchmaker;                // Finds this client a room; null if it was given one
+    private GameServerInterface gameServer;             // The client's room; null while it is queued
+    private volatile GameServerInterface assignedRoom;  // Chosen by the matchmaker, joined by this thread
+    private final ServerMetrics metrics;
+    private final TimerWheel timers;
     private final Socket socket;
-    private PrintWriter out;
+    private final OutputStream out;
+    // Not a monitor: a virtual sender thread blocked writing under a monitor would pin its carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final MessageWriter messageWriter = new MessageWriter(); // Encodes sendMessage(), guarded by writeLock
+    private final MessageWriter replyWriter = new MessageWriter();   // MOVE replies, used by this handler's thread only
+    private final ClientCommand command = new ClientCommand();      // The command being handled, reused for each
     private Player player;
+    private volatile String playerName; // Sent by the client with NAME, or null
+    private final AtomicInteger pendingSends = new AtomicInteger(); // Threads writing to this client
+    private final Queue<byte[]> outbox = new ConcurrentLinkedQueue<>(); // Posted lines not written yet
+    private final AtomicBoolean outboxScheduled = new AtomicBoolean(); // A sender is draining the outbox
+    private long receivedAt; // System.nanoTime() when the message being handled was read
+    private volatile long lastReadAt;   // System.nanoTime() when the client last sent anything
+    private volatile long writeStartedAt = 0; // System.nanoTime() when the write in progress began, 0 if none
+    private volatile Timeout heartbeat; // The next heartbeat check, on the connection timer wheel
+    private volatile boolean closed = false;
+    private volatile long roundTripMicros = -1; // The last heartbeat round trip, -1 until one is measured
 
     /**
-     * This method is called when the observed GameServer sends an update.
-     * It handles the game server's broadcast messages and sends them to the client.
+     * Constructor for creating a new ClientHandler.
      *
-     * The ClientHandler listens for updates from the GameServer and ensures that the client is kept in sync
-     * with the game state (e.g., game status, player actions, etc.).
+     * This constructor initializes the ClientHandler with a connection to the game server and the client socket.
+     * It also joins the game server's clients to receive its broadcasts (e.g., player movements, game
+     * status updates, etc.).
      *
-     * @param message The message received from the game server to be sent to the client.
+     * @param gameServer The game server instance whose game the client joins.
+     * @param socket The socket connection to the client.
      */
-    @Override
-    public void update(String message) {
-        sendMessage(message);
+    public ClientHandler(GameServerInterface gameServer, Socket socket) {
+        this(null, gameServer, gameServer.getMetrics(), gameServer.getConnectionTimers(), socket);
+        assignedRoom = gameServer;
+        gameServer.addClient(this);  // Receive the room's broadcasts
     }
 
     /**
-     * Constructor for creating a new ClientHandler.
+     * Creates a handler for a client that waits in the matchmaking queue for a room.
      *
-     * This constructor initializes the ClientHandler with a connection to the game server and the client socket.
-     * It also registers the ClientHandler as an observer of the game server to receive updates regarding
-     * game state changes (e.g., player movements, game status updates, etc.).
-     *
-     * @param gameServer The game server instance that the ClientHandler will observe for game state changes.
+     * @param matchmaker The matchmaker that places the client in a room.
      * @param socket The socket connection to the client.
      */
-    public ClientHandler(GameServerInterface gameServer, Socket socket) {
+    public ClientHandler(Matchmaker matchmaker, Socket socket) {
+        this(matchmaker, null, matchmaker.getMetrics(), matchmaker.getConnectionTimers(), socket);
+    }
+
+    private ClientHandler(Matchmaker matchmaker, GameServerInterface gameServer, ServerMetrics metrics,
+                          TimerWheel timers, Socket socket) {
+        this.matchmaker = matchmaker;
         this.gameServer = gameServer;
+        this.metrics = metrics;
+        this.timers = timers;
         this.socket = socket;
-        gameServer.addObserver(this);  // Register itself as an observer
+        // Opened here rather than in run(), so broadcasts can reach the client right away
+        OutputStream stream;
+        try {
+            stream = socket.getOutputStream();
+        } catch (IOException e) {
+            System.err.println("Could not open the connection to a client: " + e.getMessage());
+            stream = OutputStream.nullOutputStream(); // run() fails on the same socket and cleans up
+        }
+        this.out = stream;
     }
 
     /**
-     * Sends a message to the client.
+     * Sends a message to the client. Messages still waiting in the outbox go first: the
+     * message joins them rather than overtaking them.
      *
      * @param message The message to be sent to the client.
      */
     public void sendMessage(String message) {
-        out.println(message);
+        if (!outbox.isEmpty()) {
+            post(message);
+            return;
+        }
+        // Writes are synchronous, so the send queue is the threads lined up on the writer
+        metrics.recordSend(pendingSends.incrementAndGet());
+        try {
+            writeLock.lock();
+            try {
+                messageWriter.reset().append(message).end();
+                write(messageWriter.getBuffer(), messageWriter.getLength());
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            pendingSends.decrementAndGet();
+        }
+    }
+
+    /**
+     * Sends an encoded message to the client. The bytes are written, or copied into the
+     * outbox behind the messages waiting there, before this returns, so the caller may
+     * reuse its buffer afterwards.
+     *
+     * @param message The buffer holding one complete protocol line
+     * @param length The length of the line, including its line ending
+     */
+    public void send(byte[] message, int length) {
+        if (!outbox.isEmpty()) {
+            post(Arrays.copyOf(message, length));
+            return;
+        }
+        metrics.recordSend(pendingSends.incrementAndGet());
+        try {
+            writeLock.lock();
+            try {
+                write(message, length);
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            pendingSends.decrementAndGet();
+        }
+    }
+
+    /**
+     * Queues a message for the client and returns at once; a sender thread writes it.
+     * For callers that must not block on a slow or dead connection, such as timer tasks.
+     * Posted messages are written in the order they were posted, and before any message
+     * sent after them.
+     *
+     * @param message The message to be sent to the client.
+     */
+    void post(String message) {
+        MessageWriter line = new MessageWriter().append(message).end();
+        post(Arrays.copyOf(line.getBuffer(), line.getLength()));
+    }
+
+    /**
+     * Queues an encoded message for the client and returns at once, like {@link #post(String)}.
+     *
+     * @param line one complete protocol line; it is not copied, so it must not change
+     *             afterwards, but one line may be posted to many clients
+     */
+    void post(byte[] line) {
+        if (closed) {
+            return;
+        }
+        outbox.offer(line);
+        if (outboxScheduled.compareAndSet(false, true)) {
+            outboxSenders.execute(this::drainOutbox);
+        }
+    }
+
+    /**
+     * Sender thread: writes everything posted, then lets the next post start a new sender.
+     * A line leaves the outbox only once it is written, so a message sent directly in the
+     * meantime sees the outbox non-empty and queues behind it.
+     */
+    private void drainOutbox() {
+        do {
+            byte[] line;
+            while (!closed && (line = outbox.peek()) != null) {
+                metrics.recordSend(pendingSends.incrementAndGet());
+                try {
+                    writeLock.lock();
+                    try {
+                        write(line, line.length);
+                    } finally {
+                        writeLock.unlock();
+                    }
+                } finally {
+                    pendingSends.decrementAndGet();
+                }
+                outbox.poll();
+            }
+            outboxScheduled.set(false);
+            // Something posted after the last poll found the flag still set
+        } while (!closed && !outbox.isEmpty() && outboxScheduled.compareAndSet(false, true));
+    }
+
+    /**
+     * Writes one message with a single call, so it goes out in one segment. Must be
+     * called while holding writeLock.
+     */
+    private void write(byte[] message, int length) {
+        ClientWriteEvent event = new ClientWriteEvent();
+        event.begin();
+        writeStartedAt = System.nanoTime();
+        try {
+            out.write(message, 0, length);
+        } catch (IOException e) {
+            // The connection is gone; the reading thread notices and cleans up
+        } finally {
+            writeStartedAt = 0;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.playerId = getPlayerId();
+            event.messageType = MessageWriter.commandOf(message, 0, length);
+            event.bytes = length;
+            event.commit();
+        }
     }
 
     /**
@@ -67,35 +255,71 @@ public class ClientHandler implements Runnable, Observer {
      */
     @Override
     public void run() {
+        ConnectionEvent connected = new ConnectionEvent();
+        connected.connected = true;
+        connected.remoteAddress = String.valueOf(socket.getRemoteSocketAddress());
+        connected.commit();
+        lastReadAt = System.nanoTime();
+        scheduleHeartbeat(PING_INTERVAL_NANOS);
         try {
-            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            out = new PrintWriter(socket.getOutputStream(), true);
-
-            // Check if the server has space for more players
-            if (gameServer.getPlayerCount() > gameServer.getMaxPlayers()) {
-                sendMessage("SERVER_FULL");
-                socket.close();
-                return;
-            }
+            MessageReader in = new MessageReader(socket.getInputStream(), interner);
 
-            // Assign a player ID and position, then initialize the player
-            String playerId = "P" + gameServer.getNextPlayerId();
-            int[] startPos = getCornerPosition(playerId);
-            String playerColor = getCornerColor(playerId);
-            this.player = new Player(playerId, startPos[0], startPos[1], playerColor);
+            // After a crash recovery, a reconnecting client identifies itself first
+            boolean firstMessagePending = false;
+            if (hasPendingResumes() && readResumeRequest(in)) {
+                command.readFrom(in);
+                if (command.type == ClientCommand.Type.RESUME) {
+                    this.player = resume(command.argument, command.room);
+                } else {
+                    firstMessagePending = true;
+                }
+            }
 
-            // Add player to the game and lock the initial position
-            gameServer.addPlayer(player);
-            gameServer.getGrid().getSquare(startPos[0], startPos[1]).tryLock(player);
+            if (player != null) {
+                resumePlayer();
+            } else {
+                if (gameServer == null) {
+                    // Wait in the matchmaking queue; only heartbeats mean anything before the room
+                    if (firstMessagePending) {
+                        handleWhileQueued(command);
+                        firstMessagePending = false;
+                    }
+                    int position = matchmaker.enqueue(this);
+                    if (position < 0) {
+                        sendMessage(AdmissionController.busyMessage("queue", 1));
+                        socket.close();
+                        return;
+                    }
+                    sendMessage("QUEUED," + position);
+                    if (!waitForRoom(in)) {
+                        return;
+                    }
+                }
+                // The room may have filled up or started its match since the matchmaker chose it
+                while (!assignNewPlayer()) {
+                    if (matchmaker == null) {
+                        sendMessage("SERVER_FULL");
+                        socket.close();
+                        return;
+                    }
+                    returnToQueue();
+                    if (!waitForRoom(in)) {
+                        return;
+                    }
+                }
+            }
 
-            // Send player assignment and broadcast player join
-            sendMessage("ASSIGN_PLAYER," + playerId + "," + startPos[0] + "," + startPos[1] + "," + playerColor);
-            gameServer.broadcast("PLAYER_JOINED," + playerId + "," + startPos[0] + "," + startPos[1] + "," + playerColor);
+            if (firstMessagePending) {
+                receivedAt = System.nanoTime();
+                lastReadAt = receivedAt;
+                handleClientMessage(command);
+            }
 
             // Continuously read and process messages from the client
-            String message;
-            while ((message = in.readLine()) != null) {
-                handleClientMessage(message);
+            while (in.next()) {
+                receivedAt = System.nanoTime();
+                lastReadAt = receivedAt;
+                handleClientMessage(command.readFrom(in));
             }
         } catch (IOException e) {
             System.out.println("Client disconnected: " + (player != null ? player.getId() : "unknown"));
@@ -105,71 +329,226 @@ public class ClientHandler implements Runnable, Observer {
     }
 
     /**
-     * Determines the starting position for a player based on their ID.
-     * The positions correspond to the four corners of the grid.
+     * Creates a player for a newly connected client and announces it. The server adds
+     * the player and locks its start square from this connection's thread.
      *
-     * @param playerId The ID of the player (e.g., P1, P2).
-     * @return An array of two integers, [x, y], representing the starting position.
+     * @return false if the room is full, has no free start square or is past its lobby
+     */
+    private boolean assignNewPlayer() {
+        // Check if the server has space for more players
+        if (gameServer.getPlayerCount() >= gameServer.getMaxPlayers()) {
+            return false;
+        }
+        this.player = gameServer.joinPlayer();
+        if (player == null) {
+            return false;
+        }
+        player.setName(playerName);
+        String playerId = player.getId();
+        int x = player.getX();
+        int y = player.getY();
+
+        // Send player assignment (with the grid size, which clients draw, and the room to resume
+        // into after a server restart) and broadcast player join
+        sendMessage("ASSIGN_PLAYER," + playerId + "," + x + "," + y + "," + player.getColor() + ","
+                + gameServer.getGrid().getSize() + "," + gameServer.getName());
+        gameServer.broadcast("PLAYER_JOINED," + playerId + "," + x + "," + y + "," + player.getColor());
+        gameServer.sendLobbyState(this);
+        gameServer.broadcastLobbyState(); // The new player reaches everyone with the next diff
+        return true;
+    }
+
+    /**
+     * @return whether a restored match is waiting for its players to reconnect
      */
-    private int[] getCornerPosition(String playerId) {
-        int maxPos = gameServer.getGrid().getSize() - 1;
-        return switch (playerId) {
-            case "P1" -> new int[]{0, 0};
-            case "P2" -> new int[]{maxPos, 0};
-            case "P3" -> new int[]{0, maxPos};
-            case "P4" -> new int[]{maxPos, maxPos};
-            default -> throw new IllegalStateException("Unexpected player ID: " + playerId);
-        };
+    private boolean hasPendingResumes() {
+        return matchmaker != null ? matchmaker.hasPendingResumes() : gameServer.hasPendingResumes();
     }
 
     /**
-     * Determines the color for a player based on their ID.
+     * Finds the restored player of a reconnecting client and joins its room.
      *
-     * @param playerId The ID of the player (e.g., P1, P2).
-     * @return A string representing the player's color in hexadecimal format.
+     * @param playerId the ID the client had before the restart
+     * @param roomName the room the client was in, or null if the client did not say
+     * @return the restored player, or null if there is none
      */
-    private String getCornerColor(String playerId) {
-        return switch (playerId) {
-            case "P1" -> "#f0adc6";
-            case "P2" -> "#a7c1e9";
-            case "P3" -> "#feeaa7";
-            case "P4" -> "#b3f4bb";
-            default -> throw new IllegalStateException("Unexpected player ID: " + playerId);
-        };
+    private Player resume(String playerId, String roomName) {
+        if (matchmaker == null) {
+            return gameServer.resumePlayer(playerId);
+        }
+        Player resumed = matchmaker.resume(this, playerId, roomName);
+        if (resumed != null) {
+            joinAssignedRoom();
+        }
+        return resumed;
     }
 
     /**
-     * Handles messages sent by the client and takes appropriate actions.
+     * Waits in the matchmaking queue until the matchmaker assigns a room, then joins its
+     * clients.
+     * The client is read meanwhile, so its heartbeats keep it alive and measure the round
+     * trip the matchmaker groups players by. The matchmaker pings the client when it
+     * assigns the room, and the PONG wakes this thread; a client that does not answer is
+     * noticed by the read timeout instead.
      *
-     * @param message The message received from the client.
+     * @param in the client's input stream
+     * @return false if the client disconnected while queued
      */
-    private void handleClientMessage(String message) {
-        String[] parts = message.split(",");
-        switch (parts[0]) {
-            case "MOVE":
-                int newX = Integer.parseInt(parts[1]);
-                int newY = Integer.parseInt(parts[2]);
-                if (gameServer.movePlayer(player.getId(), newX, newY)) {
-                    gameServer.broadcast("PLAYER_MOVED," + player.getId() + "," + newX + "," + newY + "," + player.getColor());
-                    sendMessage("MOVE_CONFIRMED," + player.getId() + "," + newX + "," + newY);
-                } else {
-                    sendMessage("INVALID_MOVE");
+    private boolean waitForRoom(MessageReader in) throws IOException {
+        socket.setSoTimeout(QUEUE_POLL_MS);
+        try {
+            while (assignedRoom == null) {
+                try {
+                    if (!in.next()) {
+                        return false;
+                    }
+                } catch (SocketTimeoutException e) {
+                    continue;
                 }
+                receivedAt = System.nanoTime();
+                lastReadAt = receivedAt;
+                handleWhileQueued(command.readFrom(in));
+            }
+        } finally {
+            socket.setSoTimeout(0);
+        }
+        joinAssignedRoom();
+        return true;
+    }
+
+    /**
+     * Handles a message from a client that has no room yet. Lobby and game commands
+     * are ignored: the client has nothing to be ready for or move in.
+     */
+    private void handleWhileQueued(ClientCommand command) {
+        if (command.type == ClientCommand.Type.PING || command.type == ClientCommand.Type.PONG) {
+            handleHeartbeat(command);
+        } else if (command.type == ClientCommand.Type.NAME) {
+            handleName(command);
+        }
+    }
+
+    /**
+     * Remembers the name the client plays under, and gives it to its player. The name is
+     * what the player's statistics are kept under; it is taken as given, not verified.
+     */
+    private void handleName(ClientCommand command) {
+        playerName = command.argument;
+        if (player != null) {
+            player.setName(playerName);
+        }
+    }
+
+    /**
+     * Called by the matchmaker when it has chosen this client's room. The matchmaker
+     * then pings the client, so its reply wakes this handler's thread.
+     *
+     * @param room the room to join, or null to wait in the queue again
+     */
+    void assignRoom(GameServerInterface room) {
+        assignedRoom = room;
+    }
+
+    /**
+     * Leaves a room that could not take this client after all, and queues again.
+     */
+    private void returnToQueue() {
+        gameServer.removeClient(this);
+        gameServer = null;
+        matchmaker.requeue(this);
+    }
+
+    /**
+     * Starts receiving the assigned room's broadcasts. Runs on this handler's thread.
+     */
+    private void joinAssignedRoom() {
+        gameServer = assignedRoom;
+        gameServer.addClient(this);
+    }
+
+    /**
+     * Reattaches a reconnected client to its restored player and resynchronizes everyone.
+     * Reports the remaining game time in seconds, or -1 if the match is still in the lobby.
+     */
+    private void resumePlayer() {
+        long remaining = gameServer.getRemainingGameMillis();
+        // Re-take the lock on the current square from this connection's thread
+        gameServer.getGrid().getSquare(player.getX(), player.getY()).tryLock(player);
+        sendMessage("RESUMED," + player.getId() + "," + player.getX() + "," + player.getY() + ","
+                + player.getColor() + "," + (remaining < 0 ? -1 : remaining / 1000));
+        System.out.println("Player " + player.getId() + " reconnected after recovery");
+        gameServer.sendLobbyState(this);
+        gameServer.broadcastLobbyState();
+        gameServer.broadcastAllPlayerPositions();
+    }
+
+    /**
+     * Waits briefly for the first message from a client, which is a RESUME request if
+     * the client was in the match before the server restarted.
+     *
+     * @param in the client's input stream
+     * @return true if the first message is now the reader's current line, false if the
+     *         client sent nothing in time
+     */
+    private boolean readResumeRequest(MessageReader in) throws IOException {
+        socket.setSoTimeout(RESUME_WAIT_MS);
+        try {
+            boolean received = in.next();
+            lastReadAt = System.nanoTime();
+            return received;
+        } catch (SocketTimeoutException e) {
+            return false;
+        } finally {
+            socket.setSoTimeout(0);
+        }
+    }
+
+    /**
+     * Handles messages sent by the client and takes appropriate actions.
+     *
+     * @param command The command received from the client.
+     */
+    private void handleClientMessage(ClientCommand command) {
+        switch (command.type) {
+            case MOVE:
+                handleMove(command);
                 break;
 
-            case "READY":
+            case READY:
                 player.toggleReady();
-                broadcastLobbyState();
-                if (allPlayersReady()) startGameCountdown();
+                gameServer.getJournal().ready(player.getId(), player.getReady());
+                gameServer.getEvents().lobbyChanged(player.getId(), player.getReady());
+                gameServer.broadcastLobbyState();
+                gameServer.readinessChanged(); // May start the countdown
                 break;
 
-            case "UNREADY":
+            case UNREADY:
                 player.toggleReady();
-                broadcastLobbyState();
+                gameServer.getJournal().ready(player.getId(), player.getReady());
+                gameServer.getEvents().lobbyChanged(player.getId(), player.getReady());
+                gameServer.broadcastLobbyState();
+                gameServer.readinessChanged(); // Aborts a running countdown
                 break;
             
-            case "INIT_STATE":
-                broadcastAllPlayerPositions();
+            case INIT_STATE:
+                gameServer.broadcastAllPlayerPositions();
+                break;
+
+            case LOBBY_SYNC:
+                gameServer.sendLobbyState(this);
+                break;
+
+            case NAME:
+                handleName(command);
+                break;
+
+            case RESUME:
+                sendMessage("RESUME_FAILED"); // Only valid as the first message after a recovery
+                break;
+
+            case PING:
+            case PONG:
+                handleHeartbeat(command);
                 break;
 
             default:
@@ -178,87 +557,174 @@ public class ClientHandler implements Runnable, Observer {
     }
 
     /**
-     * Broadcasts the current lobby state to all clients, including each player's readiness status.
+     * Makes a move and answers it. The PLAYER_MOVED broadcast and the reply are encoded
+     * into this handler's reply buffer, so a move allocates no messages.
+     *
+     * @param move A MOVE command: "MOVE,x,y[,clientStamp,lastRoundTripMicros]"
      */
-    void broadcastLobbyState() {
-        StringBuilder lobbyState = new StringBuilder("LOBBY_STATE,");
-        for (Player player : gameServer.getPlayers().values()) {
-            lobbyState.append(player.getId())
-                    .append(",")
-                    .append(player.getReady() ? "READY" : "NOT READY")
-                    .append(";");
+    private void handleMove(ClientCommand move) {
+        long applyStart = System.nanoTime();
+        boolean moved = gameServer.movePlayer(player.getId(), move.x, move.y);
+        long applyMicros = (System.nanoTime() - applyStart) / 1000;
+        if (moved) {
+            // Other clients learn how long the server held this move before telling them
+            replyWriter.reset().append("PLAYER_MOVED").field(player.getId()).field(move.x).field(move.y)
+                    .field(player.getColor()).field(elapsedMicros()).end();
+            gameServer.broadcast(replyWriter); // Written to every client before it returns
+        }
+        long serverMicros = elapsedMicros();
+        replyWriter.reset();
+        if (moved) {
+            replyWriter.append("MOVE_CONFIRMED").field(player.getId()).field(move.x).field(move.y);
+        } else {
+            replyWriter.append("INVALID_MOVE");
         }
-        gameServer.broadcast(lobbyState.toString());
+        if (move.hasStamp) {
+            // Echo the client's stamp with the server's share of the round trip
+            replyWriter.field(move.stamp).field(serverMicros).field(applyMicros);
+        }
+        replyWriter.end();
+        send(replyWriter.getBuffer(), replyWriter.getLength());
+        gameServer.getLatencyStats().record(player.getId(), serverMicros, applyMicros, move.reportedRoundTrip);
     }
 
     /**
-     * Checks if all players in the game are marked as "ready".
-     *
-     * @return true if all players are ready, false otherwise.
+     * Answers a PING, or measures the round trip of the server's PING from its PONG.
      */
-    private boolean allPlayersReady() {
-        for (Player player : gameServer.getPlayers().values()) {
-            if (!player.getReady()) return false;
+    private void handleHeartbeat(ClientCommand command) {
+        if (command.type == ClientCommand.Type.PING) {
+            sendMessage(command.hasStamp ? "PONG," + command.stamp : "PONG");
+            return;
+        }
+        // The stamp is the server's clock when it sent the PING
+        long roundTrip = System.nanoTime() - command.stamp;
+        if (command.hasStamp && roundTrip >= 0 && roundTrip < IDLE_TIMEOUT_NANOS) {
+            roundTripMicros = roundTrip / 1000;
+            metrics.recordHeartbeat(roundTrip);
         }
-        return true;
     }
 
     /**
-     * Broadcasts the positions of all players to all clients.
+     * Schedules the next heartbeat check on the connection timer wheel. One timeout per
+     * connection, re-armed only when it fires, so reading a message costs nothing more
+     * than a timestamp.
      */
-    private void broadcastAllPlayerPositions() {
-        for (Player p : gameServer.getPlayers().values()) {
-            gameServer.broadcast("PLAYER_MOVED," + p.getId() + "," + p.getX() + "," + p.getY() + "," + p.getColor());
+    private void scheduleHeartbeat(long delayNanos) {
+        if (PING_INTERVAL_NANOS > 0 && !closed) {
+            heartbeat = timers.schedule(this::checkHeartbeat, delayNanos, TimeUnit.NANOSECONDS);
         }
     }
 
     /**
-     * Starts the game countdown, notifying all players every second, and begins the game when all players are ready.
+     * Pings the client, or disconnects it if it has been silent for IDLE_TIMEOUT_NANOS or
+     * a write to it has not finished for WRITE_TIMEOUT_NANOS. A half-open connection never
+     * fails a read on its own, and a write to a client that stopped reading blocks once
+     * its window is full, so without this its player and locked square would stay in the
+     * match, and its writers stuck, until the OS gave up on the socket.
+     *
+     * Runs on the timer wheel, so it never writes itself: the PING is posted to the
+     * outbox, and a write stuck on a dead connection cannot delay the next check.
      */
-    private void startGameCountdown() {
-        for (int i = 3; i > 0; i--) {
-            if (!allPlayersReady()) {
-                gameServer.broadcast("COUNTDOWN_ABORTED");
-                broadcastLobbyState();
-                return;
-            }
-            gameServer.broadcast("COUNTDOWN," + i);
+    private void checkHeartbeat() {
+        if (closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        long silent = now - lastReadAt;
+        long writeStarted = writeStartedAt;
+        long writing = writeStarted != 0 ? now - writeStarted : 0;
+        if (silent >= IDLE_TIMEOUT_NANOS || writing >= WRITE_TIMEOUT_NANOS) {
+            System.out.println("Disconnecting " + (player != null ? player.getId() : "a client") + ": "
+                    + (silent >= IDLE_TIMEOUT_NANOS ? "silent for " + TimeUnit.NANOSECONDS.toSeconds(silent)
+                    : "a write stalled for " + TimeUnit.NANOSECONDS.toSeconds(writing)) + "s");
+            metrics.idleEviction();
             try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+                socket.close(); // Fails the stalled write and the read; the reading thread cleans up
+            } catch (IOException e) {
+                // Already closed
             }
+            return;
+        }
+        long next = Math.min(PING_INTERVAL_NANOS, IDLE_TIMEOUT_NANOS - silent);
+        if (writeStarted != 0) {
+            next = Math.min(next, WRITE_TIMEOUT_NANOS - writing);
+        }
+        scheduleHeartbeat(next);
+        // Skip the ping while earlier messages are still waiting: the connection may be
+        // stuck, and the client would not get to answer this one either
+        if (pendingSends.get() == 0 && outbox.isEmpty()) {
+            post("PING," + System.nanoTime());
         }
-        gameServer.broadcast("GAME_STARTED");
-        broadcastAllPlayerPositions();
-        gameServer.startGameTimer();
+    }
+
+    /**
+     * @return the microseconds since the message being handled was read
+     */
+    private long elapsedMicros() {
+        return (System.nanoTime() - receivedAt) / 1000;
     }
 
     /**
      * Cleans up resources when the client disconnects, including releasing locks, updating game state,
      * broadcasting the player's departure, and closing the socket connection.
      *
-     * This method also unregisters the ClientHandler as an observer of the GameServer to stop receiving
-     * updates once the client disconnects.
+     * This method also removes the ClientHandler from the GameServer's clients to stop receiving
+     * broadcasts once the client disconnects.
      */
     private void cleanup() {
+        ConnectionEvent disconnected = new ConnectionEvent();
+        disconnected.remoteAddress = String.valueOf(socket.getRemoteSocketAddress());
+        disconnected.playerId = getPlayerId();
+        disconnected.commit();
+        closed = true;
+        Timeout pending = heartbeat;
+        if (pending != null) {
+            pending.cancel();
+        }
+        outbox.clear();
         try {
-            if (player != null) {
-                gameServer.removeObserver(this);
-                gameServer.getGrid().getSquare(player.getX(), player.getY()).releaseLock();
-                gameServer.removePlayer(player.getId());
-                broadcastLobbyState();
-                gameServer.broadcast("PLAYER_LEFT," + player.getId());
+            if (gameServer != null) {
+                if (player != null) {
+                    gameServer.getGrid().getSquare(player.getX(), player.getY()).releaseLock();
+                    gameServer.removePlayer(player.getId());
+                    gameServer.broadcastLobbyState();
+                    gameServer.broadcast("PLAYER_LEFT," + player.getId());
+                    gameServer.readinessChanged(); // The players left may now all be ready
+                }
+                gameServer.removeClient(this); // Joined on entering the room, even if no player was assigned
             }
-
-            gameServer.removeClient(this);
+            if (matchmaker != null) {
+                matchmaker.disconnected(this); // Frees the seat in the room, or the place in the queue
+            }
+            metrics.connectionClosed();
             socket.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * @return the room the matchmaker chose for this client, or null while it is queued
+     */
+    GameServerInterface getAssignedRoom() {
+        return assignedRoom;
+    }
+
+    /**
+     * @return the client's last heartbeat round trip in microseconds, or -1 if none was measured
+     */
+    long getRoundTripMicros() {
+        return roundTripMicros;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return the ID of this client's player, or null if it was never assigned one
+     */
     public String getPlayerId() {
-        return player.getId();
+        return player != null ? player.getId() : null;
     }
 }
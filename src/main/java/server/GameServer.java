@@ -1,132 +1,381 @@
 package main.java.server;
+import main.java.event.EventBus;
+import main.java.journal.MatchJournal;
+import main.java.journal.MatchRecovery;
+import main.java.journal.MatchState;
+import main.java.jfr.BroadcastEvent;
+import main.java.jfr.MatchPhaseEvent;
+import main.java.jfr.MoveEvent;
+import main.java.metrics.MetricsHttpServer;
+import main.java.metrics.RoomLatencyStats;
+import main.java.metrics.ServerMetrics;
 import main.java.model.Grid;
 import main.java.model.Player;
+import main.java.model.PlayerColors;
 import main.java.model.Square;
+import main.java.protocol.MessageWriter;
+import main.java.timer.Timeout;
+import main.java.timer.TimerWheel;
 
 import java.io.*;
 import java.net.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-
-// classes for running checks on game's status (timer run out/all squared owned)
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Represents the game server that manages the game state and client interactions.
  *
- * The GameServer class follows the Observer design pattern, where multiple ClientHandler objects
- * (acting as observers) observe the game server and receive updates when the game state changes.
  * The server manages the grid, player state, and overall game flow. It broadcasts state changes to
- * all registered observers, ensuring that clients remain in sync with the server's actions (e.g.,
- * player movements, game status updates).
+ * the ClientHandlers of all connected clients, ensuring that clients remain in sync with the server's
+ * actions (e.g., player movements, game status updates). The same changes are published as typed
+ * events on the room's {@link EventBus}, which in-process consumers such as analytics subscribe to.
  *
  * The GameServer also manages player assignments, ensuring that players are added or removed as necessary,
  * and that the game starts only when all players are ready.
+ *
+ * Each GameServer is one room running one match. A server process runs many rooms side by side;
+ * the {@link Matchmaker} places connecting players into them. Timers, metrics, statistics and
+ * analytics are shared by all rooms.
  */
 
 public class GameServer implements GameServerInterface {
     private static final int PORT = 12345;
-    private static final Grid grid = new Grid(10);
+    // Players per match (1-64); set with -Donigiri.maxPlayers=N
+    private static final int MAX_PLAYERS = Math.clamp(Integer.getInteger("onigiri.maxPlayers", 4), 1, 64);
+    // Grid width and height; by default about 25 squares per player, and at least 10x10
+    private static final int GRID_SIZE = Integer.getInteger("onigiri.gridSize", defaultGridSize(MAX_PLAYERS));
     private static final int GAME_DURATION_SECONDS = 30;
-    private static final Set<ClientHandler> clients = new HashSet<>();
-    private static final Map<String, Player> players = new HashMap<>();
-    private static final AtomicInteger playerCounter = new AtomicInteger(1);
-    private static final int MAX_PLAYERS = 4;
+    private static final int COUNTDOWN_SECONDS = 3;
+    // Lobby changes within this window go out as one diff; set with -Donigiri.lobbyCoalesceMs=N
+    private static final int LOBBY_COALESCE_MS = Integer.getInteger("onigiri.lobbyCoalesceMs", 50);
+    static final String JOURNAL_DIRECTORY = "journal"; // Holds one directory per room
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final int CHECKPOINT_INTERVAL_SECONDS = 2;
+    static final int RESUME_GRACE_SECONDS = 30;
+    private static final String STATS_DIRECTORY = "stats";
+    private static final int STATS_PAGE_LIMIT = 20; // Players and matches listed on /stats
+    private static final String ANALYTICS_DIRECTORY = "analytics";
+    // Local port of the /metrics endpoint; set -Donigiri.metricsPort=0 to turn it off
+    private static final int METRICS_PORT = Integer.getInteger("onigiri.metricsPort", 9400);
+
+    // Player statistics shared by every match, persisted in the background and served at /stats
+    private static final StatsStore stats = StatsStore.open(Paths.get(STATS_DIRECTORY));
+
+    // Rolling aggregates over every match, fed from the rooms' events
+    private static final MatchAnalytics analytics = new MatchAnalytics(GRID_SIZE, Paths.get(ANALYTICS_DIRECTORY));
+
+    // Live latency histograms and counters, read through JMX and the /metrics endpoint
+    private static final ServerMetrics metrics = new ServerMetrics();
+
+    // Game timers of every match (game end, claimed-squares check, countdown, checkpoints),
+    // in 10ms ticks; a turn of the wheel covers about 5 seconds. Their tasks take room monitors,
+    // which a game thread may hold while it writes to a slow client
+    private static final TimerWheel timers = new TimerWheel("game-timers", 10, TimeUnit.MILLISECONDS, 512,
+            Math.max(2, Runtime.getRuntime().availableProcessors()), metrics::recordSchedulerLag);
+
+    // Heartbeats and idle timeouts of every connection, on a wheel of their own so a room
+    // task waiting for its monitor can never delay the eviction of a dead client
+    private static final TimerWheel connectionTimers = new TimerWheel("connection-timers", 10,
+            TimeUnit.MILLISECONDS, 512, 2, metrics::recordSchedulerLag);
+
+    // Deliver every room's events to their subscribers, off the game threads
+    private static final ExecutorService eventThreads = Executors.newFixedThreadPool(2,
+            Thread.ofPlatform().name("game-events-", 1).daemon().factory());
+    // The room: its board, players and connected clients
+    private final String name;
+    private final Grid grid = new Grid(GRID_SIZE);
+    private final Set<ClientHandler> clients = new HashSet<>();
+    private final Map<String, Player> players = new HashMap<>();
+    private final AtomicInteger playerCounter = new AtomicInteger(1);
+    private final Path snapshotFile;
+    private Timeout task_checkpoint = null; // Started with the journal
+
+    private Timeout task_checkAllSquaresClaimed = null;
+    private Timeout task_gameEnd = null;
+    private volatile long gameEndsAtMillis = 0; // 0 until the game timer is running
+
+    // Where the match is in its lifecycle; every transition happens under this server's monitor
+    private volatile MatchPhase phase = MatchPhase.LOBBY;
+    private Timeout task_countdown = null;
+    private int countdownRemaining;          // Seconds still to announce
+    private MatchPhaseEvent countdownEvent;  // Spans the countdown, committed when it ends
+    private boolean statsRecorded = false;
+
+    // The lobby as last sent to the clients, and the pending send of its changes; guarded by this server's monitor
+    private final LobbyState lobby = new LobbyState();
+    private final MessageWriter lobbyWriter = new MessageWriter();
+    private Timeout task_lobbyFlush = null;
+
+    // Typed events of this room for in-process consumers
+    private final EventBus events;
+
+    // Start squares of joining players; guarded by this server's monitor
+    private final SpawnPlanner spawnPlanner = new SpawnPlanner(grid.getSize(), MAX_PLAYERS);
+
+    // Encodes broadcast(String) messages; guarded by this server's monitor
+    private final MessageWriter broadcastWriter = new MessageWriter();
+
+    // Append-only record of the match, written off the game threads. Opened when the first
+    // player joins, so a warm room leaves nothing on disk; guarded by this server's monitor
+    private volatile MatchJournal journal = null;
+
+    // Server and network share of each player's moves in this match
+    private final RoomLatencyStats latencyStats = new RoomLatencyStats();
+
+    // Players restored after a crash who have not reconnected yet
+    private final Map<String, Player> pendingResumes = new ConcurrentHashMap<>();
 
-    private static ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private ScheduledFuture<?> task_checkAllSquaresClaimed = null;
-
-    private List<Observer> observers = new ArrayList<>();
+    /**
+     * Creates a standalone room named "main". If the previous server process died during
+     * a match in it, the match is restored from its snapshot and journal so players can
+     * reconnect to it.
+     */
+    public GameServer() {
+        this("main", recoverRoom("main"));
+    }
 
     /**
-     * Registers a new observer to receive updates from the GameServer.
-     *
-     * This method adds a new observer (e.g., a ClientHandler) to the list of observers
-     * so that it can receive game state updates. Observers are notified when significant
-     * changes occur in the game, such as player actions or game status updates.
+     * Creates a room. Its journal and snapshots are kept in a directory of the same name
+     * under journal/. A new room only builds its grid, spawn plan and event bus; the journal
+     * is opened when the first player joins.
      *
-     * @param observer The observer to be added.
+     * @param name the room's name, unique within this server
+     * @param recovered the room's match restored from the previous server run, or null for a new room
      */
-    @Override
-    public void addObserver(Observer observer) {
-        observers.add(observer);
+    public GameServer(String name, MatchRecovery recovered) {
+        this.name = name;
+        Path directory = Paths.get(JOURNAL_DIRECTORY, name);
+        snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        events = new EventBus(name, eventThreads);
+        events.subscribe(analytics::accept, MatchAnalytics.EVENT_TYPES);
+        metrics.addRoom(name, latencyStats);
+        if (recovered != null) {
+            openJournal(recovered.getState());
+            restoreMatch(recovered);
+        }
     }
 
     /**
-     * Removes an observer from the list of registered observers.
-     *
-     * This method unregisters an observer (e.g., a ClientHandler) so that it no longer
-     * receives updates from the GameServer. This is typically called when a client disconnects.
+     * Opens the room's journal and starts checkpointing the match, once the room is in use.
      *
-     * @param observer The observer to be removed.
+     * @param initialState the match as it stands when the journal starts
      */
-    @Override
-    public void removeObserver(Observer observer) {
-        observers.remove(observer);
+    private synchronized void openJournal(MatchState initialState) {
+        journal = MatchJournal.openOrDisable(snapshotFile.getParent(), initialState);
+        // Periodically checkpoint the match so a crash loses at most a few seconds
+        task_checkpoint = timers.scheduleAtFixedRate(() -> journal.checkpoint(snapshotFile, (int) getRemainingGameMillis()),
+                CHECKPOINT_INTERVAL_SECONDS, CHECKPOINT_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     /**
-     * Notifies all registered observers of a game state update.
+     * Looks for an interrupted match of a room in its journal directory.
      *
-     * This method sends a message to all observers to notify them of a change in the game state.
-     * Each observer will handle the update accordingly, ensuring that the client remains in sync with
-     * the server's current state.
+     * @param name the room's name
+     * @return the recovered match, or null if there is nothing to recover
+     */
+    static MatchRecovery recoverRoom(String name) {
+        return MatchRecovery.recover(Paths.get(JOURNAL_DIRECTORY, name, SNAPSHOT_FILE));
+    }
+
+    /**
+     * Closes the room after its last client left: stops its timers, commits its journal
+     * and deletes its snapshot, so a later server run does not try to recover it.
+     */
+    public void close() {
+        MatchJournal closing;
+        synchronized (this) {
+            for (Timeout task : new Timeout[]{task_checkpoint, task_countdown, task_gameEnd,
+                    task_checkAllSquaresClaimed, task_lobbyFlush}) {
+                if (task != null) {
+                    task.cancel();
+                }
+            }
+            closing = journal;
+        }
+        metrics.removeRoom(name);
+        events.close();
+        if (closing != null) {
+            closing.close(); // Never opened if nobody joined
+        }
+        try {
+            Files.deleteIfExists(snapshotFile);
+        } catch (IOException e) {
+            System.err.println("Could not delete the snapshot of room " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds players, claimed squares and the game timer from a recovered match.
+     * Restored players wait for their clients to reconnect with RESUME; those that do not
+     * come back within RESUME_GRACE_SECONDS are removed from the match.
      *
-     * @param message The message to be broadcast to all observers.
+     * @param recovered the match restored from the previous server run
      */
-    @Override
-    public void notifyObservers(String message) {
-        for (Observer observer : observers) {
-            observer.update(message);
+    private synchronized void restoreMatch(MatchRecovery recovered) {
+        MatchState state = recovered.getState();
+        Map<String, Player> owners = new HashMap<>(); // Includes players who left but still own squares
+        int highestId = 0;
+
+        for (MatchState.PlayerState restored : state.getPlayers().values()) {
+            Player player = new Player(restored.id, restored.x, restored.y, restored.color);
+            if (restored.ready) player.toggleReady();
+            players.put(player.getId(), player);
+            pendingResumes.put(player.getId(), player);
+            owners.put(player.getId(), player);
+        }
+        for (int x = 0; x < grid.getSize(); x++) {
+            for (int y = 0; y < grid.getSize(); y++) {
+                String ownerId = state.getOwner(x, y);
+                if (ownerId != null) {
+                    Player owner = owners.computeIfAbsent(ownerId, id -> new Player(id, 0, 0, ""));
+                    grid.getSquare(x, y).restoreOwner(owner);
+                }
+            }
+        }
+        for (String id : owners.keySet()) {
+            highestId = Math.max(highestId, Integer.parseInt(id.substring(1)));
+        }
+        playerCounter.set(highestId + 1);
+
+        if (recovered.getRemainingMillis() >= 0) {
+            phase = MatchPhase.RUNNING;
+            scheduleGameEnd(recovered.getRemainingMillis());
+        }
+        timers.schedule(this::expirePendingResumes, RESUME_GRACE_SECONDS, TimeUnit.SECONDS);
+        System.out.println("Recovered match of " + name + " with players " + players.keySet()
+                + (recovered.getRemainingMillis() >= 0 ? ", " + recovered.getRemainingMillis() / 1000 + "s left" : " in lobby"));
+    }
+
+    /**
+     * Removes restored players whose clients never reconnected.
+     */
+    private void expirePendingResumes() {
+        for (String playerId : new ArrayList<>(pendingResumes.keySet())) {
+            if (pendingResumes.remove(playerId) != null) {
+                System.out.println("Player " + playerId + " did not reconnect after recovery.");
+                removePlayer(playerId);
+                postBroadcast("PLAYER_LEFT," + playerId);
+            }
         }
     }
 
     /**
      * Broadcasts a message to all connected clients.
      *
-     * This method sends a message to all registered observers, typically used to notify
+     * This method sends a message to every client in the room, typically used to notify
      * players about events like player movements, game status updates, or other game events.
      *
      * This method is synchronized to ensure thread-safety when broadcasting messages to multiple
      * clients simultaneously.
      *
-     * @param message The message to be broadcast to all observers.
+     * @param message The message to be broadcast to all clients.
      */
     @Override
     public synchronized void broadcast(String message) {
+        broadcast(broadcastWriter.reset().append(message).end());
+    }
+
+    /**
+     * Broadcasts an encoded message to all connected clients. The message is encoded once
+     * and the same bytes are written to every client.
+     *
+     * @param message The complete message; it is written to every client before this
+     *                returns, so the caller may reuse the writer afterwards.
+     */
+    @Override
+    public synchronized void broadcast(MessageWriter message) {
+        BroadcastEvent event = new BroadcastEvent();
+        event.begin();
+        long start = System.nanoTime();
+        byte[] bytes = message.getBuffer();
+        int length = message.getLength();
+        int recipients;
         synchronized (clients) {
+            recipients = clients.size();
             for (ClientHandler client : clients) {
-                client.sendMessage(message);
+                client.send(bytes, length);
+            }
+        }
+        metrics.recordBroadcast(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.messageType = message.getCommand();
+            event.recipients = recipients;
+            event.bytes = (long) length * recipients;
+            event.commit();
+        }
+    }
+
+    /**
+     * Posts a message to the outbox of every connected client (see {@link ClientHandler#post}).
+     * For the room's timer tasks, which must never write to a socket themselves: a client
+     * that stopped reading would hold up the timers of every room. The message is encoded
+     * once and the same bytes are posted to every client. Never blocks.
+     *
+     * @param message The message to be posted to all clients.
+     */
+    private synchronized void postBroadcast(String message) {
+        postBroadcast(broadcastWriter.reset().append(message).end());
+    }
+
+    /**
+     * Posts an encoded message to the outbox of every connected client, like
+     * {@link #postBroadcast(String)}. The caller may reuse the writer afterwards.
+     *
+     * @param message The complete message.
+     */
+    private synchronized void postBroadcast(MessageWriter message) {
+        byte[] line = Arrays.copyOf(message.getBuffer(), message.getLength());
+        synchronized (clients) {
+            for (ClientHandler client : clients) {
+                client.post(line);
             }
         }
     }
 
     /**
      * Starts the server and listens for incoming client connections.
-     * Once a client is connected, a new ClientHandler thread is created for communication.
+     * Once a client is connected, a new ClientHandler thread is created for communication;
+     * it waits in the matchmaker's queue until it is placed in a room.
      *
      * @param args command-line arguments (not used).
      */
     public static void main(String[] args) {
         try (ServerSocket serverSocket = new ServerSocket(PORT)) {
             System.out.println("Maze Game Server started on port " + PORT);
+            metrics.registerMBean();
+            if (METRICS_PORT > 0) {
+                MetricsHttpServer endpoint = MetricsHttpServer.start(metrics, METRICS_PORT);
+                if (endpoint != null) {
+                    endpoint.addSection(analytics::writeMetrics);
+                    if (stats != null) {
+                        endpoint.addPage("/stats", GameServer::statsPage);
+                    }
+                }
+            }
 
-            // Instantiate GameServer
-            GameServer gameServer = new GameServer();
+            // Rooms are formed by the matchmaker, which also recovers rooms of a crashed run
+            Matchmaker matchmaker = new Matchmaker(MAX_PLAYERS, metrics, timers, connectionTimers);
+            AdmissionController admission = new AdmissionController(matchmaker, metrics);
 
             // Continuously accept new client connections
             while (true) {
                 Socket clientSocket = serverSocket.accept();
-                // Pass the GameServer instance as an observer
-                ClientHandler clientHandler = new ClientHandler(gameServer, clientSocket);
-
-                synchronized (clients) {
-                    clients.add(clientHandler);
+                // Turn the client away now if the server is overloaded, before it costs a thread
+                if (!admission.admit(clientSocket)) {
+                    continue;
                 }
-
+                // Messages are small and written whole; send each one right away
+                clientSocket.setTcpNoDelay(true);
+                ClientHandler clientHandler = new ClientHandler(matchmaker, clientSocket);
+                metrics.connectionOpened();
                 new Thread(clientHandler).start();
             }
         } catch (BindException e) {
@@ -139,11 +388,36 @@ public class GameServer implements GameServerInterface {
         }
     }
 
+    /**
+     * Renders the player statistics page: /stats?player=NAME for one player's totals and
+     * latest matches, /stats for the leaderboard and the latest matches.
+     */
+    private static String statsPage(Map<String, String> query) {
+        String player = query.get("player");
+        try {
+            return stats.describe(player == null || player.isEmpty() ? null : player, STATS_PAGE_LIMIT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds a client to the room: it receives the room's broadcasts.
+     *
+     * @param client the client that joined the room
+     */
+    @Override
+    public synchronized void addClient(ClientHandler client) {
+        synchronized (clients) {
+            clients.add(client);
+        }
+    }
+
     /**
      * Removes a client from the list of connected clients.
      *
-     * This method ensures thread-safety when removing a client from the list of connected clients
-     * and updates the player counter accordingly. It also notifies all observers about the player's disconnection.
+     * This method ensures thread-safety when removing a client from the list of connected clients.
+     * The player itself is removed, and its departure announced, by {@link #removePlayer}.
      *
      * @param client the client to be removed.
      */
@@ -152,10 +426,7 @@ public class GameServer implements GameServerInterface {
         synchronized (clients) {
             clients.remove(client);
         }
-        playerCounter.decrementAndGet(); // Decrement counter when a player disconnects
-
-        // Notify all observers about the state change (like player disconnection)
-        notifyObservers("Player " + client.getPlayerId() + " has disconnected.");
+        // The player's number is not given out again: a later player would share its ID
     }
 
     /**
@@ -163,7 +434,7 @@ public class GameServer implements GameServerInterface {
      *
      * This method attempts to move a player to the specified coordinates on the grid.
      * If the move is successful, the player's position is updated, and the grid square is locked.
-     * The game state is updated accordingly, and observers are notified of the change.
+     * The game state is updated accordingly, and the change is journaled and published.
      *
      * @param playerId the ID of the player.
      * @param newX the new X-coordinate on the grid.
@@ -171,46 +442,122 @@ public class GameServer implements GameServerInterface {
      * @return true if the move is successful, false otherwise.
      */
     @Override
-    public synchronized boolean movePlayer(String playerId, int newX, int newY) {
+    public boolean movePlayer(String playerId, int newX, int newY) {
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean moved = applyMove(playerId, newX, newY, start, event);
+        // Timed outside the monitor, so the time spent waiting for it is included
+        metrics.recordMove(System.nanoTime() - start, moved);
+        event.accepted = moved;
+        event.commit();
+        return moved;
+    }
+
+    /**
+     * The body of {@link #movePlayer}, run while holding the server's monitor.
+     *
+     * @param requestedAt System.nanoTime() when the move was requested, to measure the monitor wait
+     * @param event the flight recorder event of this move, filled in as the move goes
+     */
+    private synchronized boolean applyMove(String playerId, int newX, int newY, long requestedAt, MoveEvent event) {
+        event.monitorWait = System.nanoTime() - requestedAt;
+        event.playerId = playerId;
+        event.toX = newX;
+        event.toY = newY;
         Player player = players.get(playerId);
         if (player == null) {
             return false;
         }
 
+        int fromX = player.getX();
+        int fromY = player.getY();
+        event.fromX = fromX;
+        event.fromY = fromY;
         Square square = grid.getSquare(newX, newY);
 
-        if (square.tryLock(player)) {
+        long lockStart = System.nanoTime();
+        boolean locked = square.tryLock(player);
+        event.lockWait = System.nanoTime() - lockStart;
+        if (locked) {
             player.setX(newX);
             player.setY(newY);
         }
 
-        return player.move(newX, newY, grid);
+        boolean moved = player.move(newX, newY, grid);
+        if (!moved) {
+            journal.reject(playerId, fromX, fromY, newX, newY);
+            events.reject(playerId, fromX, fromY, newX, newY);
+        }
+        recordMoveEffects(player, fromX, fromY);
+        return moved;
+    }
+
+    /**
+     * Records the effects of a move attempt in the journal and publishes them as events:
+     * the position change (if any) and the resulting ownership of the squares the player
+     * left and entered. Even a rejected move can release the player's current square, so
+     * both cases are recorded.
+     *
+     * @param player the player who attempted to move
+     * @param fromX the player's X-coordinate before the attempt
+     * @param fromY the player's Y-coordinate before the attempt
+     */
+    private void recordMoveEffects(Player player, int fromX, int fromY) {
+        int x = player.getX();
+        int y = player.getY();
+        if (x != fromX || y != fromY) {
+            journal.move(player.getId(), fromX, fromY, x, y);
+            events.move(player.getId(), fromX, fromY, x, y);
+            recordOwnership(player, fromX, fromY);
+        }
+        recordOwnership(player, x, y);
+    }
+
+    private void recordOwnership(Player player, int x, int y) {
+        Player owner = grid.getSquare(x, y).getOwner();
+        if (owner == player) {
+            journal.claim(player.getId(), x, y);
+            events.claim(player.getId(), x, y);
+        } else if (owner == null) {
+            journal.release(player.getId(), x, y);
+            events.release(player.getId(), x, y);
+        }
     }
 
     /**
      * Determines the winner of the game by counting the squares owned by each player.
      * The player with the most squares is declared the winner.
      *
-     * The winner's information is broadcasted to all connected clients once the game ends.
+     * The winner's information is posted to all connected clients once the game ends.
+     * Runs on the game timers, so nothing is written to a socket here.
      */
     @Override
     public synchronized void determineWinner() {
-        // Cancel the scheduled check if the game has ended
-        if (task_checkAllSquaresClaimed != null) {
-            task_checkAllSquaresClaimed.cancel(true);
+        if (phase != MatchPhase.RUNNING) {
+            return; // The game already ended, e.g. the time ran out just as the last square was claimed
+        }
+        phase = MatchPhase.FINISHED;
+        MatchPhaseEvent event = new MatchPhaseEvent();
+        event.begin();
+        event.phase = MatchPhaseEvent.FINISHED;
+        event.players = players.size();
+
+        // The match is decided: later checkpoints would only rewrite the same snapshot
+        if (task_checkpoint != null) {
+            task_checkpoint.cancel();
         }
 
-        Map<Player, Integer> scoreMap = new HashMap<>();
+        // Cancel whichever end-of-game task did not end the game
+        if (task_checkAllSquaresClaimed != null) {
+            task_checkAllSquaresClaimed.cancel();
+        }
+        if (task_gameEnd != null) {
+            task_gameEnd.cancel();
+        }
 
         // Count squares owned by each player
-        for (int i = 0; i < grid.getSize(); i++) {
-            for (int j = 0; j < grid.getSize(); j++) {
-                Player owner = grid.getSquare(i, j).getOwner();
-                if (owner != null) {
-                    scoreMap.put(owner, scoreMap.getOrDefault(owner, 0) + 1);
-                }
-            }
-        }
+        Map<Player, Integer> scoreMap = grid.countOwnedSquares();
 
         // Convert map to list for sorting (descending order)
         List<Map.Entry<Player, Integer>> sortedScores = new ArrayList<>(scoreMap.entrySet());
@@ -225,81 +572,263 @@ public class GameServer implements GameServerInterface {
             maxScore = sortedScores.get(0).getValue();
         }
 
-        String scoresData = "";
+        StringBuilder scores = new StringBuilder();
         for (Map.Entry<Player, Integer> entry : sortedScores) {
-            Player player = entry.getKey();
-            int score = entry.getValue();
-            scoresData += player.getId() + ":" + score + ";";
+            scores.append(entry.getKey().getId()).append(':').append(entry.getValue()).append(';');
         }
+        String scoresData = scores.toString();
     
         if (winner != null) {
-            String message = "Winner: " + winner.getId() + " with " + maxScore + " squares!";
+            String message = name + ": Winner: " + winner.getId() + " with " + maxScore + " squares!";
             System.out.println(message);
-            broadcast("GAME_OVER," + winner.getId() + "," + maxScore + "," + scoresData);
+            journal.gameOver(winner.getId(), maxScore, scoresData);
+            events.gameOver(winner.getId(), maxScore, scoresData);
+            recordStats(winner, sortedScores);
+            System.out.print(latencyStats.report());
+            postBroadcast("GAME_OVER," + winner.getId() + "," + maxScore + "," + scoresData);
+            event.winnerId = winner.getId();
         }
+        event.commit();
     }
 
     /**
-     * Starts the game timer that counts down from GAME_DURATION_SECONDS.
-     * When the timer expires, determineWinner() is called to end the game.
+     * Hands the final scores of the match to the statistics store (once per match). Players
+     * are keyed by the name their client gave; players without one, or whose name another
+     * player of the match took first, by this room and their player ID.
+     *
+     * @param winner the winning player
+     * @param sortedScores every player's score, highest first
+     */
+    private void recordStats(Player winner, List<Map.Entry<Player, Integer>> sortedScores) {
+        if (stats == null || statsRecorded) {
+            return;
+        }
+        statsRecorded = true;
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        String winnerKey = null;
+        for (Map.Entry<Player, Integer> entry : sortedScores) {
+            Player player = entry.getKey();
+            String key = player.getName();
+            if (key == null || scores.containsKey(key)) {
+                key = name + '/' + player.getId();
+            }
+            scores.put(key, entry.getValue());
+            if (player == winner) {
+                winnerKey = key;
+            }
+        }
+        stats.recordMatch(new StatsStore.MatchResult(System.currentTimeMillis(), name, winnerKey, scores));
+    }
+
+    /**
+     * Moves the match on after a player became ready or not ready, joined or left: the
+     * countdown starts once every player in the lobby is ready, and is aborted as soon as
+     * one of them is not. The countdown runs on the game timers, so no client's thread
+     * waits for it, and only one countdown can run at a time.
      */
     @Override
-    public synchronized void startGameTimer() {
-        scheduler.schedule(() -> {
+    public synchronized void readinessChanged() {
+        boolean allReady = !players.isEmpty() && players.values().stream().allMatch(Player::getReady);
+        if (phase == MatchPhase.LOBBY && allReady) {
+            startCountdown();
+        } else if (phase == MatchPhase.COUNTDOWN && !allReady) {
+            abortCountdown();
+        }
+    }
+
+    /**
+     * LOBBY -> COUNTDOWN: announces the seconds left once a second, starting now.
+     */
+    private void startCountdown() {
+        phase = MatchPhase.COUNTDOWN;
+        countdownRemaining = COUNTDOWN_SECONDS;
+        countdownEvent = new MatchPhaseEvent();
+        countdownEvent.begin();
+        countdownEvent.players = players.size();
+        task_countdown = timers.scheduleAtFixedRate(this::countdownTick, 0, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * One second of the countdown, run on the game timers. After the last second the game
+     * starts. Its messages are posted, never written from the timer thread.
+     */
+    private synchronized void countdownTick() {
+        if (phase != MatchPhase.COUNTDOWN) {
+            return; // Aborted after this tick was already due
+        }
+        if (countdownRemaining > 0) {
+            postBroadcast("COUNTDOWN," + countdownRemaining--);
+            return;
+        }
+        task_countdown.cancel();
+        countdownEvent.phase = MatchPhaseEvent.COUNTDOWN;
+        countdownEvent.commit();
+        postBroadcast("GAME_STARTED");
+        for (Player p : players.values()) {
+            postBroadcast("PLAYER_MOVED," + p.getId() + "," + p.getX() + "," + p.getY() + "," + p.getColor());
+        }
+        startGame();
+    }
+
+    /**
+     * COUNTDOWN -> LOBBY: stops the countdown and tells the clients.
+     */
+    private void abortCountdown() {
+        task_countdown.cancel();
+        phase = MatchPhase.LOBBY;
+        broadcast("COUNTDOWN_ABORTED");
+        broadcastLobbyState();
+        countdownEvent.phase = MatchPhaseEvent.COUNTDOWN_ABORTED;
+        countdownEvent.commit();
+    }
+
+    /**
+     * COUNTDOWN -> RUNNING: starts the game timer that counts down from
+     * GAME_DURATION_SECONDS. When the timer expires, determineWinner() is called to end
+     * the game.
+     */
+    private void startGame() {
+        phase = MatchPhase.RUNNING;
+        MatchPhaseEvent event = new MatchPhaseEvent();
+        event.phase = MatchPhaseEvent.STARTED;
+        event.players = players.size();
+        event.commit();
+        latencyStats.reset();
+        journal.gameStarted(GAME_DURATION_SECONDS);
+        events.gameStarted(GAME_DURATION_SECONDS);
+        scheduleGameEnd(GAME_DURATION_SECONDS * 1000L);
+    }
+
+    /**
+     * Schedules the end of the game and the periodic all-squares-claimed check.
+     *
+     * @param durationMillis the game time left
+     */
+    private synchronized void scheduleGameEnd(long durationMillis) {
+        gameEndsAtMillis = System.currentTimeMillis() + durationMillis;
+        task_gameEnd = timers.schedule(() -> {
             System.out.println("Game time expired! Determining winner...");
             determineWinner();
-        }, GAME_DURATION_SECONDS, TimeUnit.SECONDS);
+        }, durationMillis, TimeUnit.MILLISECONDS);
 
         // Schedule a task to periodically check if all squares are claimed
-        task_checkAllSquaresClaimed = scheduler.scheduleAtFixedRate(() -> {
-            checkAllSquaresClaimed();
-        }, 5, 1, TimeUnit.SECONDS);
+        task_checkAllSquaresClaimed = timers.scheduleAtFixedRate(this::checkAllSquaresClaimed, 5, 1, TimeUnit.SECONDS);
     }
 
     /**
      * Checks if all squares on the grid have been claimed by players.
-     * This method iterates through the grid and checks if all squares have an owner.
+     * The scan stops at the first unclaimed square.
      *
      * If all squares are claimed, it calls determineWinner() to end the game early.
      */
     @Override
     public void checkAllSquaresClaimed() {
-        boolean allClaimed = true;
-        for (int i = 0; i < grid.getSize(); i++) {
-            for (int j = 0; j < grid.getSize(); j++) {
-                Square square = grid.getSquare(i, j);
-                if (!square.isWall() && square.getOwner() == null) {
-                    allClaimed = false;
-                    break;
-                }
-            }
-        }
-
-        if (allClaimed) {
+        if (grid.isFullyClaimed()) {
             System.out.println("All squares claimed! Determining winner...");
             determineWinner();
         }
     }
 
     /**
-     * Adds a player to the game and notifies all observers about the new player.
+     * Tells all clients about changes to the lobby: players joining, leaving or changing
+     * their readiness. Changes are collected for LOBBY_COALESCE_MS and then broadcast as
+     * one diff (see {@link LobbyState}), so calling this once per change costs one
+     * message per window, however many players change.
+     */
+    @Override
+    public synchronized void broadcastLobbyState() {
+        if (task_lobbyFlush == null) {
+            task_lobbyFlush = timers.schedule(this::flushLobbyState, LOBBY_COALESCE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Posts the lobby changes collected since the last diff, if any, to every client. Runs
+     * on the game timers.
+     */
+    private synchronized void flushLobbyState() {
+        task_lobbyFlush = null;
+        if (lobby.diff(players, lobbyWriter)) {
+            postBroadcast(lobbyWriter);
+        }
+    }
+
+    /**
+     * Sends the whole lobby as last broadcast to one client, e.g. one that just joined or
+     * missed a diff. Changes not broadcast yet follow in the next diff. Sent under the
+     * server's monitor, so no diff can overtake it.
      *
-     * This method assigns a player to the game and broadcasts the player's joining
-     * status to all connected clients.
+     * @param client the client to send the lobby to
+     */
+    @Override
+    public synchronized void sendLobbyState(ClientHandler client) {
+        lobby.full(lobbyWriter);
+        client.send(lobbyWriter.getBuffer(), lobbyWriter.getLength());
+    }
+
+    /**
+     * Broadcasts the positions of all players to all clients.
+     */
+    @Override
+    public synchronized void broadcastAllPlayerPositions() {
+        for (Player p : players.values()) {
+            broadcast("PLAYER_MOVED," + p.getId() + "," + p.getX() + "," + p.getY() + "," + p.getColor());
+        }
+    }
+
+    /**
+     * @return the grid size that gives each of maxPlayers players about 25 squares
+     */
+    private static int defaultGridSize(int maxPlayers) {
+        return Math.max(10, (int) Math.ceil(Math.sqrt(25.0 * maxPlayers)));
+    }
+
+    /**
+     * Creates a player for a newly connected client and adds it to the game. The player
+     * gets the next free number, that number's color, and the start square farthest from
+     * the other players and the walls (see {@link SpawnPlanner}).
+     *
+     * Choosing the square and adding the player happen under the server's monitor, so
+     * two joining players never get the same square. Players only join in the lobby.
+     *
+     * @return the new player, or null if the room is full, past its lobby or has no free start square
+     */
+    @Override
+    public synchronized Player joinPlayer() {
+        if (phase != MatchPhase.LOBBY || players.size() >= MAX_PLAYERS) {
+            return null;
+        }
+        int[] start = spawnPlanner.choose(grid, players.values());
+        if (start == null) {
+            return null;
+        }
+        int number = playerCounter.getAndIncrement();
+        Player player = new Player("P" + number, start[0], start[1], PlayerColors.forNumber(number));
+        addPlayer(player);
+        return player;
+    }
+
+    /**
+     * Adds a player to the game, locks its start square and records the join.
      *
      * @param player The player to be added to the game.
      */
     @Override
     public synchronized void addPlayer(Player player) {
+        if (journal == null) {
+            openJournal(new MatchState(grid.getSize()));
+        }
         players.put(player.getId(), player);
         grid.getSquare(player.getX(), player.getY()).tryLock(player);
+        journal.join(player);
+        events.join(player);
     }
 
     /**
      * Removes a player from the game and releases the lock on the player's square.
      *
      * This method removes the player from the game, releases the lock on the square
-     * that the player occupied, and broadcasts the player's departure to all connected clients.
+     * that the player occupied, and records the player's departure.
      *
      * @param playerId The ID of the player to be removed.
      */
@@ -308,17 +837,55 @@ public class GameServer implements GameServerInterface {
         Player player = players.remove(playerId);
         if (player != null) {
             grid.getSquare(player.getX(), player.getY()).releaseLock();
+            journal.leave(playerId);
+            events.leave(playerId);
         }
     }
 
+    /**
+     * Reattaches a reconnecting client to a player restored after a crash.
+     *
+     * @param playerId the ID the client had before the crash
+     * @return the restored player, or null if there is no such player waiting
+     */
+    @Override
+    public Player resumePlayer(String playerId) {
+        return pendingResumes.remove(playerId);
+    }
+
+    /**
+     * Returns the statistics store shared by all matches, or null if it is unavailable.
+     */
+    public static StatsStore getStats() {return stats;}
+    @Override
+    public ServerMetrics getMetrics() {return metrics;}
+    @Override
+    public RoomLatencyStats getLatencyStats() {return latencyStats;}
+    @Override
+    public TimerWheel getConnectionTimers() {return connectionTimers;}
+    @Override
+    public boolean hasPendingResumes() {return !pendingResumes.isEmpty();}
+    @Override
+    public MatchPhase getPhase() {return phase;}
+    @Override
+    public long getRemainingGameMillis() {
+        return gameEndsAtMillis == 0 ? -1 : Math.max(0, gameEndsAtMillis - System.currentTimeMillis());
+    }
     @Override
     public int getPlayerCount() {return players.size();}
     @Override
     public int getMaxPlayers() {return MAX_PLAYERS;}
     @Override
-    public int getNextPlayerId() {return playerCounter.getAndIncrement();}
-    @Override
     public Grid getGrid() {return grid;}
     @Override
     public Map<String, Player> getPlayers() {return players;}
+    @Override
+    public String getName() {return name;}
+    /**
+     * Returns the room's journal, or null until the first player joined.
+     */
+    @Override
+    public MatchJournal getJournal() {return journal;}
+    @Override
+    public EventBus getEvents() {return events;}
 }
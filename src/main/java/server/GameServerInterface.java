@@ -1,38 +1,56 @@
 package main.java.server;
 
+import main.java.event.EventBus;
+import main.java.journal.MatchJournal;
+import main.java.metrics.RoomLatencyStats;
+import main.java.metrics.ServerMetrics;
 import main.java.model.Grid;
 import main.java.model.Player;
+import main.java.protocol.MessageWriter;
+import main.java.timer.TimerWheel;
 
 import java.util.Map;
 
 /**
  * Defines the core game server operations for a multiplayer maze game.
  * This interface represents the contract between the game server and its clients,
- * including player management, game state updates, and observer pattern implementation.
+ * including player management and game state updates.
  *
- * The interface combines server administration methods with observer pattern
- * support for push-based notifications.
+ * Clients are kept up to date with broadcasts; in-process consumers subscribe to the
+ * typed events of the room's {@link EventBus}.
  */
 public interface GameServerInterface {
-    // Observer methods
-    void addObserver(Observer observer);
-    void removeObserver(Observer observer);
-    void notifyObservers(String message);
-    
     // Player Management and Communication
     void broadcast(String message);
+    void broadcast(MessageWriter message);
+    Player joinPlayer();
     void addPlayer(Player player);
     void removePlayer(String playerId);
     boolean movePlayer(String playerId, int newX, int newY);
+    void addClient(ClientHandler client);
     void removeClient(ClientHandler client);
     void determineWinner();
+    void broadcastLobbyState();
+    void sendLobbyState(ClientHandler client);
+    void broadcastAllPlayerPositions();
 
     // Game State
+    String getName();
     int getPlayerCount();
     int getMaxPlayers();
-    int getNextPlayerId();
     Grid getGrid();
     Map<String, Player> getPlayers();   
-    void startGameTimer();
+    void readinessChanged();
+    MatchPhase getPhase();
     void checkAllSquaresClaimed();
+    long getRemainingGameMillis();
+    MatchJournal getJournal();
+    EventBus getEvents();
+    ServerMetrics getMetrics();
+    RoomLatencyStats getLatencyStats();
+    TimerWheel getConnectionTimers();
+
+    // Crash recovery
+    boolean hasPendingResumes();
+    Player resumePlayer(String playerId);
 }
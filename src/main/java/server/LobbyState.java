@@ -0,0 +1,80 @@
+package main.java.server;
+
+import main.java.model.Player;
+import main.java.protocol.MessageWriter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The lobby as the room's clients last heard it: each player's readiness, with a version
+ * that goes up by one with every change sent.
+ *
+ * Changes are not sent one by one. The room collects them for a short while and then
+ * sends a single diff against the last version, "LOBBY_DIFF,version,id,READY|NOT READY|LEFT;...",
+ * so a lobby where everyone toggles at once costs one message per window rather than one
+ * full list per toggle. Clients that join, or that find a version missing, are sent the
+ * full list instead: "LOBBY_STATE,version,id,READY|NOT READY;...".
+ *
+ * Not thread-safe; the room uses it under its monitor.
+ */
+public class LobbyState {
+    private static final String READY = "READY";
+    private static final String NOT_READY = "NOT READY";
+    private static final String LEFT = "LEFT";
+
+    private final Map<String, Boolean> sent = new LinkedHashMap<>(); // Player ID -> ready, as last sent
+    private long version = 0;
+
+    /**
+     * Encodes the changes since the last version and makes them the new version.
+     *
+     * @param players the room's players now
+     * @param message the writer to encode the LOBBY_DIFF message into
+     * @return false if nothing changed, in which case no message was encoded
+     */
+    public boolean diff(Map<String, Player> players, MessageWriter message) {
+        message.reset().append("LOBBY_DIFF").field(version + 1).append(',');
+        int changes = 0;
+        for (Player player : players.values()) {
+            Boolean ready = player.getReady();
+            if (!ready.equals(sent.put(player.getId(), ready))) {
+                message.append(player.getId()).append(',').append(ready ? READY : NOT_READY).append(';');
+                changes++;
+            }
+        }
+        for (Iterator<String> ids = sent.keySet().iterator(); ids.hasNext(); ) {
+            String id = ids.next();
+            if (!players.containsKey(id)) {
+                ids.remove();
+                message.append(id).append(',').append(LEFT).append(';');
+                changes++;
+            }
+        }
+        if (changes == 0) {
+            message.reset();
+            return false;
+        }
+        version++;
+        message.end();
+        return true;
+    }
+
+    /**
+     * Encodes the whole lobby at the current version.
+     *
+     * @param message the writer to encode the LOBBY_STATE message into
+     */
+    public void full(MessageWriter message) {
+        message.reset().append("LOBBY_STATE").field(version).append(',');
+        for (Map.Entry<String, Boolean> entry : sent.entrySet()) {
+            message.append(entry.getKey()).append(',').append(entry.getValue() ? READY : NOT_READY).append(';');
+        }
+        message.end();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,303 @@
+package main.java.server;
+
+import main.java.event.GameEvent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming analytics over the events of every match on the server.
+ *
+ * Events arrive one by one (from each room's event bus) and update rolling
+ * aggregates incrementally: per-second buckets over a sliding window for move, rejection
+ * and claim rates, a cumulative heatmap of contested cells, and the average match length.
+ * Nothing is ever re-scanned, so the cost per event is constant.
+ *
+ * The current aggregates can be queried at any time with {@link #report()}, are served
+ * live on the /metrics endpoint through {@link #writeMetrics}, and are appended as one
+ * compact tab-separated line to analytics.tsv every flush interval.
+ */
+public class MatchAnalytics {
+    private static final int WINDOW_SECONDS = 60;
+    private static final int FLUSH_INTERVAL_SECONDS = 10;
+
+    // Sliding window of one-second buckets, indexed by (second % WINDOW_SECONDS)
+    private final long[] bucketSecond = new long[WINDOW_SECONDS];
+    private final int[] bucketMoves = new int[WINDOW_SECONDS];
+    private final int[] bucketRejects = new int[WINDOW_SECONDS];
+    private final Map<String, int[]> bucketClaims = new HashMap<>(); // "room/player ID" -> claims per bucket
+
+    private final int gridSize;
+    private final long[] contested; // Rejected moves per target cell, indexed x * gridSize + y
+    // Per room: the current owner per cell, so repeated CLAIMED events count once
+    private final Map<String, String[]> owners = new HashMap<>();
+    private final Map<String, Long> matchStarts = new HashMap<>(); // Room -> start time of its running match
+    private long totalMoves = 0;
+    private long totalRejects = 0;
+    private long matchesFinished = 0;
+    private long totalMatchMillis = 0;
+
+    private final Path outputFile;
+
+    /**
+     * Creates the analytics stage and starts its periodic flush.
+     *
+     * @param gridSize the width and height of the match grid
+     * @param directory where the flushed aggregates are written
+     */
+    public MatchAnalytics(int gridSize, Path directory) {
+        this.gridSize = gridSize;
+        this.contested = new long[gridSize * gridSize];
+        this.outputFile = directory.resolve("analytics.tsv");
+
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analytics-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The event types the aggregates are built from.
+     */
+    public static final Set<GameEvent.Type> EVENT_TYPES = EnumSet.of(GameEvent.Type.MOVED,
+            GameEvent.Type.MOVE_REJECTED, GameEvent.Type.CLAIMED, GameEvent.Type.RELEASED,
+            GameEvent.Type.GAME_STARTED, GameEvent.Type.GAME_OVER, GameEvent.Type.ROOM_CLOSED);
+
+    /**
+     * Updates the aggregates with one match event.
+     *
+     * @param event the event, from any room
+     */
+    public synchronized void accept(GameEvent event) {
+        int bucket = bucketFor(event.timestamp / 1000);
+        switch (event.type) {
+            case MOVED -> {
+                bucketMoves[bucket]++;
+                totalMoves++;
+            }
+            case MOVE_REJECTED -> {
+                bucketRejects[bucket]++;
+                totalRejects++;
+                if (event.toX >= 0 && event.toX < gridSize && event.toY >= 0 && event.toY < gridSize) {
+                    contested[event.toX * gridSize + event.toY]++;
+                }
+            }
+            case CLAIMED -> {
+                String[] roomOwners = owners.computeIfAbsent(event.room, room -> new String[gridSize * gridSize]);
+                int cell = event.x * gridSize + event.y;
+                if (!event.playerId.equals(roomOwners[cell])) {
+                    roomOwners[cell] = event.playerId;
+                    bucketClaims.computeIfAbsent(event.room + '/' + event.playerId, key -> new int[WINDOW_SECONDS])[bucket]++;
+                }
+            }
+            case RELEASED -> {
+                String[] roomOwners = owners.get(event.room);
+                if (roomOwners != null) {
+                    roomOwners[event.x * gridSize + event.y] = null;
+                }
+            }
+            case GAME_STARTED -> {
+                matchStarts.put(event.room, event.timestamp);
+                owners.remove(event.room);
+            }
+            case GAME_OVER -> {
+                Long start = matchStarts.remove(event.room);
+                if (start != null) {
+                    matchesFinished++;
+                    totalMatchMillis += event.timestamp - start;
+                }
+            }
+            case ROOM_CLOSED -> {
+                matchStarts.remove(event.room);
+                owners.remove(event.room);
+                String prefix = event.room + '/';
+                bucketClaims.keySet().removeIf(key -> key.startsWith(prefix));
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Returns the bucket for a given second, clearing it first if it still holds data
+     * from an older pass around the window.
+     */
+    private int bucketFor(long second) {
+        int bucket = (int) (second % WINDOW_SECONDS);
+        if (bucketSecond[bucket] != second) {
+            bucketSecond[bucket] = second;
+            bucketMoves[bucket] = 0;
+            bucketRejects[bucket] = 0;
+            for (int[] claims : bucketClaims.values()) {
+                claims[bucket] = 0;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Sums a per-bucket counter over the buckets that fall inside the current window.
+     */
+    private int windowSum(int[] counts, long nowSecond) {
+        int sum = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            if (nowSecond - bucketSecond[i] < WINDOW_SECONDS) {
+                sum += counts[i];
+            }
+        }
+        return sum;
+    }
+
+    public synchronized double getMovesPerSecond() {
+        return windowSum(bucketMoves, System.currentTimeMillis() / 1000) / (double) WINDOW_SECONDS;
+    }
+
+    /**
+     * Fraction of move attempts rejected (INVALID_MOVE) over the window.
+     */
+    public synchronized double getRejectionRate() {
+        long now = System.currentTimeMillis() / 1000;
+        int rejects = windowSum(bucketRejects, now);
+        int attempts = windowSum(bucketMoves, now) + rejects;
+        return attempts == 0 ? 0 : rejects / (double) attempts;
+    }
+
+    /**
+     * Claims per second of each player over the window, keyed "room/player ID".
+     */
+    public synchronized Map<String, Double> getClaimRates() {
+        long now = System.currentTimeMillis() / 1000;
+        Map<String, Double> rates = new TreeMap<>();
+        for (Map.Entry<String, int[]> entry : bucketClaims.entrySet()) {
+            rates.put(entry.getKey(), windowSum(entry.getValue(), now) / (double) WINDOW_SECONDS);
+        }
+        return rates;
+    }
+
+    public synchronized double getAverageMatchSeconds() {
+        return matchesFinished == 0 ? 0 : totalMatchMillis / 1000.0 / matchesFinished;
+    }
+
+    /**
+     * Copy of the contested-cell heatmap, indexed [x][y].
+     */
+    public synchronized long[][] getContestedHeatmap() {
+        long[][] heatmap = new long[gridSize][gridSize];
+        for (int x = 0; x < gridSize; x++) {
+            System.arraycopy(contested, x * gridSize, heatmap[x], 0, gridSize);
+        }
+        return heatmap;
+    }
+
+    /**
+     * Human-readable summary of the live aggregates.
+     */
+    public synchronized String report() {
+        return String.format("moves/s=%.2f rejected=%.1f%% avgMatch=%.1fs matches=%d totalMoves=%d totalRejects=%d claims/s=%s",
+                getMovesPerSecond(), getRejectionRate() * 100, getAverageMatchSeconds(), matchesFinished,
+                totalMoves, totalRejects, getClaimRates());
+    }
+
+    /**
+     * Writes the live aggregates in the Prometheus text format, for the /metrics endpoint.
+     * Only cells that have been contested at least once are listed in the heatmap.
+     *
+     * @param out the response being rendered
+     */
+    public void writeMetrics(StringBuilder out) {
+        double movesPerSecond;
+        double rejectionRate;
+        double averageMatchSeconds;
+        long matches;
+        Map<String, Double> claimRates;
+        long[] heatmap;
+        synchronized (this) {
+            movesPerSecond = getMovesPerSecond();
+            rejectionRate = getRejectionRate();
+            averageMatchSeconds = getAverageMatchSeconds();
+            matches = matchesFinished;
+            claimRates = getClaimRates();
+            heatmap = contested.clone();
+        }
+
+        gauge(out, "onigiri_analytics_moves_per_second", "Accepted moves per second over the last "
+                + WINDOW_SECONDS + " seconds", movesPerSecond);
+        gauge(out, "onigiri_analytics_rejection_ratio", "Fraction of move attempts rejected over the last "
+                + WINDOW_SECONDS + " seconds", rejectionRate);
+        gauge(out, "onigiri_analytics_match_seconds_average", "Average length of a finished match", averageMatchSeconds);
+        out.append("# HELP onigiri_analytics_matches_total Matches played to the end\n");
+        out.append("# TYPE onigiri_analytics_matches_total counter\n");
+        out.append("onigiri_analytics_matches_total ").append(matches).append('\n');
+
+        out.append("# HELP onigiri_analytics_claims_per_second New claims per second of each player over the last ")
+                .append(WINDOW_SECONDS).append(" seconds\n");
+        out.append("# TYPE onigiri_analytics_claims_per_second gauge\n");
+        for (Map.Entry<String, Double> entry : claimRates.entrySet()) {
+            int slash = entry.getKey().lastIndexOf('/');
+            out.append("onigiri_analytics_claims_per_second{room=\"").append(entry.getKey(), 0, slash)
+                    .append("\",player=\"").append(entry.getKey().substring(slash + 1)).append("\"} ")
+                    .append(entry.getValue()).append('\n');
+        }
+
+        out.append("# HELP onigiri_analytics_contested_moves_total Rejected moves by target cell, since startup\n");
+        out.append("# TYPE onigiri_analytics_contested_moves_total counter\n");
+        for (int cell = 0; cell < heatmap.length; cell++) {
+            if (heatmap[cell] > 0) {
+                out.append("onigiri_analytics_contested_moves_total{x=\"").append(cell / gridSize)
+                        .append("\",y=\"").append(cell % gridSize).append("\"} ").append(heatmap[cell]).append('\n');
+            }
+        }
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Appends the current aggregates as one line:
+     * time, moves/s, rejection rate, average match seconds, matches, claim rates, heatmap.
+     */
+    private void flush() {
+        String line;
+        synchronized (this) {
+            StringBuilder heatmap = new StringBuilder();
+            for (long count : contested) {
+                if (!heatmap.isEmpty()) heatmap.append(',');
+                heatmap.append(count);
+            }
+            StringBuilder claims = new StringBuilder();
+            for (Map.Entry<String, Double> entry : getClaimRates().entrySet()) {
+                if (!claims.isEmpty()) claims.append(',');
+                claims.append(entry.getKey()).append('=').append(String.format("%.3f", entry.getValue()));
+            }
+            line = String.format("%d\t%.3f\t%.4f\t%.1f\t%d\t%s\t%s%n", System.currentTimeMillis(),
+                    getMovesPerSecond(), getRejectionRate(), getAverageMatchSeconds(), matchesFinished,
+                    claims, heatmap);
+        }
+
+        try {
+            Files.createDirectories(outputFile.getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(outputFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(line);
+            }
+        } catch (IOException e) {
+            System.err.println("WARNING: Unable to write analytics: " + e.getMessage());
+        }
+    }
+}
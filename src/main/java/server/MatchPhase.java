@@ -0,0 +1,17 @@
+package main.java.server;
+
+/**
+ * The phases of a match, in order. The server moves through them only forward, except
+ * that an aborted countdown returns to the lobby:
+ *
+ * LOBBY -> COUNTDOWN (every player is ready)
+ * COUNTDOWN -> LOBBY (a player is no longer ready)
+ * COUNTDOWN -> RUNNING (the countdown ran out)
+ * RUNNING -> FINISHED (the time ran out or every square is claimed)
+ */
+public enum MatchPhase {
+    LOBBY,
+    COUNTDOWN,
+    RUNNING,
+    FINISHED
+}
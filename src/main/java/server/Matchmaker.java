@@ -0,0 +1,448 @@
+package main.java.server;
+
+import main.java.journal.MatchRecovery;
+import main.java.metrics.ServerMetrics;
+import main.java.model.Player;
+import main.java.timer.TimerWheel;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places connecting players into rooms, each a {@link GameServer} running its own match.
+ *
+ * New players wait in a queue. Rooms are formed in batches on the timer wheel a few
+ * times a second rather than per connection. A batch groups the waiting players into
+ * latency buckets by their heartbeat round trip. It tops up rooms of the same bucket
+ * that are still in the lobby, then opens full rooms. Once the first player of a bucket
+ * has waited FILL_WAIT long, it also opens a smaller room for whoever is waiting.
+ * Someone who waits long is matched one bucket faster for every RELAX interval, so
+ * slow connections are not starved. A few rooms are kept pre-built, with their grid,
+ * spawn plan and event bus ready, so a formed match starts without setup work. They
+ * are built outside the monitor.
+ *
+ * A placed player's connection thread joins the room itself, because square locks
+ * belong to the thread that takes them. The matchmaker pings the client to wake that
+ * thread, which is blocked reading the socket. The client's PONG arrives one round
+ * trip later. Messages to clients are only collected under the monitor, and posted to
+ * the clients' outboxes once it is released, so no write ever holds up matchmaking.
+ *
+ * The queue is bounded: when it is full, new clients are turned away with SERVER_BUSY,
+ * and queued clients are told their position as it changes, at most once a second. A
+ * client whose room filled up or started its match before the client could join goes
+ * back to the front of the queue.
+ *
+ * Rooms of a crashed server run are restored at startup. Their players return with
+ * RESUME and the room's name. A room is closed when the last of its clients leaves.
+ */
+public class Matchmaker {
+    // How often waiting players are grouped into rooms; set with -Donigiri.formationIntervalMs=N
+    private static final int FORMATION_INTERVAL_MS = Integer.getInteger("onigiri.formationIntervalMs", 250);
+    // How long the first player of a bucket waits for a full room before a smaller one opens
+    private static final long FILL_WAIT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Integer.getInteger("onigiri.roomFillWaitMs", 1000));
+    // Every this long in the queue, a player may be matched with the next faster bucket
+    private static final long RELAX_NANOS = TimeUnit.SECONDS.toNanos(5);
+    // Upper bounds of the latency buckets, as heartbeat round trips in microseconds
+    private static final long[] BUCKET_BOUNDS_MICROS = {50_000, 150_000};
+    private static final int BUCKETS = BUCKET_BOUNDS_MICROS.length + 1;
+    private static final int RECOVERED = -1; // Bucket of restored rooms, which only take their own players back
+    private static final int WARM_ROOMS = 2;
+    // The most players waiting for a room; set with -Donigiri.maxQueued=N
+    private static final int MAX_QUEUED = Integer.getInteger("onigiri.maxQueued", 2000);
+    private static final long POSITION_UPDATE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int roomSize;
+    private final ServerMetrics metrics;
+    private final TimerWheel timers;
+    private final TimerWheel connectionTimers;
+
+    // Everything below is guarded by this matchmaker's monitor
+    private final ArrayDeque<Waiting> queue = new ArrayDeque<>();
+    private final Map<String, Room> rooms = new HashMap<>();
+    private final List<ArrayDeque<Room>> openRooms = new ArrayList<>(); // Lobby rooms with free seats, by bucket
+    private final List<List<Waiting>> groups = new ArrayList<>();       // Scratch space of formRooms()
+    private final List<Room> recoveredRooms = new ArrayList<>();        // Restored rooms still waiting for players
+    private final ArrayDeque<GameServer> warmRooms = new ArrayDeque<>();
+    private final List<Notice> notices = new ArrayList<>(); // Messages formRooms() posts after the monitor
+    private int roomCounter = 0;
+    private volatile int queued = 0; // Size of the queue, readable without the monitor
+
+    /**
+     * A player waiting for a room.
+     */
+    private static final class Waiting {
+        final ClientHandler client;
+        final long since; // System.nanoTime() when the player joined the queue
+        boolean placed;
+        int reportedPosition;
+        long reportedAt;  // When the client was last told its position
+
+        Waiting(ClientHandler client, long since) {
+            this.client = client;
+            this.since = since;
+        }
+    }
+
+    /**
+     * A message for a client, collected under the monitor and posted after it.
+     */
+    private record Notice(ClientHandler client, String message) {
+    }
+
+    /**
+     * A room in use, with the clients placed in it.
+     */
+    private static final class Room {
+        final GameServer server;
+        final int bucket; // The latency bucket it was formed for, or RECOVERED
+        int seats;        // Clients placed in the room that have not left yet
+        boolean listed;   // Whether it is in openRooms
+
+        Room(GameServer server, int bucket) {
+            this.server = server;
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * Creates the matchmaker, restores the rooms of a crashed server run and starts
+     * forming rooms.
+     *
+     * @param roomSize the most players in a room
+     * @param metrics where queue waits and room counts are reported
+     * @param timers the wheel that runs room formation
+     * @param connectionTimers the wheel that runs the heartbeats of queued clients
+     */
+    public Matchmaker(int roomSize, ServerMetrics metrics, TimerWheel timers, TimerWheel connectionTimers) {
+        this.roomSize = roomSize;
+        this.metrics = metrics;
+        this.timers = timers;
+        this.connectionTimers = connectionTimers;
+        for (int i = 0; i < BUCKETS; i++) {
+            openRooms.add(new ArrayDeque<>());
+            groups.add(new ArrayList<>());
+        }
+        recoverRooms();
+        timers.scheduleAtFixedRate(this::formRooms, 0, FORMATION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Restores every room whose match was interrupted, and numbers new rooms after the
+     * ones already in the journal directory.
+     */
+    private synchronized void recoverRooms() {
+        Path directory = Paths.get(GameServer.JOURNAL_DIRECTORY);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> roomDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path roomDirectory : roomDirectories) {
+                String name = roomDirectory.getFileName().toString();
+                roomCounter = Math.max(roomCounter, roomNumber(name));
+                MatchRecovery recovered = GameServer.recoverRoom(name);
+                if (recovered != null) {
+                    Room room = new Room(new GameServer(name, recovered), RECOVERED);
+                    rooms.put(name, room);
+                    recoveredRooms.add(room);
+                    // Close it if none of its players come back
+                    timers.schedule(() -> closeIfEmpty(room), GameServer.RESUME_GRACE_SECONDS + 1, TimeUnit.SECONDS);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not look for rooms to recover: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the N of a room named "room-N", or 0 for other names
+     */
+    private static int roomNumber(String name) {
+        if (name.startsWith("room-")) {
+            try {
+                return Integer.parseInt(name.substring(5));
+            } catch (NumberFormatException e) {
+                // Not one of ours
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Adds a client to the queue. The client is placed in a room by a later
+     * {@link #formRooms()} through {@link ClientHandler#assignRoom}.
+     *
+     * @return the client's position in the queue, from 1, or -1 if the queue is full
+     */
+    public synchronized int enqueue(ClientHandler client) {
+        if (queue.size() >= MAX_QUEUED) {
+            return -1;
+        }
+        Waiting waiting = new Waiting(client, System.nanoTime());
+        queue.add(waiting);
+        queued = queue.size();
+        waiting.reportedPosition = queue.size();
+        waiting.reportedAt = waiting.since;
+        return waiting.reportedPosition;
+    }
+
+    /**
+     * Puts a client back at the front of the queue after its room filled up or started
+     * its match before the client could join.
+     */
+    public void requeue(ClientHandler client) {
+        GameServer closing;
+        synchronized (this) {
+            closing = releaseSeat(client);
+            client.assignRoom(null);
+            queue.addFirst(new Waiting(client, System.nanoTime()));
+            queued = queue.size();
+        }
+        if (closing != null) {
+            closing.close();
+        }
+    }
+
+    /**
+     * @return whether new clients would be turned away because the queue is full
+     */
+    public boolean isQueueFull() {
+        return queued >= MAX_QUEUED;
+    }
+
+    /**
+     * Puts a reconnecting client back into its restored room.
+     *
+     * @param client the reconnecting client; on success its room is assigned
+     * @param playerId the ID the client had before the crash
+     * @param roomName the room the client was in, or null if the client did not say
+     * @return the restored player, or null if no room is waiting for it
+     */
+    public synchronized Player resume(ClientHandler client, String playerId, String roomName) {
+        for (Room room : recoveredRooms) {
+            if (roomName != null && !roomName.equals(room.server.getName())) {
+                continue;
+            }
+            Player player = room.server.resumePlayer(playerId);
+            if (player != null) {
+                room.seats++;
+                client.assignRoom(room.server);
+                return player;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether a restored room is still waiting for players to reconnect
+     */
+    public synchronized boolean hasPendingResumes() {
+        recoveredRooms.removeIf(room -> !room.server.hasPendingResumes());
+        return !recoveredRooms.isEmpty();
+    }
+
+    /**
+     * Frees the seat of a client that disconnected, whether it was queued, placed or
+     * playing. The room is closed when its last client leaves; a lobby room with a free
+     * seat takes new players again.
+     */
+    public void disconnected(ClientHandler client) {
+        GameServer closing;
+        synchronized (this) {
+            closing = releaseSeat(client); // A client that is still queued is dropped by formRooms()
+        }
+        if (closing != null) {
+            closing.close(); // Commits the journal; done outside the monitor
+        }
+    }
+
+    /**
+     * Frees the seat of a client in its assigned room.
+     *
+     * @return the room if that was its last seat; it is no longer in use and must be closed
+     */
+    private GameServer releaseSeat(ClientHandler client) {
+        GameServerInterface server = client.getAssignedRoom();
+        Room room = server != null ? rooms.get(server.getName()) : null;
+        if (room == null || room.server != server) {
+            return null;
+        }
+        room.seats--;
+        if (room.seats <= 0) {
+            rooms.remove(room.server.getName());
+            return room.server;
+        }
+        if (room.bucket != RECOVERED && !room.listed && room.server.getPhase() == MatchPhase.LOBBY) {
+            room.listed = true;
+            openRooms.get(room.bucket).add(room);
+        }
+        return null;
+    }
+
+    /**
+     * Closes a restored room that nobody came back to.
+     */
+    private void closeIfEmpty(Room room) {
+        synchronized (this) {
+            if (room.seats > 0 || rooms.get(room.server.getName()) != room) {
+                return;
+            }
+            rooms.remove(room.server.getName());
+        }
+        // Closing waits for the journal to commit, which a timer task must not do
+        Thread.ofVirtual().name("close-" + room.server.getName()).start(room.server::close);
+    }
+
+    /**
+     * One round of room formation, run on the timer wheel: places waiting players in
+     * lobby rooms of their bucket, then in new rooms. Clients are told where they stand
+     * and warm rooms are built once the monitor is released.
+     */
+    private void formRooms() {
+        List<Notice> posting;
+        int roomsToWarm;
+        synchronized (this) {
+            formRoomsLocked();
+            posting = new ArrayList<>(notices);
+            notices.clear();
+            roomsToWarm = WARM_ROOMS - warmRooms.size();
+        }
+        for (Notice notice : posting) {
+            notice.client.post(notice.message);
+        }
+
+        // Build the rooms the next rounds will need now, while nobody waits for them
+        for (int i = 0; i < roomsToWarm; i++) {
+            String name;
+            synchronized (this) {
+                name = "room-" + ++roomCounter;
+            }
+            GameServer server = new GameServer(name, null);
+            synchronized (this) {
+                warmRooms.add(server);
+            }
+        }
+    }
+
+    /**
+     * The part of {@link #formRooms()} done under the monitor; messages for clients go
+     * to notices.
+     */
+    private void formRoomsLocked() {
+        long now = System.nanoTime();
+        if (!queue.isEmpty()) {
+            // Group the waiting players by bucket, each group oldest first
+            for (Waiting waiting : queue) {
+                if (!waiting.client.isClosed()) {
+                    groups.get(bucketOf(waiting, now)).add(waiting);
+                }
+            }
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                placeGroup(bucket, groups.get(bucket), now);
+                groups.get(bucket).clear();
+            }
+            queue.removeIf(waiting -> waiting.placed || waiting.client.isClosed());
+            reportPositions(now);
+        }
+        queued = queue.size();
+        metrics.setMatchmaking(queue.size(), rooms.size());
+    }
+
+    /**
+     * Tells queued clients their new position, at most once every POSITION_UPDATE_NANOS.
+     */
+    private void reportPositions(long now) {
+        int position = 0;
+        for (Waiting waiting : queue) {
+            position++;
+            if (position != waiting.reportedPosition && now - waiting.reportedAt >= POSITION_UPDATE_NANOS) {
+                waiting.reportedPosition = position;
+                waiting.reportedAt = now;
+                notices.add(new Notice(waiting.client, "QUEUED," + position));
+            }
+        }
+    }
+
+    private void placeGroup(int bucket, List<Waiting> group, long now) {
+        int next = 0;
+
+        // Top up rooms of this bucket that are still in the lobby
+        ArrayDeque<Room> open = openRooms.get(bucket);
+        for (Iterator<Room> it = open.iterator(); it.hasNext() && next < group.size(); ) {
+            Room room = it.next();
+            if (room.server.getPhase() == MatchPhase.LOBBY) {
+                while (room.seats < roomSize && next < group.size()) {
+                    place(group.get(next++), room, now);
+                }
+            }
+            if (room.seats >= roomSize || room.server.getPhase() != MatchPhase.LOBBY) {
+                room.listed = false;
+                it.remove();
+            }
+        }
+
+        // Open full rooms, and a smaller one once its first player has waited long enough
+        while (next < group.size()
+                && (group.size() - next >= roomSize || now - group.get(next).since >= FILL_WAIT_NANOS)) {
+            Room room = openRoom(bucket);
+            while (room.seats < roomSize && next < group.size()) {
+                place(group.get(next++), room, now);
+            }
+            if (room.seats < roomSize) {
+                room.listed = true;
+                open.add(room); // Latecomers of this bucket can still join it
+            }
+        }
+    }
+
+    private Room openRoom(int bucket) {
+        GameServer server = warmRooms.poll();
+        if (server == null) {
+            server = new GameServer("room-" + ++roomCounter, null);
+        }
+        Room room = new Room(server, bucket);
+        rooms.put(server.getName(), room);
+        return room;
+    }
+
+    private void place(Waiting waiting, Room room, long now) {
+        waiting.placed = true;
+        room.seats++;
+        metrics.recordQueueWait(now - waiting.since);
+        waiting.client.assignRoom(room.server);
+        // The reply wakes the client's thread, blocked reading its socket
+        notices.add(new Notice(waiting.client, "PING," + System.nanoTime()));
+    }
+
+    /**
+     * @return the latency bucket of a waiting player: by its last heartbeat round trip
+     *         (the fastest bucket until it has answered one), one bucket faster for every
+     *         RELAX_NANOS it has waited
+     */
+    private static int bucketOf(Waiting waiting, long now) {
+        long roundTrip = waiting.client.getRoundTripMicros();
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MICROS.length && roundTrip >= BUCKET_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        return (int) Math.max(0, bucket - (now - waiting.since) / RELAX_NANOS);
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public TimerWheel getConnectionTimers() {
+        return connectionTimers;
+    }
+}
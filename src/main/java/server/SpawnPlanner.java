@@ -0,0 +1,209 @@
+package main.java.server;
+
+import main.java.model.Grid;
+import main.java.model.Player;
+import main.java.model.Square;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Picks where a joining player starts, so that players are spread evenly over the grid.
+ *
+ * The start squares of a full match are planned once, when the planner is created: a
+ * greedy farthest-point pass seeds one point per player, then a few rounds of Lloyd
+ * relaxation move each point to the center of the squares closest to it. This gives
+ * every player a region of about the same size, with the point in its middle, so
+ * start squares keep their distance from each other and from the walls alike.
+ *
+ * A joining player gets the free planned square farthest from the players already on
+ * the grid, found with a two-pass distance transform (steps along the grid, the way
+ * players move). If every planned square is taken, e.g. by players restored after a
+ * crash, the free square farthest from players and walls is used instead. Everything
+ * is deterministic, so the same lobby always gets the same spawns.
+ */
+public class SpawnPlanner {
+    private static final int RELAXATION_ROUNDS = 16;
+
+    private final int size;
+    private final int[] slots;    // Planned start squares in joining order, as x * size + y
+    private final int[] distance; // Steps to the nearest player, indexed x * size + y
+
+    /**
+     * @param size the width and height of the grid
+     * @param capacity the most players a match can have
+     */
+    public SpawnPlanner(int size, int capacity) {
+        this.size = size;
+        this.distance = new int[size * size];
+        this.slots = planSlots(Math.min(capacity, size * size));
+    }
+
+    /**
+     * Chooses a start square for a new player. Not thread-safe: callers choose and add
+     * the player under one lock, so two players never get the same square.
+     *
+     * @param grid the grid to spawn on
+     * @param players the players already on the grid
+     * @return the chosen {x, y}, or null if every square is taken
+     */
+    public int[] choose(Grid grid, Collection<Player> players) {
+        computePlayerDistances(players);
+
+        int bestCell = -1;
+        for (int slot : slots) {
+            if (distance[slot] > 0 && isFree(grid.getSquare(slot / size, slot % size))
+                    && (bestCell < 0 || distance[slot] > distance[bestCell])) {
+                bestCell = slot;
+            }
+        }
+        if (bestCell < 0) {
+            bestCell = farthestFreeCell(grid);
+        }
+        return bestCell < 0 ? null : new int[]{bestCell / size, bestCell % size};
+    }
+
+    /**
+     * @return the free square farthest from the players and the walls, or -1 if there is none
+     */
+    private int farthestFreeCell(Grid grid) {
+        int bestCell = -1;
+        int bestScore = -1;
+        for (int cell = 0; cell < distance.length; cell++) {
+            int score = spreadScore(cell);
+            if (distance[cell] > 0 && score > bestScore && isFree(grid.getSquare(cell / size, cell % size))) {
+                bestCell = cell;
+                bestScore = score;
+            }
+        }
+        return bestCell;
+    }
+
+    /**
+     * How well a square keeps away from the players in {@link #distance} and from the
+     * walls. A wall counts half as much as a player: a player's region reaches halfway to
+     * its neighbours but all the way to the wall, so a square c steps from the edge
+     * scores like one 2c + 1 steps from a player.
+     */
+    private int spreadScore(int cell) {
+        int x = cell / size;
+        int y = cell % size;
+        int clearance = Math.min(Math.min(x, y), Math.min(size - 1 - x, size - 1 - y));
+        return Math.min(distance[cell], 2 * clearance + 1);
+    }
+
+    /**
+     * Plans the start squares of a full match: farthest-point seeds, then Lloyd
+     * relaxation over the grid's squares.
+     */
+    private int[] planSlots(int count) {
+        // Seed: each point as far as possible from the previous ones and the walls
+        int[] points = new int[count];
+        Arrays.fill(distance, 2 * size);
+        for (int i = 0; i < count; i++) {
+            int best = 0;
+            for (int cell = 1; cell < distance.length; cell++) {
+                if (spreadScore(cell) > spreadScore(best)) best = cell;
+            }
+            points[i] = best;
+            distance[best] = 0;
+            sweepDistances();
+        }
+
+        // Relax: move each point to the center of the squares nearest to it
+        long[] sumX = new long[count];
+        long[] sumY = new long[count];
+        int[] members = new int[count];
+        for (int round = 0; round < RELAXATION_ROUNDS; round++) {
+            Arrays.fill(sumX, 0);
+            Arrays.fill(sumY, 0);
+            Arrays.fill(members, 0);
+            for (int cell = 0; cell < distance.length; cell++) {
+                int nearest = nearestPoint(points, cell);
+                sumX[nearest] += cell / size;
+                sumY[nearest] += cell % size;
+                members[nearest]++;
+            }
+            boolean moved = false;
+            for (int i = 0; i < count; i++) {
+                if (members[i] == 0) continue;
+                int center = (int) Math.round((double) sumX[i] / members[i]) * size
+                        + (int) Math.round((double) sumY[i] / members[i]);
+                if (center != points[i] && !contains(points, center)) {
+                    points[i] = center;
+                    moved = true;
+                }
+            }
+            if (!moved) break;
+        }
+        return points;
+    }
+
+    private int nearestPoint(int[] points, int cell) {
+        int x = cell / size;
+        int y = cell % size;
+        int nearest = 0;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < points.length; i++) {
+            int dx = points[i] / size - x;
+            int dy = points[i] % size - y;
+            int d = dx * dx + dy * dy;
+            if (d < nearestDistance) {
+                nearest = i;
+                nearestDistance = d;
+            }
+        }
+        return nearest;
+    }
+
+    private static boolean contains(int[] points, int cell) {
+        for (int point : points) {
+            if (point == cell) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fills {@link #distance} with the number of steps from each square to the nearest
+     * player (a large value if there are none), in one forward and one backward sweep.
+     */
+    private void computePlayerDistances(Collection<Player> players) {
+        int far = 2 * size; // More than any real distance
+        Arrays.fill(distance, far);
+        for (Player player : players) {
+            int x = player.getX();
+            int y = player.getY();
+            if (x < size && y < size) distance[x * size + y] = 0;
+        }
+        sweepDistances();
+    }
+
+    /**
+     * Spreads the zeros in {@link #distance} (the players) to every square.
+     */
+    private void sweepDistances() {
+        // Forward: distances arriving from the left and from above
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int cell = x * size + y;
+                if (x > 0) distance[cell] = Math.min(distance[cell], distance[cell - size] + 1);
+                if (y > 0) distance[cell] = Math.min(distance[cell], distance[cell - 1] + 1);
+            }
+        }
+        // Backward: distances arriving from the right and from below
+        for (int x = size - 1; x >= 0; x--) {
+            for (int y = size - 1; y >= 0; y--) {
+                int cell = x * size + y;
+                if (x < size - 1) distance[cell] = Math.min(distance[cell], distance[cell + size] + 1);
+                if (y < size - 1) distance[cell] = Math.min(distance[cell], distance[cell + 1] + 1);
+            }
+        }
+    }
+
+    /**
+     * @return whether a player can start on the square: no one holds or owns it
+     */
+    private static boolean isFree(Square square) {
+        return !square.isLocked() && square.getOwner() == null;
+    }
+}
@@ -0,0 +1,432 @@
+package main.java.server;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded, file-based store of player statistics.
+ *
+ * Players are identified by the name their client gives with NAME when it connects, the
+ * only identity that lasts beyond one room: player IDs ("P1", "P2", ...) are handed out
+ * per room. Named players get totals of their wins, tiles and matches. Players who gave
+ * no name still appear in the history of their matches, under their room and player ID
+ * (e.g. "room-3/P2"), but get no totals.
+ *
+ * Reads are served from an in-memory cache that is updated as soon as a match ends.
+ * Disk writes are done behind the game's back: finished matches are queued and a
+ * background thread periodically appends the whole batch to the match history file and
+ * rewrites the per-player totals once, so game threads never touch the disk.
+ *
+ * Files in the store directory:
+ *   players.dat - per-player totals (rewritten atomically after each batch)
+ *   history.dat - append-only history of every match result, as length-prefixed records
+ *                 with a CRC, so a record torn by a crash is recognized and cut off
+ */
+public class StatsStore {
+    private static final int FLUSH_INTERVAL_MS = 1000;
+    private static final int RECENT_MATCHES = 100;    // Matches kept in the cache
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    /**
+     * Aggregated statistics of a single named player.
+     */
+    public static class PlayerStats {
+        public final String name;
+        public int matchesPlayed;
+        public int wins;
+        public long tilesClaimed;
+        public int bestScore;
+        public long lastPlayed;
+
+        PlayerStats(String name) {
+            this.name = name;
+        }
+
+        PlayerStats copy() {
+            PlayerStats copy = new PlayerStats(name);
+            copy.matchesPlayed = matchesPlayed;
+            copy.wins = wins;
+            copy.tilesClaimed = tilesClaimed;
+            copy.bestScore = bestScore;
+            copy.lastPlayed = lastPlayed;
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + wins + "/" + matchesPlayed + " wins, " + tilesClaimed + " tiles, best " + bestScore;
+        }
+    }
+
+    /**
+     * Final result of one match. Players are keyed by name, or by "room/playerId" if
+     * they gave none (see {@link #isNamed}).
+     */
+    public static class MatchResult {
+        public final long endedAt;
+        public final String room;
+        public final String winner;
+        public final Map<String, Integer> scores; // Tiles per player, highest first
+
+        public MatchResult(long endedAt, String room, String winner, Map<String, Integer> scores) {
+            this.endedAt = endedAt;
+            this.room = room;
+            this.winner = winner;
+            this.scores = scores;
+        }
+
+        @Override
+        public String toString() {
+            return endedAt + " " + room + " winner " + winner + " " + scores;
+        }
+    }
+
+    private final Path playersFile;
+    private final Path historyFile;
+    private final Map<String, PlayerStats> cache = new ConcurrentHashMap<>();
+    private final Deque<MatchResult> recent = new ArrayDeque<>(); // Most recent first, guarded by itself
+    private final BlockingQueue<MatchResult> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private StatsStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.playersFile = directory.resolve("players.dat");
+        this.historyFile = directory.resolve("history.dat");
+        loadPlayers();
+        recoverHistory();
+
+        writer = new Thread(this::writeLoop, "stats-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushPending));
+    }
+
+    /**
+     * Opens the store in the given directory.
+     *
+     * @param directory the directory holding the store files
+     * @return the opened store, or null if the directory cannot be used
+     */
+    public static StatsStore open(Path directory) {
+        try {
+            return new StatsStore(directory);
+        } catch (IOException e) {
+            System.err.println("WARNING: Unable to open stats store in " + directory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param key a player key of {@link MatchResult#scores}
+     * @return whether it is a player name, rather than the room and ID of a player who gave none
+     */
+    public static boolean isNamed(String key) {
+        return key.indexOf('/') < 0;
+    }
+
+    /**
+     * Records the result of a finished match. Updates the cache immediately and queues
+     * the disk write; never blocks.
+     *
+     * @param result the match result
+     */
+    public void recordMatch(MatchResult result) {
+        for (Map.Entry<String, Integer> entry : result.scores.entrySet()) {
+            if (isNamed(entry.getKey())) {
+                addToTotals(entry.getKey(), entry.getValue(), result);
+            }
+        }
+        synchronized (recent) {
+            recent.addFirst(result);
+            if (recent.size() > RECENT_MATCHES) recent.removeLast();
+        }
+        pending.offer(result);
+    }
+
+    private void addToTotals(String name, int score, MatchResult result) {
+        cache.compute(name, (key, stats) -> {
+            PlayerStats updated = stats != null ? stats : new PlayerStats(key);
+            synchronized (updated) {
+                updated.matchesPlayed++;
+                updated.tilesClaimed += score;
+                updated.bestScore = Math.max(updated.bestScore, score);
+                updated.lastPlayed = result.endedAt;
+                if (key.equals(result.winner)) updated.wins++;
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Returns a copy of a player's statistics from the cache.
+     *
+     * @param name the player's name
+     * @return the statistics, or null if the player never finished a match under that name
+     */
+    public PlayerStats getStats(String name) {
+        PlayerStats stats = cache.get(name);
+        if (stats == null) return null;
+        synchronized (stats) {
+            return stats.copy();
+        }
+    }
+
+    /**
+     * @param limit the maximum number of players to return
+     * @return copies of the statistics of the players with the most wins, most first
+     */
+    public List<PlayerStats> getTopPlayers(int limit) {
+        List<PlayerStats> players = new ArrayList<>();
+        for (PlayerStats stats : cache.values()) {
+            synchronized (stats) {
+                players.add(stats.copy());
+            }
+        }
+        players.sort(Comparator.comparingInt((PlayerStats stats) -> stats.wins)
+                .thenComparingLong(stats -> stats.tilesClaimed).reversed());
+        return players.subList(0, Math.min(limit, players.size()));
+    }
+
+    /**
+     * Returns the most recent matches from the cache.
+     *
+     * @param limit the maximum number of matches to return
+     * @return the matches, most recent first
+     */
+    public List<MatchResult> getRecentMatches(int limit) {
+        List<MatchResult> matches = new ArrayList<>();
+        synchronized (recent) {
+            for (MatchResult result : recent) {
+                if (matches.size() == limit) break;
+                matches.add(result);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Reads the most recent matches a player took part in from the history file.
+     * This reads the disk and should not be called from game threads.
+     *
+     * @param name the player's name
+     * @param limit the maximum number of matches to return
+     * @return the matches, most recent first
+     * @throws IOException if the history cannot be read
+     */
+    public List<MatchResult> readHistory(String name, int limit) throws IOException {
+        Deque<MatchResult> matches = new ArrayDeque<>();
+        readRecords(result -> {
+            if (result.scores.containsKey(name)) {
+                matches.addFirst(result);
+                if (matches.size() > limit) matches.removeLast();
+            }
+        });
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Describes a player's totals and latest matches, or the leaderboard and the latest
+     * matches if no player is given, as plain text.
+     *
+     * @param name the player's name, or null
+     * @param limit the most players and matches to list
+     * @throws IOException if the history cannot be read
+     */
+    public String describe(String name, int limit) throws IOException {
+        StringBuilder out = new StringBuilder();
+        if (name == null) {
+            out.append("# Top players\n");
+            for (PlayerStats stats : getTopPlayers(limit)) {
+                out.append(stats).append('\n');
+            }
+            out.append("# Recent matches\n");
+            for (MatchResult result : getRecentMatches(limit)) {
+                out.append(result).append('\n');
+            }
+            return out.toString();
+        }
+        PlayerStats stats = getStats(name);
+        out.append(stats != null ? stats.toString() : name + ": no matches").append('\n');
+        out.append("# Recent matches\n");
+        for (MatchResult result : readHistory(name, limit)) {
+            out.append(result).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writer thread: every FLUSH_INTERVAL_MS, writes everything queued since the last
+     * flush as one batch.
+     */
+    private void writeLoop() {
+        while (true) {
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            flushPending();
+        }
+    }
+
+    /**
+     * Writes everything currently queued as one batch.
+     */
+    private void flushPending() {
+        List<MatchResult> batch = new ArrayList<>();
+        pending.drainTo(batch);
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private synchronized void writeBatch(List<MatchResult> batch) {
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                    historyFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+                for (MatchResult result : batch) {
+                    writeRecord(out, result);
+                }
+            }
+            savePlayers();
+        } catch (IOException e) {
+            System.err.println("ERROR: Unable to write player statistics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends one match as [length][CRC32 of the payload][payload].
+     */
+    private static void writeRecord(DataOutputStream out, MatchResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeLong(result.endedAt);
+        payload.writeUTF(result.room);
+        payload.writeUTF(result.winner);
+        payload.writeShort(result.scores.size());
+        for (Map.Entry<String, Integer> entry : result.scores.entrySet()) {
+            payload.writeUTF(entry.getKey());
+            payload.writeInt(entry.getValue());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt(bytes.size());
+        out.writeInt((int) crc.getValue());
+        bytes.writeTo(out);
+    }
+
+    private static MatchResult readMatch(DataInputStream in) throws IOException {
+        long endedAt = in.readLong();
+        String room = in.readUTF();
+        String winner = in.readUTF();
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        int count = in.readShort();
+        for (int i = 0; i < count; i++) {
+            scores.put(in.readUTF(), in.readInt());
+        }
+        return new MatchResult(endedAt, room, winner, scores);
+    }
+
+    /**
+     * Reads the history file from the start, up to its end or the first record that is
+     * incomplete or fails its CRC: the tail a crash left half written.
+     *
+     * @param consumer receives every intact match, oldest first
+     * @return the length of the intact part of the file
+     */
+    private long readRecords(Consumer<MatchResult> consumer) throws IOException {
+        if (!Files.exists(historyFile)) return 0;
+        long valid = 0;
+        long size = Files.size(historyFile);
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(historyFile)))) {
+            while (size - valid >= 8) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE || length > size - valid - 8) {
+                    break;
+                }
+                byte[] payload = in.readNBytes(length);
+                crc.reset();
+                crc.update(payload);
+                if (payload.length != length || (int) crc.getValue() != checksum) {
+                    break;
+                }
+                try {
+                    consumer.accept(readMatch(new DataInputStream(new ByteArrayInputStream(payload))));
+                } catch (IOException e) {
+                    break; // Passed its CRC but does not decode: written by something else
+                }
+                valid += 8 + length;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Fills the cache of recent matches from the history file, and cuts off a record a
+     * crash left half written, so the next batch is not appended behind it.
+     */
+    private void recoverHistory() throws IOException {
+        long valid = readRecords(result -> {
+            recent.addFirst(result);
+            if (recent.size() > RECENT_MATCHES) recent.removeLast();
+        });
+        if (Files.exists(historyFile) && Files.size(historyFile) > valid) {
+            System.err.println("WARNING: Dropping " + (Files.size(historyFile) - valid)
+                    + " bytes of incomplete match history at the end of " + historyFile);
+            try (FileChannel channel = FileChannel.open(historyFile, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the per-player totals file from the cache.
+     */
+    private void savePlayers() throws IOException {
+        Path temp = playersFile.resolveSibling(playersFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(cache.size());
+            for (PlayerStats stats : cache.values()) {
+                PlayerStats copy;
+                synchronized (stats) {
+                    copy = stats.copy();
+                }
+                out.writeUTF(copy.name);
+                out.writeInt(copy.matchesPlayed);
+                out.writeInt(copy.wins);
+                out.writeLong(copy.tilesClaimed);
+                out.writeInt(copy.bestScore);
+                out.writeLong(copy.lastPlayed);
+            }
+        }
+        Files.move(temp, playersFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void loadPlayers() throws IOException {
+        if (!Files.exists(playersFile)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(playersFile)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                PlayerStats stats = new PlayerStats(in.readUTF());
+                stats.matchesPlayed = in.readInt();
+                stats.wins = in.readInt();
+                stats.tilesClaimed = in.readLong();
+                stats.bestScore = in.readInt();
+                stats.lastPlayed = in.readLong();
+                cache.put(stats.name, stats);
+            }
+        }
+    }
+}
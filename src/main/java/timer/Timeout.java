@@ -0,0 +1,91 @@
+package main.java.timer;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A task scheduled on a {@link TimerWheel}, and the handle to cancel it.
+ *
+ * The links and rounds are only touched by the wheel's tick thread; other threads only
+ * change the state, through {@link #cancel()}.
+ */
+public final class Timeout {
+    static final int PENDING = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    final TimerWheel wheel;
+    final Runnable task;
+    final long periodNanos;      // 0 for a one-shot timeout
+    volatile long deadlineNanos; // When the task is due next, on the System.nanoTime() clock
+    private volatile int state = PENDING;
+
+    // The bucket this timeout waits in, and its neighbours there; tick thread only
+    Timeout next;
+    Timeout previous;
+    TimerWheel.Bucket bucket;
+    long remainingRounds; // Full turns of the wheel left before the deadline's tick comes round
+
+    Timeout(TimerWheel wheel, Runnable task, long deadlineNanos, long periodNanos) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadlineNanos = deadlineNanos;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Cancels the timeout. A task that is already running finishes, but a periodic task
+     * does not run again. Takes constant time: the timeout leaves its bucket on the
+     * wheel's next tick.
+     *
+     * @return true if this call cancelled the timeout, false if it had already expired or
+     *         been cancelled
+     */
+    public boolean cancel() {
+        if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+            return false;
+        }
+        wheel.cancelled(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    /**
+     * @return whether a one-shot timeout has run or is running; periodic timeouts never expire
+     */
+    public boolean isExpired() {
+        return state == EXPIRED;
+    }
+
+    /**
+     * @return whether the task is periodic
+     */
+    public boolean isPeriodic() {
+        return periodNanos > 0;
+    }
+
+    /**
+     * @return the time until the task is next due, negative if it is late
+     */
+    public long getDelayNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * Marks a one-shot timeout as expired, unless it was cancelled first.
+     *
+     * @return whether the task should run
+     */
+    boolean expire() {
+        return STATE.compareAndSet(this, PENDING, EXPIRED);
+    }
+
+    boolean isPending() {
+        return state == PENDING;
+    }
+}
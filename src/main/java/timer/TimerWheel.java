@@ -0,0 +1,281 @@
+package main.java.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * A hashed timer wheel: schedules match timers, countdowns and connection timeouts for
+ * any number of rooms in constant time.
+ *
+ * A ScheduledThreadPoolExecutor keeps its tasks in a heap, so scheduling and cancelling
+ * cost O(log n) under one lock that every room contends on. The wheel instead has a ring
+ * of buckets, one per tick; a timeout goes into the bucket of the tick it is due on, with
+ * the number of full turns of the wheel still to wait. Scheduling and cancelling only
+ * append to a lock-free queue, which the tick thread drains into the buckets. On each
+ * tick the thread walks one bucket, hands the due tasks to the task threads and counts
+ * the others one turn down. Long timeouts wait a few turns in their bucket rather than
+ * in a second, coarser wheel; at game timescales that costs a counter decrement per turn.
+ *
+ * Tasks run at most one tick late and never early. Tasks are handed to a small pool of
+ * task threads, so a slow task does not hold up the tick; a periodic task is only
+ * rescheduled once its run has finished, so it never runs twice at once.
+ *
+ * Tasks must be short and must never block on I/O: every task of the wheel shares that
+ * small pool, so a task stuck on a socket write holds up all the others, and enough of
+ * them stop the wheel. A task sends to a client by posting to its outbox. Timeouts that
+ * must fire even when other tasks wait on locks, such as connection timeouts, belong on
+ * a wheel of their own.
+ */
+public final class TimerWheel {
+    // Most timeouts moved from the queue into buckets per tick, so a burst cannot stall a tick
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final long startNanos;
+    private final ExecutorService taskThreads;
+    private final LongConsumer lagRecorder;
+
+    // Handed over to the tick thread; everything else below belongs to it
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Thread tickThread;
+    private volatile boolean running = true;
+    private long tick; // Ticks since the wheel started
+
+    /**
+     * Creates the wheel and starts its threads, which are daemons.
+     *
+     * @param name the prefix of the wheel's thread names
+     * @param tickDuration how often the wheel moves on: the precision of its timeouts
+     * @param unit the unit of tickDuration
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two; a turn of
+     *                      the wheel should cover the common timeouts
+     * @param threads the number of threads that run due tasks
+     * @param lagRecorder receives how many nanoseconds late each task started
+     */
+    public TimerWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel, int threads,
+                      LongConsumer lagRecorder) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Tick duration, wheel size and threads must be positive");
+        }
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.min(ticksPerWheel, 1 << 30) - 1) << 1;
+        this.buckets = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = buckets.length - 1;
+        this.lagRecorder = lagRecorder;
+        this.taskThreads = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name(name + "-task-", 1).daemon().factory());
+        this.startNanos = System.nanoTime();
+        this.tickThread = Thread.ofPlatform().name(name + "-tick").daemon().start(this::runTicks);
+    }
+
+    /**
+     * Runs a task once, after a delay.
+     *
+     * @return the handle to cancel the task with
+     * @throws IllegalStateException if the wheel was stopped
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(new Timeout(this, task, System.nanoTime() + unit.toNanos(Math.max(delay, 0)), 0));
+    }
+
+    /**
+     * Runs a task after an initial delay, then once every period until it is cancelled.
+     * Runs are due at fixed times: a late run does not push the later ones back.
+     *
+     * @return the handle to cancel the task with
+     * @throws IllegalStateException if the wheel was stopped
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        return add(new Timeout(this, task, System.nanoTime() + unit.toNanos(Math.max(initialDelay, 0)),
+                unit.toNanos(period)));
+    }
+
+    private Timeout add(Timeout timeout) {
+        if (!running) {
+            throw new IllegalStateException("Timer wheel " + name + " was stopped");
+        }
+        pendingCount.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Called by {@link Timeout#cancel()} once the timeout is cancelled.
+     */
+    void cancelled(Timeout timeout) {
+        pendingCount.decrementAndGet();
+        cancelled.add(timeout);
+    }
+
+    /**
+     * @return the timeouts that have neither expired nor been cancelled, periodic ones included
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Stops the wheel. Pending timeouts never run; running tasks finish.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(tickThread);
+        taskThreads.shutdown();
+    }
+
+    /**
+     * The tick thread: waits for the end of each tick, then expires that tick's bucket.
+     * A tick that ends late is caught up right away, so the wheel never drifts.
+     */
+    private void runTicks() {
+        while (running) {
+            long tickEnd = startNanos + (tick + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime()) < tickEnd) {
+                LockSupport.parkNanos(this, tickEnd - now);
+                if (!running) {
+                    return;
+                }
+            }
+            removeCancelled();
+            transferScheduled();
+            buckets[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Moves newly scheduled timeouts into the bucket of the tick they are due on.
+     */
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (!timeout.isPending()) {
+                continue; // Cancelled before it got here
+            }
+            long dueTick = Math.max((timeout.deadlineNanos - startNanos) / tickNanos, 0);
+            timeout.remainingRounds = (dueTick - tick) / buckets.length;
+            // A timeout due on a tick that has already passed goes into the current bucket
+            buckets[(int) (Math.max(dueTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Hands a due timeout to the task threads. A periodic timeout goes back onto the wheel
+     * once its run has finished.
+     */
+    private void fire(Timeout timeout) {
+        if (timeout.isPeriodic() ? !timeout.isPending() : !timeout.expire()) {
+            return; // Cancelled after it was last checked
+        }
+        if (!timeout.isPeriodic()) {
+            pendingCount.decrementAndGet();
+        }
+        try {
+            taskThreads.execute(() -> run(timeout));
+        } catch (RejectedExecutionException e) {
+            // The wheel was stopped
+        }
+    }
+
+    private void run(Timeout timeout) {
+        if (lagRecorder != null) {
+            lagRecorder.accept(System.nanoTime() - timeout.deadlineNanos);
+        }
+        try {
+            timeout.task.run();
+        } catch (Throwable t) {
+            System.err.println("Timer task on " + name + " failed: " + t);
+            t.printStackTrace();
+        }
+        if (timeout.isPeriodic() && timeout.isPending() && running) {
+            timeout.deadlineNanos += timeout.periodNanos;
+            scheduled.add(timeout);
+        }
+    }
+
+    /**
+     * The timeouts due on one tick of the wheel, in any turn, as a doubly-linked list so
+     * a cancelled timeout is unlinked in constant time. Only used by the tick thread.
+     */
+    final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.next = null;
+            timeout.previous = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * Fires the timeouts due in this turn of the wheel and counts the others down.
+         */
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    fire(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}